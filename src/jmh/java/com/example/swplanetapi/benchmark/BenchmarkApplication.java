@@ -0,0 +1,96 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.SwPlanetApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class BenchmarkApplication {
+
+    private static final String[] DEFAULTS = {
+            "spring.datasource.username=sa",
+            "spring.datasource.password=",
+            "spring.jpa.show-sql=false",
+            "logging.level.root=warn"
+    };
+
+    private static final AtomicInteger STARTS = new AtomicInteger();
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Starts the application against a private in-memory H2 database, created by the migrations and dropped when
+     * the context closes. Properties are passed as command line arguments so they take precedence over
+     * {@code application.properties}.
+     */
+    public static ConfigurableApplicationContext start(String database, String... properties) {
+        return start(WebApplicationType.NONE, database, properties);
+    }
+
+    /**
+     * Starts the full servlet application (on a random port), for benchmarks that go through Spring MVC.
+     */
+    public static ConfigurableApplicationContext startWeb(String database, String... properties) {
+        return start(WebApplicationType.SERVLET, database, Stream.concat(Stream.of("server.port=0"), Stream.of(properties))
+                .toArray(String[]::new));
+    }
+
+    /**
+     * Starts the {@code reactive} profile (WebFlux + R2DBC) on a random port, against the same kind of database.
+     */
+    public static ConfigurableApplicationContext startReactive(String database, String... properties) {
+        String[] args = Stream.of(
+                        Stream.of("spring.profiles.active=reactive",
+                                "server.port=0",
+                                "spring.r2dbc.url=r2dbc:h2:mem:///" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                                "spring.r2dbc.username=sa",
+                                "spring.r2dbc.password=",
+                                "logging.level.root=warn"),
+                        Stream.of(properties))
+                .flatMap(s -> s)
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+
+        return new SpringApplicationBuilder(SwPlanetApiApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String database, String... properties) {
+        String[] args = Stream.of(
+                        // A new database for every start; H2 drops it once the pool closes its last connection
+                        Stream.of("spring.datasource.url=jdbc:h2:mem:" + database + "-" + STARTS.incrementAndGet()),
+                        Stream.of(DEFAULTS),
+                        Stream.of(properties))
+                .flatMap(s -> s)
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+
+        return new SpringApplicationBuilder(SwPlanetApiApplication.class)
+                .web(type)
+                .run(args);
+    }
+
+    /**
+     * Inserts {@code rows} planets where every terrain is shared by exactly ten planets, so a terrain filter
+     * returns the same number of rows whatever the size of the table.
+     */
+    public static void seedPlanets(ConfigurableApplicationContext context, int rows) {
+        String sql = "INSERT INTO planet (name, climate, terrain) " +
+                "SELECT 'Planet ' || x, 'Climate ' || MOD(x, 7), 'Terrain ' || MOD(x, %d) FROM SYSTEM_RANGE(1, %d)";
+        String insert = sql.formatted(Math.max(rows / 10, 1), rows);
+
+        // The reactive profile has no JDBC datasource
+        if (context.getBeanNamesForType(JdbcTemplate.class).length > 0) {
+            context.getBean(JdbcTemplate.class).update(insert);
+        } else {
+            context.getBean(DatabaseClient.class).sql(insert).then().block();
+        }
+    }
+}
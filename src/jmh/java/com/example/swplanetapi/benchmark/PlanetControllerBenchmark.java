@@ -0,0 +1,118 @@
+package com.example.swplanetapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Full Spring MVC request path (dispatch, argument resolution, service, repository, Jackson) for each
+ * {@code PlanetController} endpoint, against an H2 catalog of {@code rows} planets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetControllerBenchmark {
+
+    @Param({"1000"})
+    private int rows;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String planetETag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.startWeb("controller");
+        BenchmarkApplication.seedPlanets(context, rows);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        planetETag = mockMvc.perform(get("/planets/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse list() throws Exception {
+        return perform(get("/planets"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse listFiltered() throws Exception {
+        return perform(get("/planets").param("terrain", "Terrain " + random(rows / 10)));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse listPage() throws Exception {
+        return perform(get("/planets").param("after", String.valueOf(random(rows))).param("limit", "50"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse stream() throws Exception {
+        MvcResult result = mockMvc.perform(get("/planets").accept(MediaType.APPLICATION_NDJSON)).andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getById() throws Exception {
+        return perform(get("/planets/{id}", random(rows) + 1));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getNotModified() throws Exception {
+        return perform(get("/planets/1").header(HttpHeaders.IF_NONE_MATCH, planetETag));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getByName() throws Exception {
+        return perform(get("/planets/name/{name}", "Planet " + (random(rows) + 1)));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse createAndRemove() throws Exception {
+        String name = "Created " + sequence.incrementAndGet();
+        MockHttpServletResponse created = perform(post("/planets")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"" + name + "\",\"climate\":\"arid\",\"terrain\":\"desert\"}"));
+        String id = created.getContentAsString().replaceAll(".*\"id\":(\\d+).*", "$1");
+        return perform(delete("/planets/{id}", id));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse bulkCreateAndRemove() throws Exception {
+        StringBuilder body = new StringBuilder();
+        long first = sequence.getAndAdd(10);
+        for (long i = first; i < first + 10; i++) {
+            body.append("{\"name\":\"Bulk ").append(i).append("\",\"climate\":\"arid\",\"terrain\":\"bulk\"}\n");
+        }
+        perform(post("/planets/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body.toString()));
+        return perform(delete("/planets").param("terrain", "bulk"));
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(Math.max(bound, 1));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.PlanetField;
+import com.example.swplanetapi.domain.service.PlanetService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A large page read and serialized as full entities and as an {@code ?fields=id,name} projection. Run with
+ * {@code -prof gc} to compare the allocation per page ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetFieldsBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private static final Set<PlanetField> ID_AND_NAME = EnumSet.of(PlanetField.ID, PlanetField.NAME);
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private PlanetService planetService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("fields");
+        BenchmarkApplication.seedPlanets(context, ROWS);
+        planetService = context.getBean(PlanetService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] allFields() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(planetService.list(null, null, randomCursor(), pageSize));
+    }
+
+    @Benchmark
+    public byte[] idAndName() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(planetService.list(null, null, randomCursor(), pageSize, ID_AND_NAME));
+    }
+
+    private long randomCursor() {
+        return ThreadLocalRandom.current().nextLong(ROWS - pageSize);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetImportResult;
+import com.example.swplanetapi.domain.service.PlanetImportService;
+import com.example.swplanetapi.domain.service.PlanetService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * Rows per second through the bulk path ({@link PlanetImportService#createAll}, JDBC batches) compared with one
+ * {@link PlanetService#create} call per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(PlanetImportBenchmark.ROWS)
+public class PlanetImportBenchmark {
+
+    static final int ROWS = 1000;
+
+    @Param({"100", "500", "1000"})
+    private int batchSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private PlanetService planetService;
+    private PlanetImportService planetImportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("import", "planet.import.batch-size=" + batchSize);
+        planetService = context.getBean(PlanetService.class);
+        planetImportService = context.getBean(PlanetImportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PlanetImportResult> createAll() {
+        return planetImportService.createAll(nextPlanets().iterator());
+    }
+
+    @Benchmark
+    public void createOneByOne(Blackhole blackhole) {
+        for (Planet planet : nextPlanets()) {
+            blackhole.consume(planetService.create(planet));
+        }
+    }
+
+    private List<Planet> nextPlanets() {
+        long first = sequence.getAndAdd(ROWS);
+        return LongStream.range(first, first + ROWS)
+                .mapToObj(i -> Planet.builder().name("Planet " + i).climate("arid").terrain("desert").build())
+                .toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import com.example.swplanetapi.domain.service.PlanetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered list latency as the table grows. {@code list} goes through the indexed lookup columns and should stay
+ * flat; {@code listWithExampleMatcher} is the previous Query-by-Example path ({@code lower(col) = lower(?)}) and
+ * degrades into a full table scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetListBenchmark {
+
+    private static final ExampleMatcher IGNORE_CASE = ExampleMatcher.matchingAll().withIgnoreCase().withIgnoreNullValues();
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private PlanetService planetService;
+    private PlanetRepository planetRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("list");
+        BenchmarkApplication.seedPlanets(context, rows);
+        planetService = context.getBean(PlanetService.class);
+        planetRepository = context.getBean(PlanetRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Planet> list() {
+        return planetService.list(randomTerrain(), null);
+    }
+
+    @Benchmark
+    public List<Planet> listByTerrainAndClimate() {
+        return planetService.list(randomTerrain(), "CLIMATE 3");
+    }
+
+    @Benchmark
+    public List<Planet> listWithExampleMatcher() {
+        Planet probe = Planet.builder().terrain(randomTerrain()).build();
+        return planetRepository.findAll(Example.of(probe, IGNORE_CASE));
+    }
+
+    private String randomTerrain() {
+        return "TERRAIN " + ThreadLocalRandom.current().nextInt(Math.max(rows / 10, 1));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetLookupResult;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import com.example.swplanetapi.domain.service.PlanetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Point lookups by name and id, straight through {@link PlanetRepository} and through {@link PlanetService} (which
+ * is fronted by the lookup cache), with and without Hibernate's second-level and query cache under the repository.
+ * The batch lookups resolve 10 or 100 random ids at once, to compare with as many single lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetLookupBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean hibernateCache;
+
+    /**
+     * Added to every statement, see {@link SlowJdbc}.
+     */
+    @Param({"0ms", "1ms"})
+    private String jdbcLatency;
+
+    private ConfigurableApplicationContext context;
+    private PlanetRepository planetRepository;
+    private PlanetService planetService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("lookup",
+                "planet.cache.hibernate.enabled=" + hibernateCache,
+                "spring.main.sources=" + SlowJdbc.class.getName(),
+                "benchmark.jdbc-latency=" + jdbcLatency);
+        BenchmarkApplication.seedPlanets(context, rows);
+        planetRepository = context.getBean(PlanetRepository.class);
+        planetService = context.getBean(PlanetService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Planet> repositoryFindByName() {
+        return planetRepository.findByName(randomName());
+    }
+
+    @Benchmark
+    public Optional<Planet> repositoryFindById() {
+        return planetRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Planet> serviceGetByName() {
+        return planetService.getByName(randomName());
+    }
+
+    @Benchmark
+    public Optional<Planet> serviceGet() {
+        return planetService.get(randomId());
+    }
+
+    @Benchmark
+    public List<Planet> repositoryFindAllByIds10() {
+        return planetRepository.findAllByIds(randomIds(10));
+    }
+
+    @Benchmark
+    public List<Planet> repositoryFindAllByIds100() {
+        return planetRepository.findAllByIds(randomIds(100));
+    }
+
+    @Benchmark
+    public PlanetLookupResult serviceLookup10() {
+        return planetService.lookup(randomIds(10), List.of());
+    }
+
+    @Benchmark
+    public PlanetLookupResult serviceLookup100() {
+        return planetService.lookup(randomIds(100), List.of());
+    }
+
+    private List<Long> randomIds(int count) {
+        return LongStream.generate(this::randomId).limit(count).boxed().toList();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    private String randomName() {
+        return "Planet " + randomId();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.swplanetapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups by id from more clients than the connection pool can serve, with and without the concurrency limiter.
+ * Every JDBC statement waits {@code jdbcLatency}, long enough for the pool rather than the CPU to be the bottleneck.
+ * Without the limiter the excess queues for a connection and every request gets slower; with it the excess gets a 503
+ * at once and the admitted requests keep their latency. The {@code ok} and {@code rejected} counters split the
+ * throughput by outcome.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(32)
+@Fork(1)
+public class PlanetOverloadBenchmark {
+
+    @Param({"false", "true"})
+    private boolean limiter;
+
+    @Param({"100ms"})
+    private String jdbcLatency;
+
+    @Param({"10"})
+    private int poolSize;
+
+    @Param({"10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+
+        public long ok;
+
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = BenchmarkApplication.startWeb("overload",
+                "spring.main.sources=" + SlowJdbc.class.getName(),
+                "server.tomcat.threads.max=200",
+                "server.tomcat.accept-count=1000",
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "planet.cache.enabled=false",
+                "planet.cache.hibernate.enabled=false",
+                "planet.limiter.enabled=" + limiter,
+                "benchmark.jdbc-latency=" + jdbcLatency);
+        BenchmarkApplication.seedPlanets(context, rows);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        // One client first, as traffic ramps up in production: the limiter learns the latency without queueing
+        for (int i = 0; i < 50; i++) {
+            getById(new Responses());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int getById(Responses responses) throws IOException, InterruptedException {
+        String path = "/planets/" + (ThreadLocalRandom.current().nextInt(rows) + 1);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        switch (response.statusCode()) {
+            case 200 -> responses.ok++;
+            case 503 -> responses.rejected++;
+            default -> throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + path);
+        }
+        return response.statusCode();
+    }
+}
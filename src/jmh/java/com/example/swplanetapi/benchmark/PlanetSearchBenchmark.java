@@ -0,0 +1,119 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.service.PlanetSearchIndex;
+import com.example.swplanetapi.domain.service.PlanetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name search through the in-memory index ({@link PlanetService#search}) against the SQL baseline, a
+ * {@code LOWER(name) LIKE} scan, over generated names made of syllables so prefixes and trigrams are spread the way
+ * real names are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetSearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ta", "too", "ine", "al", "de", "ran", "ya", "vin", "ho", "th", "da", "go", "bah", "en", "dor",
+            "na", "boo", "ka", "shyy", "yk", "mus", "kes", "far", "cor", "us", "can", "to", "ni", "ja", "ku"
+    };
+
+    private static final int LIMIT = 20;
+
+    private static final int QUERIES = 1024;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private PlanetService planetService;
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> prefixes = new ArrayList<>();
+    private final List<String> typos = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("search");
+        planetService = context.getBean(PlanetService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{name(i), "Climate " + i % 7, "Terrain " + i % 101});
+            if (batch.size() == 10_000 || i == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO planet (name, climate, terrain) VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        context.getBean(PlanetSearchIndex.class).rebuild();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < QUERIES; i++) {
+            String name = name(random.nextInt(1, rows + 1)).toLowerCase(Locale.ROOT);
+            prefixes.add(name.substring(0, Math.min(name.length(), 4)));
+            // Drop one letter from the first word
+            int typo = random.nextInt(1, name.indexOf(' '));
+            typos.add(name.substring(0, typo) + name.substring(typo + 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PlanetSearchHit> indexPrefix() {
+        return planetService.search(random(prefixes), LIMIT);
+    }
+
+    @Benchmark
+    public List<PlanetSearchHit> indexTypo() {
+        return planetService.search(random(typos), LIMIT);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> likePrefix() {
+        return jdbcTemplate.queryForList("SELECT id, name FROM planet WHERE LOWER(name) LIKE ? LIMIT ?",
+                random(prefixes) + "%", LIMIT);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> likeContains() {
+        return jdbcTemplate.queryForList("SELECT id, name FROM planet WHERE LOWER(name) LIKE ? LIMIT ?",
+                "%" + random(typos) + "%", LIMIT);
+    }
+
+    private static String random(List<String> queries) {
+        return queries.get(ThreadLocalRandom.current().nextInt(queries.size()));
+    }
+
+    /**
+     * Two or three syllables picked from the digits of {@code i}, then {@code i} itself so every name is unique.
+     */
+    private static String name(int i) {
+        StringBuilder name = new StringBuilder();
+        int digits = i;
+        for (int syllable = 0; syllable < 2 + i % 2; syllable++) {
+            name.append(SYLLABLES[digits % SYLLABLES.length]);
+            digits /= SYLLABLES.length;
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.append(' ').append(i).toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson cost of a single planet and of a list response in each format the API negotiates (JSON, CBOR and Smile),
+ * with the same ObjectMapper setup Spring MVC uses. {@code serializeGzip} adds the cost of compressing the body, as
+ * the server does above {@code server.compression.min-response-size}. The body size of each format, plain and
+ * gzipped, is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanetSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Planet> planets;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory()).build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Planet.class));
+        reader = objectMapper.readerForListOf(Planet.class);
+
+        planets = LongStream.rangeClosed(1, size)
+                .mapToObj(id -> Planet.builder()
+                        .id(id)
+                        .name("Planet " + id)
+                        .climate("temperate, tropical")
+                        .terrain("jungle, rainforests")
+                        .build())
+                .toList();
+        body = writer.writeValueAsBytes(planets);
+        System.out.printf("%n%s, %d planets: %d bytes, %d gzipped%n", format, size, body.length, serializeGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(planets);
+    }
+
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzip, planets);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Planet> deserialize() throws IOException {
+        return reader.readValue(body);
+    }
+
+    private JsonFactory factory() {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.swplanetapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the same {@code /planets} requests over real HTTP on the blocking stack (Spring MVC + JPA, on
+ * platform or virtual threads) and on the {@code reactive} profile (WebFlux + R2DBC). Note that r2dbc-h2 drives
+ * the embedded H2 synchronously, so against MySQL the reactive numbers are the ones to re-measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class PlanetStackBenchmark {
+
+    @Param({"servlet", "servlet-virtual", "reactive"})
+    private String stack;
+
+    @Param({"10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = switch (stack) {
+            // Without the concurrency limiter (PlanetOverloadBenchmark), which would shed part of the load
+            case "servlet" -> BenchmarkApplication.startWeb("stack", "planet.cache.enabled=false",
+                    "planet.limiter.enabled=false");
+            case "servlet-virtual" -> BenchmarkApplication.startWeb("stack", "planet.cache.enabled=false",
+                    "planet.limiter.enabled=false", "spring.threads.virtual.enabled=true");
+            // r2dbc-h2 completes synchronously, so a pool hands every released connection to the next waiter on the
+            // same event loop and starves the others; in-memory H2 connections are cheap enough to open per request
+            case "reactive" -> BenchmarkApplication.startReactive("stack", "spring.r2dbc.pool.enabled=false");
+            default -> throw new IllegalArgumentException(stack);
+        };
+        BenchmarkApplication.seedPlanets(context, rows);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int getById() throws IOException, InterruptedException {
+        return send("/planets/" + (random(rows) + 1), "application/json");
+    }
+
+    @Benchmark
+    public int listFiltered() throws IOException, InterruptedException {
+        return send("/planets?terrain=Terrain%20" + random(rows / 10), "application/json");
+    }
+
+    @Benchmark
+    public int listPage() throws IOException, InterruptedException {
+        return send("/planets?after=" + random(rows) + "&limit=50", "application/json");
+    }
+
+    @Benchmark
+    public int stream() throws IOException, InterruptedException {
+        return send("/planets?climate=Climate%20" + random(7), "application/x-ndjson");
+    }
+
+    private int send(String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Accept", accept).GET().build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + path);
+        }
+        return response.statusCode();
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(Math.max(bound, 1));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.swplanetapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from launching the packaged application in a new JVM to its first successful {@code GET /planets}, for each
+ * startup mode:
+ * <ul>
+ *     <li>{@code update}: the schema diffed by Hibernate ({@code ddl-auto=update}), as before the migrations</li>
+ *     <li>{@code migrate}: Flyway migrations and {@code ddl-auto=validate}, the default</li>
+ *     <li>{@code lazy}: {@code migrate} with the {@code lazy} profile</li>
+ *     <li>{@code cds} and {@code lazy-cds}: the same with the AppCDS archive</li>
+ * </ul>
+ * Needs {@code ./mvnw -P cds package} first, which leaves the extracted jar and the archive in {@code target/cds}.
+ * The database is an in-memory H2 one, so {@code update} does not show the cost of reading a MySQL schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PlanetStartupBenchmark {
+
+    private static final Path CDS = Path.of("target", "cds");
+
+    @Param({"update", "migrate", "lazy", "cds", "lazy-cds"})
+    private String mode;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private String jar;
+
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (Stream<Path> files = Files.list(CDS)) {
+            jar = files.map(file -> file.getFileName().toString())
+                    .filter(file -> file.endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new NoSuchFileException(CDS.resolve("*.jar").toString()));
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Run ./mvnw -P cds package before this benchmark", e);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+
+    @Benchmark
+    public int firstGet() throws IOException, InterruptedException {
+        int port = freePort();
+        // Started from target/cds: the archive only applies to the class path it was recorded with
+        process = new ProcessBuilder(command(port))
+                .directory(CDS.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/planets")).build();
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private List<String> command(int port) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (mode.endsWith("cds")) {
+            command.add("-XX:SharedArchiveFile=application.jsa");
+        }
+        command.addAll(List.of("-jar", jar,
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=warn"));
+        if (mode.equals("update")) {
+            command.addAll(List.of("--spring.flyway.enabled=false", "--spring.jpa.hibernate.ddl-auto=update"));
+        }
+        if (mode.startsWith("lazy")) {
+            command.add("--spring.profiles.active=lazy");
+        }
+        return command;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import com.example.swplanetapi.domain.repository.QueryBuilder;
+import com.example.swplanetapi.domain.service.PlanetColumnStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads answered by the column store against the same reads through the repository, with the caches off, and the
+ * two ways the store is filled at startup: mapping the snapshot ({@code load}) or reading the whole table
+ * ({@code rebuild}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetStoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private PlanetColumnStore columnStore;
+    private PlanetRepository planetRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("planet-store");
+        context = BenchmarkApplication.start("store",
+                "planet.store.enabled=true",
+                "planet.store.snapshot=" + directory.resolve("planets.snapshot"),
+                "planet.cache.enabled=false",
+                "planet.cache.hibernate.enabled=false");
+        BenchmarkApplication.seedPlanets(context, rows);
+        columnStore = context.getBean(PlanetColumnStore.class);
+        planetRepository = context.getBean(PlanetRepository.class);
+        columnStore.rebuild();
+        columnStore.snapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Optional<Planet> storeGet() {
+        return columnStore.get(randomId());
+    }
+
+    @Benchmark
+    public Optional<Planet> repositoryGet() {
+        return planetRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Planet> storeGetByName() {
+        return columnStore.getByName("Planet " + randomId());
+    }
+
+    @Benchmark
+    public Optional<Planet> repositoryGetByName() {
+        return planetRepository.findByName("Planet " + randomId());
+    }
+
+    /**
+     * Ten planets share each terrain.
+     */
+    @Benchmark
+    public List<Planet> storeList() {
+        return columnStore.list(randomTerrain(), null);
+    }
+
+    @Benchmark
+    public List<Planet> repositoryList() {
+        Planet probe = Planet.builder().terrain(randomTerrain()).build();
+        return planetRepository.findAll(QueryBuilder.makeQuery(probe), Sort.by("id"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public boolean load() {
+        return columnStore.load();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public PlanetColumnStore rebuild() {
+        columnStore.rebuild();
+        return columnStore;
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    private String randomTerrain() {
+        return "Terrain " + ThreadLocalRandom.current().nextInt(Math.max(rows / 10, 1));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.swplanetapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test over real HTTP comparing Tomcat on platform threads with Tomcat on virtual threads. Many client threads
+ * hit a server with few request threads while every JDBC statement waits {@code jdbcLatency}, which is where a
+ * platform thread pool saturates first. Throughput mode gives requests per second and sample mode the p99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class PlanetThreadingBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"2ms"})
+    private String jdbcLatency;
+
+    @Param({"32"})
+    private int tomcatThreads;
+
+    @Param({"64"})
+    private int poolSize;
+
+    @Param({"10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.startWeb("threading",
+                "spring.main.sources=" + SlowJdbc.class.getName(),
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.threads.max=" + tomcatThreads,
+                "server.tomcat.accept-count=1000",
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "planet.cache.enabled=false",
+                "planet.limiter.enabled=false",
+                "benchmark.jdbc-latency=" + jdbcLatency);
+        BenchmarkApplication.seedPlanets(context, rows);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int getById() throws IOException, InterruptedException {
+        return send("/planets/" + (random(rows) + 1));
+    }
+
+    @Benchmark
+    public int listFiltered() throws IOException, InterruptedException {
+        return send("/planets?terrain=Terrain%20" + random(rows / 10));
+    }
+
+    private int send(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + path);
+        }
+        return response.statusCode();
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(Math.max(bound, 1));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter.Match;
+import com.example.swplanetapi.domain.service.PlanetService;
+import com.example.swplanetapi.domain.service.PlanetTokenIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token filters answered by the bitmap index ({@link PlanetService#list(PlanetTokenFilter, Long, int)}, which then
+ * loads the page by id) against the SQL baseline, one {@code LIKE '%,token,%'} per token over the comma-separated
+ * columns. Terrains have one to three tokens out of {@value #TERRAINS}, climates one or two out of
+ * {@value #CLIMATES}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetTokenBenchmark {
+
+    private static final int TERRAINS = 40;
+
+    private static final int CLIMATES = 8;
+
+    private static final int LIMIT = 50;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private PlanetService planetService;
+    private PlanetTokenIndex tokenIndex;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("token");
+        planetService = context.getBean(PlanetService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{"Planet " + i, climate(i), terrain(i)});
+            if (batch.size() == 10_000 || i == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO planet (name, climate, terrain) VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        tokenIndex = context.getBean(PlanetTokenIndex.class);
+        tokenIndex.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Two terrains that must both be present, excluding one climate.
+     */
+    @Benchmark
+    public List<Planet> indexAll() {
+        String[] tokens = randomTokens();
+        return planetService.list(new PlanetTokenFilter(List.of(tokens[0], tokens[1]), List.of("!" + tokens[2]),
+                Match.ALL), null, LIMIT);
+    }
+
+    /**
+     * {@link #indexAll()} without loading the page: only the bitmap operations.
+     */
+    @Benchmark
+    public List<Long> indexAllIds() {
+        String[] tokens = randomTokens();
+        return tokenIndex.find(new PlanetTokenFilter(List.of(tokens[0], tokens[1]), List.of("!" + tokens[2]),
+                Match.ALL), null, LIMIT);
+    }
+
+    /**
+     * Any of three terrains.
+     */
+    @Benchmark
+    public List<Planet> indexAny() {
+        String[] tokens = randomTokens();
+        return planetService.list(new PlanetTokenFilter(List.of(tokens[0], tokens[1], tokens[3]), List.of(),
+                Match.ANY), null, LIMIT);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> likeAll() {
+        String[] tokens = randomTokens();
+        return jdbcTemplate.queryForList("SELECT id, name, climate, terrain FROM planet " +
+                        "WHERE " + contains("terrain") + " AND " + contains("terrain") +
+                        " AND NOT " + contains("climate") + " ORDER BY id LIMIT ?",
+                tokens[0], tokens[1], tokens[2], LIMIT);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> likeAny() {
+        String[] tokens = randomTokens();
+        return jdbcTemplate.queryForList("SELECT id, name, climate, terrain FROM planet " +
+                        "WHERE " + contains("terrain") + " OR " + contains("terrain") + " OR " + contains("terrain") +
+                        " ORDER BY id LIMIT ?",
+                tokens[0], tokens[1], tokens[3], LIMIT);
+    }
+
+    private static String contains(String column) {
+        return "(',' || REPLACE(LOWER(" + column + "), ' ', '') || ',') LIKE ('%,' || ? || ',%')";
+    }
+
+    /**
+     * Two terrains that occur together, a climate and another terrain.
+     */
+    private static String[] randomTokens() {
+        int i = ThreadLocalRandom.current().nextInt(1, 1_000_000);
+        List<String> terrain = List.of(terrain(i).split(", "));
+        return new String[]{terrain.get(0), terrain.get(terrain.size() - 1), "climate" + i % CLIMATES,
+                "terrain" + (i + 1) % TERRAINS};
+    }
+
+    private static String terrain(int i) {
+        List<String> tokens = new ArrayList<>();
+        for (int token = 0; token <= i % 3; token++) {
+            tokens.add("terrain" + (i / (token + 1)) % TERRAINS);
+        }
+        return String.join(", ", tokens);
+    }
+
+    private static String climate(int i) {
+        return i % 2 == 0 ? "climate" + i % CLIMATES : "climate" + i % CLIMATES + ", climate" + (i / 2) % CLIMATES;
+    }
+}
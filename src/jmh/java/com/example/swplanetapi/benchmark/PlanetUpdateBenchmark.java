@@ -0,0 +1,75 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetUpdateResult;
+import com.example.swplanetapi.domain.service.PlanetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changing a planet in place ({@link PlanetService#replace}, one conditional {@code UPDATE} against the cached
+ * version) against what clients did before there was an update: remove the planet and create it again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetUpdateBenchmark {
+
+    private static final String NAME = "Planet 1";
+
+    @Param({"100000"})
+    private int rows;
+
+    /**
+     * Added to every statement, see {@link SlowJdbc}.
+     */
+    @Param({"0ms", "1ms"})
+    private String jdbcLatency;
+
+    private ConfigurableApplicationContext context;
+    private PlanetService planetService;
+
+    private Long planetId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("update",
+                "spring.main.sources=" + SlowJdbc.class.getName(),
+                "benchmark.jdbc-latency=" + jdbcLatency);
+        BenchmarkApplication.seedPlanets(context, rows);
+        planetService = context.getBean(PlanetService.class);
+        planetId = planetService.getByName(NAME).orElseThrow().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PlanetUpdateResult replace() {
+        return planetService.replace(planetId, planet(), null);
+    }
+
+    @Benchmark
+    public Planet removeAndCreate() {
+        planetService.remove(planetId);
+        Planet created = planetService.create(planet());
+        planetId = created.getId();
+        return created;
+    }
+
+    private static Planet planet() {
+        return Planet.builder()
+                .name(NAME)
+                .climate("Climate " + ThreadLocalRandom.current().nextInt(7))
+                .terrain("Terrain 1")
+                .build();
+    }
+}
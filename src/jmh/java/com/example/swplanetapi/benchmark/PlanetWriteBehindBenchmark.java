@@ -0,0 +1,75 @@
+package com.example.swplanetapi.benchmark;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetCreation;
+import com.example.swplanetapi.domain.service.PlanetService;
+import com.example.swplanetapi.domain.service.PlanetWriteBehind;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planet creations per second from many concurrent clients, each created with its own transaction ({@code sync}) or
+ * queued and committed in groups ({@code write-behind}, waiting for the commit as a request answered with 201 does).
+ * Every read-write commit waits {@code commitLatency}, see {@link SlowJdbc}; the synchronous path pays it once per
+ * planet, the write-behind one once per group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(32)
+@Fork(1)
+public class PlanetWriteBehindBenchmark {
+
+    private static final AtomicLong NAMES = new AtomicLong();
+
+    @Param({"sync", "write-behind"})
+    private String mode;
+
+    @Param({"5ms"})
+    private String commitLatency;
+
+    private ConfigurableApplicationContext context;
+    private PlanetService planetService;
+    private PlanetWriteBehind planetWriteBehind;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("write-behind",
+                "spring.main.sources=" + SlowJdbc.class.getName(),
+                "benchmark.jdbc-commit-latency=" + commitLatency,
+                "spring.datasource.hikari.maximum-pool-size=32",
+                // Every client is admitted, so both paths see the same load
+                "planet.limiter.enabled=false",
+                "planet.write-behind.enabled=" + mode.equals("write-behind"),
+                "planet.write-behind.wait=1m");
+        planetService = context.getBean(PlanetService.class);
+        planetWriteBehind = context.getBean(PlanetWriteBehind.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Planet create() throws InterruptedException {
+        Planet planet = Planet.builder()
+                .name("Planet " + NAMES.incrementAndGet())
+                .climate("Climate")
+                .terrain("Terrain")
+                .build();
+        if (!planetWriteBehind.isEnabled()) {
+            return planetService.create(planet);
+        }
+        PlanetCreation creation = planetWriteBehind.create(planet, false);
+        if (creation.getStatus() != PlanetCreation.Status.CREATED) {
+            throw new IllegalStateException("Not committed: " + creation);
+        }
+        return creation.getPlanet();
+    }
+}
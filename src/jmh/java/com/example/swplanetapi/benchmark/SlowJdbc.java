@@ -0,0 +1,87 @@
+package com.example.swplanetapi.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Adds {@code benchmark.jdbc-latency} to every statement execution so the in-memory H2 database blocks like a
+ * database across the network, and {@code benchmark.jdbc-commit-latency} to every commit of a read-write
+ * transaction, one commit at a time, like the flushes of a single transaction log. Registered through
+ * {@code spring.main.sources}; it swaps the driver underneath the Hikari pool, so the pool (and anything wrapping it)
+ * is left as configured.
+ */
+public class SlowJdbc implements BeanPostProcessor, EnvironmentAware {
+
+    private Duration latency = Duration.ZERO;
+
+    private Duration commitLatency = Duration.ZERO;
+
+    private final Object log = new Object();
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        latency = environment.getProperty("benchmark.jdbc-latency", Duration.class, Duration.ZERO);
+        commitLatency = environment.getProperty("benchmark.jdbc-commit-latency", Duration.class, Duration.ZERO);
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource hikari && !(latency.isZero() && commitLatency.isZero())) {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL(hikari.getJdbcUrl());
+            h2.setUser(hikari.getUsername());
+            h2.setPassword(hikari.getPassword());
+            hikari.setDataSource(new DelegatingDataSource(h2) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return slow(super.getConnection(), Connection.class);
+                }
+
+                // Hikari asks for this one whenever a username is configured
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return slow(super.getConnection(username, password), Connection.class);
+                }
+            });
+        }
+        return bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T slow(T target, Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (type != Connection.class && method.getName().startsWith("execute")) {
+                Thread.sleep(latency);
+            } else if (method.getName().equals("commit") && !((Connection) target).isReadOnly()) {
+                synchronized (log) {
+                    Thread.sleep(commitLatency);
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+            if (result instanceof PreparedStatement statement) {
+                return slow(statement, PreparedStatement.class);
+            }
+            if (result instanceof Statement statement) {
+                return slow(statement, Statement.class);
+            }
+            return result;
+        });
+    }
+}
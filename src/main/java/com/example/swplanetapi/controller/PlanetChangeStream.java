@@ -0,0 +1,92 @@
+package com.example.swplanetapi.controller;
+
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.service.PlanetChangeLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sends the planet changes after a sequence number to one Server-Sent Events subscriber, from a virtual thread of
+ * its own. Each subscriber pulls from the shared {@link PlanetChangeLog} at the pace its connection accepts the
+ * events, so a slow client only holds back its own cursor. One that falls further behind than the log keeps, or is
+ * subscribed when the log is reset, gets a {@code reset} event, with the sequence number to resume from once it has
+ * reloaded the planets, and is disconnected.
+ */
+@Slf4j
+class PlanetChangeStream implements Runnable {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final PlanetChangeLog changeLog;
+
+    private final SseEmitter emitter;
+
+    private final Duration heartbeat;
+
+    private final long resets;
+
+    private long cursor;
+
+    private volatile Thread thread;
+
+    PlanetChangeStream(PlanetChangeLog changeLog, long since, Duration heartbeat, Duration timeout) {
+        this.changeLog = changeLog;
+        this.cursor = since;
+        this.heartbeat = heartbeat;
+        this.resets = changeLog.resets();
+        this.emitter = new SseEmitter(timeout.toMillis());
+    }
+
+    SseEmitter start() {
+        emitter.onCompletion(this::stop);
+        emitter.onTimeout(this::stop);
+        emitter.onError(error -> stop());
+        thread = Thread.ofVirtual().name("planet-changes-" + cursor).start(this);
+        return emitter;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Optional<List<PlanetChange>> changes = changeLog.after(cursor, BATCH_SIZE);
+                if (changes.isEmpty() || changeLog.resets() != resets) {
+                    emitter.send(SseEmitter.event().name("reset").data(Map.of("seq", changeLog.lastSeq()),
+                            MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                    return;
+                }
+                for (PlanetChange change : changes.get()) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.getSeq()))
+                            .name(change.getType().name().toLowerCase(Locale.ROOT))
+                            .data(change, MediaType.APPLICATION_JSON));
+                    cursor = change.getSeq();
+                }
+                if (changes.get().isEmpty() && !changeLog.await(cursor, heartbeat)) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter timed out; it resumes from its last event id
+            log.debug("Planet change subscriber at {} disconnected: {}", cursor, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stop() {
+        Thread current = thread;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+}
@@ -1,50 +1,398 @@
 package com.example.swplanetapi.controller;
 
+import com.example.swplanetapi.core.limiter.ConcurrencyLimitAspect;
+import com.example.swplanetapi.core.limiter.ConcurrencyLimited.Workload;
+import com.example.swplanetapi.core.web.BinaryFormatConfiguration;
 import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetCreation;
+import com.example.swplanetapi.domain.model.PlanetFacets;
+import com.example.swplanetapi.domain.model.PlanetField;
+import com.example.swplanetapi.domain.model.PlanetImportResult;
+import com.example.swplanetapi.domain.model.PlanetLookupRequest;
+import com.example.swplanetapi.domain.model.PlanetLookupResult;
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.model.PlanetUpdateResult;
+import com.example.swplanetapi.domain.service.PlanetChangeLog;
+import com.example.swplanetapi.domain.service.PlanetChangeProperties;
+import com.example.swplanetapi.domain.service.PlanetImportService;
 import com.example.swplanetapi.domain.service.PlanetService;
+import com.example.swplanetapi.domain.service.PlanetWriteBehind;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.apache.coyote.Response;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import javax.validation.Valid;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
-@RequestMapping(path = "/planets", produces = MediaType.APPLICATION_JSON_VALUE)
+@Timed(value = "planet.controller", histogram = true, percentiles = {0.5, 0.95, 0.99})
+@RequestMapping(path = "/planets", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatConfiguration.APPLICATION_SMILE_VALUE})
 public class PlanetController {
 
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int MAX_LOOKUP_KEYS = 2000;
+
     private final PlanetService planetService;
 
+    private final PlanetImportService planetImportService;
+
+    private final PlanetWriteBehind planetWriteBehind;
+
+    private final ObjectMapper objectMapper;
+
+    private final PlanetHttpProperties httpProperties;
+
+    private final PlanetChangeLog changeLog;
+
+    private final PlanetChangeProperties changeProperties;
+
+    private final ObjectProvider<ConcurrencyLimitAspect> limiter;
+
+    /**
+     * {@code fields} restricts the representation to the given fields (the id is always included); only those columns
+     * are read from the database.
+     */
     @GetMapping
-    public ResponseEntity<List<Planet>> list(String terrain, String climate) {
-        return ResponseEntity.ok(planetService.list(terrain, climate));
+    public ResponseEntity<List<Planet>> list(String terrain, String climate, Long after, Integer limit,
+                                             @RequestParam(required = false) Set<PlanetField> fields, WebRequest request) {
+        if (after == null && limit == null) {
+            // The fingerprint query only touches the indexes, so unchanged lists are answered without loading them
+            String eTag = PlanetETags.ofList(terrain, climate, fields, planetService.listFingerprint(terrain, climate));
+            if (request.checkNotModified(eTag)) {
+                return cacheable(HttpStatus.NOT_MODIFIED, eTag).build();
+            }
+            List<Planet> planets = fields == null ? planetService.list(terrain, climate)
+                    : planetService.list(terrain, climate, fields);
+            return cacheable(HttpStatus.OK, eTag).body(planets);
+        }
+
+        int pageSize = limit == null ? MAX_PAGE_SIZE : limit;
+        if (pageSize < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        List<Planet> page = fields == null ? planetService.list(terrain, climate, after, pageSize)
+                : planetService.list(terrain, climate, after, pageSize, fields);
+        return page(page, pageSize);
     }
 
+    /**
+     * Filters on the tokens of the terrain and climate lists rather than the whole value, e.g.
+     * {@code ?terrain=desert&terrain=!mountains&match=all}; see {@link PlanetTokenFilter}. Always paged.
+     */
+    @GetMapping(params = "match")
+    public ResponseEntity<List<Planet>> list(@RequestParam(required = false) List<String> terrain,
+                                             @RequestParam(required = false) List<String> climate,
+                                             PlanetTokenFilter.Match match, Long after, Integer limit) {
+        PlanetTokenFilter filter = new PlanetTokenFilter(terrain == null ? List.of() : terrain,
+                climate == null ? List.of() : climate, match);
+        int pageSize = limit == null ? MAX_PAGE_SIZE : limit;
+        if (filter.isEmpty() || pageSize < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        return page(planetService.list(filter, after, pageSize), pageSize);
+    }
+
+    /**
+     * Counts as a list against the concurrency limit for as long as the stream is written, not just while this method
+     * runs.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(String terrain, String climate,
+                                                        @RequestParam(required = false) Set<PlanetField> fields) {
+        ObjectWriter writer = objectMapper.writerFor(Planet.class);
+        ConcurrencyLimitAspect limit = limiter.getIfAvailable();
+        ConcurrencyLimitAspect.Permit permit = limit == null ? null : limit.acquire(Workload.LIST);
+
+        StreamingResponseBody body = outputStream -> {
+            try (permit; Stream<Planet> planets = fields == null ? planetService.stream(terrain, climate)
+                    : planetService.stream(terrain, climate, fields)) {
+                for (Iterator<Planet> iterator = planets.iterator(); iterator.hasNext(); ) {
+                    outputStream.write(writer.writeValueAsBytes(iterator.next()));
+                    outputStream.write('\n');
+                }
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * With the write-behind path enabled the creation is committed together with others: the answer is 201 when that
+     * happens within {@code planet.write-behind.wait}, otherwise (or right away with {@code Prefer: respond-async})
+     * 202 with the location of its status.
+     */
     @PostMapping
-    public ResponseEntity<Planet> create(@RequestBody @Valid Planet planet) {
-        planet = planetService.create(planet);
-        return ResponseEntity.status(HttpStatus.CREATED).body(planet);
+    public ResponseEntity<?> create(@RequestBody @Valid Planet planet,
+                                    @RequestHeader(name = "Prefer", required = false) String prefer) throws InterruptedException {
+        if (!planetWriteBehind.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(planetService.create(planet));
+        }
+        PlanetCreation creation = planetWriteBehind.create(planet, "respond-async".equalsIgnoreCase(prefer));
+        if (creation.getStatus() == PlanetCreation.Status.PENDING) {
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                            .path("/planets/creations/{id}").build(creation.getId()))
+                    .body(creation);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(creation.getPlanet());
+    }
+
+    @GetMapping("/creations/{id}")
+    public ResponseEntity<PlanetCreation> creation(@PathVariable String id) {
+        return ResponseEntity.of(planetWriteBehind.status(id));
+    }
+
+    /**
+     * A row that cannot be parsed ends the import: it is reported as invalid after the results of the rows read
+     * before it, which are committed, and the rows after it are not read.
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<PlanetImportResult>> createAll(InputStream body) throws IOException {
+        try (MappingIterator<Planet> planets = objectMapper.readerFor(Planet.class).readValues(body)) {
+            ImportRows rows = new ImportRows(planets);
+            List<PlanetImportResult> results = new ArrayList<>(planetImportService.createAll(rows));
+            if (rows.malformed != null) {
+                results.add(PlanetImportResult.invalid(results.size(),
+                        "malformed row, the rows after it were not read: " + rows.malformed.getOriginalMessage()));
+            }
+            return ResponseEntity.ok(results);
+        }
+    }
+
+    /**
+     * Server-Sent Events feed of planet creations and removals after sequence number {@code since} (or the
+     * {@code Last-Event-ID} a reconnecting client sends), from now on when neither is given. Answers 410 when the
+     * changes after {@code since} are no longer kept, and the client has to reload the planets.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> changes(Long since,
+                                              @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : since != null ? since : changeLog.lastSeq();
+        if (changeLog.after(from, 0).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        PlanetChangeStream stream = new PlanetChangeStream(changeLog, from, changeProperties.getHeartbeat(),
+                changeProperties.getStreamTimeout());
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(stream.start());
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<PlanetFacets> facets() {
+        return ResponseEntity.ok(planetService.facets());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<PlanetSearchHit>> search(@RequestParam String q, Integer limit) {
+        if (q.isBlank() || limit != null && limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(planetService.search(q, limit));
+    }
+
+    /**
+     * Resolves up to {@value MAX_LOOKUP_KEYS} ids and names in one request; keys that match no planet are reported
+     * as missing instead of failing the request.
+     */
+    @PostMapping(path = "/lookup", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BinaryFormatConfiguration.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<PlanetLookupResult> lookup(@RequestBody @Valid PlanetLookupRequest lookup) {
+        int keys = lookup.getIds().size() + lookup.getNames().size();
+        if (keys == 0 || keys > MAX_LOOKUP_KEYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(planetService.lookup(lookup.getIds(), lookup.getNames()));
     }
 
+    /**
+     * Lookups are served by the planet cache, so {@code fields} only trims the cached planet.
+     */
     @GetMapping("/{planetId}")
-    public ResponseEntity<Planet> get(@PathVariable Long planetId) {
-        return planetService.get(planetId).map(ResponseEntity::ok)
+    public ResponseEntity<Planet> get(@PathVariable Long planetId,
+                                      @RequestParam(required = false) Set<PlanetField> fields) {
+        return planetService.get(planetId).map(planet -> ok(planet, fields))
                 .orElseGet(ResponseEntity.notFound()::build);
     }
-    
+
     @GetMapping("/name/{planetName}")
-    public ResponseEntity<Planet> getByName(@PathVariable String planetName) {
-        return planetService.getByName(planetName).map(ResponseEntity::ok)
+    public ResponseEntity<Planet> getByName(@PathVariable String planetName,
+                                            @RequestParam(required = false) Set<PlanetField> fields) {
+        return planetService.getByName(planetName).map(planet -> ok(planet, fields))
                 .orElseGet(ResponseEntity.notFound()::build);
     }
 
+    /**
+     * Replaces the planet in place, keeping its id. With {@code If-Match} the update only applies to the tagged
+     * version and answers 412 otherwise.
+     */
+    @PutMapping("/{planetId}")
+    public ResponseEntity<Planet> replace(@PathVariable Long planetId, @RequestBody @Valid Planet planet,
+                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return written(planetService.replace(planetId, planet, precondition(ifMatch)));
+    }
+
+    /**
+     * JSON merge patch: only the fields present in the body are changed.
+     */
+    @PatchMapping("/{planetId}")
+    public ResponseEntity<Planet> patch(@PathVariable Long planetId, @RequestBody Planet changes,
+                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (Stream.of(changes.getName(), changes.getClimate(), changes.getTerrain())
+                .anyMatch(value -> value != null && value.isBlank())) {
+            return ResponseEntity.unprocessableEntity().build();
+        }
+        return written(planetService.patch(planetId, changes, precondition(ifMatch)));
+    }
+
+    /**
+     * Creates the planet (201) or updates the one with this name (200), so the request can be safely repeated.
+     */
+    @PutMapping("/name/{planetName}")
+    public ResponseEntity<Planet> upsert(@PathVariable String planetName, @RequestBody @Valid Planet planet,
+                                         @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (!planetName.equals(planet.getName())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return written(planetService.upsert(planetName, planet, precondition(ifMatch)));
+    }
+
     @DeleteMapping("/{planetId}")
     public ResponseEntity<Planet> remove(@PathVariable Long planetId) {
-        planetService.remove(planetId);
-        return ResponseEntity.noContent().build();
+        return planetService.remove(planetId) ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> removeAll(@RequestParam(required = false) List<Long> ids,
+                                                          String terrain, String climate) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byFilter = terrain != null || climate != null;
+        if (byIds == byFilter) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int removed = byIds ? planetService.removeAll(ids) : planetService.removeAll(terrain, climate);
+        return ResponseEntity.ok(Map.of("removed", removed));
+    }
+
+    /**
+     * A full page links to the next one, which starts after its last id.
+     */
+    private ResponseEntity<List<Planet>> page(List<Planet> page, int pageSize) {
+        var response = cacheable(HttpStatus.OK, PlanetETags.of(page));
+        if (page.size() == pageSize) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.get(page.size() - 1).getId())
+                    .replaceQueryParam("limit", pageSize)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Tags the response with the planet ETag; a matching If-None-Match is answered with 304 before the body is
+     * serialized.
+     */
+    private ResponseEntity<Planet> ok(Planet planet, Set<PlanetField> fields) {
+        if (fields != null) {
+            planet = PlanetField.select(planet, fields);
+        }
+        return cacheable(HttpStatus.OK, PlanetETags.of(planet)).body(planet);
+    }
+
+    private static Predicate<Planet> precondition(String ifMatch) {
+        return ifMatch == null ? null : planet -> PlanetETags.matches(ifMatch, planet);
+    }
+
+    private static ResponseEntity<Planet> written(PlanetUpdateResult result) {
+        return switch (result.getStatus()) {
+            case CREATED -> ResponseEntity.status(HttpStatus.CREATED).eTag(PlanetETags.of(result.getPlanet()))
+                    .body(result.getPlanet());
+            case UPDATED -> ResponseEntity.ok().eTag(PlanetETags.of(result.getPlanet())).body(result.getPlanet());
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            case PRECONDITION_FAILED -> ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        };
+    }
+
+    /**
+     * The representation depends on the Accept header (JSON, CBOR or Smile), so shared caches must key on it too.
+     */
+    private ResponseEntity.BodyBuilder cacheable(HttpStatus status, String eTag) {
+        return ResponseEntity.status(status).eTag(eTag).cacheControl(httpProperties.toCacheControl())
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * The parsed rows of a bulk import, ending at the first one that cannot be parsed.
+     */
+    private static final class ImportRows implements Iterator<Planet> {
+
+        private final MappingIterator<Planet> planets;
+
+        private JsonProcessingException malformed;
+
+        private Planet next;
+
+        private ImportRows(MappingIterator<Planet> planets) {
+            this.planets = planets;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && malformed == null) {
+                try {
+                    next = planets.hasNextValue() ? planets.nextValue() : null;
+                } catch (JsonProcessingException e) {
+                    malformed = e;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Planet next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Planet planet = next;
+            next = null;
+            return planet;
+        }
     }
 }
@@ -0,0 +1,53 @@
+package com.example.swplanetapi.controller;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetField;
+import org.springframework.http.ETag;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Weak entity tags for planet representations, derived from the planet state rather than the serialized body. The
+ * same state is served as JSON, CBOR or Smile, gzipped or not, so the tags only promise semantic equivalence.
+ */
+public class PlanetETags {
+
+    private PlanetETags() {
+    }
+
+    public static String of(Planet planet) {
+        return hash(planet.getId(), planet.getVersion(), planet.getName(), planet.getClimate(), planet.getTerrain());
+    }
+
+    /**
+     * Whether {@code planet} satisfies an If-Match header: {@code *}, or one of the listed tags. Tags are compared
+     * weakly, since {@link #of(Planet)} only hands out weak ones.
+     */
+    public static boolean matches(String ifMatch, Planet planet) {
+        String current = ETag.parse(of(planet)).get(0).tag();
+        return ETag.parse(ifMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.tag().equals(current));
+    }
+
+    public static String of(Collection<Planet> planets) {
+        return hash(planets.stream().map(PlanetETags::of).toArray());
+    }
+
+    /**
+     * Tag of a full list; {@code fields} is part of it since a sparse list is a different representation.
+     */
+    public static String ofList(String terrain, String climate, Set<PlanetField> fields, String fingerprint) {
+        return hash("list", terrain, climate, fields, fingerprint);
+    }
+
+    private static String hash(Object... parts) {
+        StringBuilder value = new StringBuilder();
+        for (Object part : parts) {
+            value.append(Objects.toString(part, "")).append('\0');
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(value.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.swplanetapi.controller;
+
+import com.example.swplanetapi.domain.model.PlanetField;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds the names in {@code ?fields=id,name} to {@link PlanetField}, ignoring case. An unknown name fails the
+ * binding and is answered with 400.
+ */
+@Component
+public class PlanetFieldConverter implements Converter<String, PlanetField> {
+
+    @Override
+    public PlanetField convert(String source) {
+        return PlanetField.of(source);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.swplanetapi.controller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.http")
+public class PlanetHttpProperties {
+
+    /**
+     * How long clients may reuse a planet response without revalidating it. Zero sends {@code no-cache}, so every
+     * reuse is revalidated with the ETag.
+     */
+    private Duration maxAge = Duration.ZERO;
+
+    /**
+     * Overrides {@code max-age} for shared caches such as a CDN, when set.
+     */
+    private Duration sharedMaxAge;
+
+    private boolean cachePublic = true;
+
+    public CacheControl toCacheControl() {
+        CacheControl cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge);
+        if (sharedMaxAge != null) {
+            cacheControl = cacheControl.sMaxAge(sharedMaxAge);
+        }
+        return cachePublic ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.swplanetapi.controller;
+
+import com.example.swplanetapi.domain.model.PlanetTokenFilter.Match;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds {@code ?match=all|any}, ignoring case. Any other value fails the binding and is answered with 400.
+ */
+@Component
+public class PlanetMatchConverter implements Converter<String, Match> {
+
+    @Override
+    public Match convert(String source) {
+        return Match.of(source);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.swplanetapi.controller;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.service.ReactivePlanetService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebFlux version of {@link PlanetController}, served instead of it under the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@RequestMapping(path = "/planets", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ReactivePlanetController {
+
+    private final ReactivePlanetService planetService;
+
+    @GetMapping
+    public Mono<ResponseEntity<Flux<Planet>>> list(String terrain, String climate, Long after, Integer limit,
+                                                   ServerHttpRequest request) {
+        if (after == null && limit == null) {
+            return Mono.just(ResponseEntity.ok(planetService.list(terrain, climate)));
+        }
+
+        int pageSize = limit == null ? PlanetController.MAX_PAGE_SIZE : limit;
+        if (pageSize < 1) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        int size = Math.min(pageSize, PlanetController.MAX_PAGE_SIZE);
+
+        return planetService.list(terrain, climate, after, size).collectList().map(page -> {
+            var response = ResponseEntity.ok();
+            if (page.size() == size) {
+                String next = UriComponentsBuilder.fromUri(request.getURI())
+                        .replaceQueryParam("after", page.get(page.size() - 1).getId())
+                        .replaceQueryParam("limit", size)
+                        .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(Flux.fromIterable(page));
+        });
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Planet> stream(String terrain, String climate) {
+        return planetService.stream(terrain, climate);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Planet>> create(@RequestBody @Valid Planet planet) {
+        return planetService.create(planet).map(ResponseEntity.status(HttpStatus.CREATED)::body);
+    }
+
+    @GetMapping("/{planetId}")
+    public Mono<ResponseEntity<Planet>> get(@PathVariable Long planetId) {
+        return planetService.get(planetId).map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/name/{planetName}")
+    public Mono<ResponseEntity<Planet>> getByName(@PathVariable String planetName) {
+        return planetService.getByName(planetName).map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{planetId}")
+    public Mono<ResponseEntity<Void>> remove(@PathVariable Long planetId) {
+        return planetService.remove(planetId).map(removed -> removed ? ResponseEntity.noContent().<Void>build()
+                : ResponseEntity.notFound().<Void>build());
+    }
+
+    @DeleteMapping
+    public Mono<ResponseEntity<Map<String, Long>>> removeAll(@RequestParam(required = false) List<Long> ids,
+                                                             String terrain, String climate) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byFilter = terrain != null || climate != null;
+        if (byIds == byFilter) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        Mono<Long> removed = byIds ? planetService.removeAll(ids) : planetService.removeAll(terrain, climate);
+        return removed.map(count -> ResponseEntity.ok(Map.of("removed", count)));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.swplanetapi.controller.exceptionHandler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same status mapping as {@link ApiExceptionHandler}, for the WebFlux controllers of the {@code reactive} profile.
+ */
+@RestControllerAdvice
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected Mono<ResponseEntity<Object>> handleWebExchangeBindException(WebExchangeBindException ex, HttpHeaders headers, HttpStatusCode status, ServerWebExchange exchange) {
+        count(HttpStatus.UNPROCESSABLE_ENTITY, ex);
+        ex.getBody().setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        return super.handleWebExchangeBindException(ex, headers, HttpStatus.UNPROCESSABLE_ENTITY, exchange);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleConflict(DataIntegrityViolationException ex) {
+        count(HttpStatus.CONFLICT, ex);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    private void count(HttpStatus status, Exception ex) {
+        meterRegistry.counter("planet.api.errors",
+                "status", String.valueOf(status.value()),
+                "exception", ex.getClass().getSimpleName()).increment();
+    }
+}
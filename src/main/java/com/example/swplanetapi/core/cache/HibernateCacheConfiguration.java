@@ -0,0 +1,81 @@
+package com.example.swplanetapi.core.cache;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level and query cache for planets, held in Caffeine through JCache. Every region is created here
+ * with its bounds from {@code planet.cache.hibernate.*}; Hibernate fails to start if it asks for any other.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class HibernateCacheConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "planet.cache.hibernate", name = "enabled", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(HibernateCacheProperties properties) {
+        // One manager per application context, so contexts running side by side (as in tests) never share entries
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("planet-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        cacheManager.createCache(Planet.CACHE_REGION, bounded(properties.getEntity()));
+        cacheManager.createCache(Planet.QUERY_CACHE_REGION, bounded(properties.getQuery()));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded(properties.getQuery()));
+        // Holds the last write time per table and must outlive every cached query result, so it is never evicted
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, configuration());
+        return cacheManager;
+    }
+
+    /**
+     * Hibernate turns the second-level cache on by itself when it finds a JCache provider, so disabling it has to be
+     * explicit.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(ObjectProvider<CacheManager> cacheManager) {
+        CacheManager hibernateCacheManager = cacheManager.getIfAvailable();
+        if (hibernateCacheManager == null) {
+            return properties -> {
+                properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            };
+        }
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(HibernateCacheProperties.Region region) {
+        CaffeineConfiguration<Object, Object> configuration = configuration();
+        configuration.setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(region.getTimeToLive().toNanos()));
+        return configuration;
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate already stores disassembled, immutable state; copying it on every access is what JCache defaults to
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.swplanetapi.core.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.cache.hibernate")
+public class HibernateCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Second-level cache of {@code Planet} entities, by id.
+     */
+    private Region entity = new Region(10_000, Duration.ofMinutes(5));
+
+    /**
+     * Query cache of the planet lookups and list queries: ids (or selected columns) per query and parameters.
+     */
+    private Region query = new Region(1_000, Duration.ofMinutes(1));
+
+    @Getter
+    @Setter
+    public static class Region {
+
+        private long maximumSize;
+
+        private Duration timeToLive;
+
+        public Region() {
+        }
+
+        Region(long maximumSize, Duration timeToLive) {
+            this.maximumSize = maximumSize;
+            this.timeToLive = timeToLive;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.swplanetapi.core.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Puts a {@link LimitedDataSource} in front of the Hikari pool when requests run on virtual threads
+ * ({@code spring.threads.virtual.enabled=true}).
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(prefix = "planet.datasource.limiter", name = "enabled", matchIfMissing = true)
+public class ConnectionLimiterConfiguration {
+
+    // Hikari only applies its default pool size when the pool starts
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * Ordered so it runs before {@link ReplicaRoutingConfiguration} wraps the primary, while it is still the Hikari
+     * pool.
+     */
+    @Bean
+    public static BeanPostProcessor connectionLimiterPostProcessor(ObjectProvider<ConnectionLimiterProperties> properties) {
+        return new LimiterPostProcessor(properties);
+    }
+
+    @Bean
+    public MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            LimitedDataSource limited = unwrap(dataSource);
+            if (limited != null) {
+                Gauge.builder("planet.datasource.limiter.available", limited, LimitedDataSource::getAvailablePermits)
+                        .register(registry);
+                Gauge.builder("planet.datasource.limiter.queued", limited, LimitedDataSource::getQueueLength)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static LimitedDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(LimitedDataSource.class) ? dataSource.unwrap(LimitedDataSource.class) : null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+
+    private static class LimiterPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ConnectionLimiterProperties> properties;
+
+        LimiterPostProcessor(ObjectProvider<ConnectionLimiterProperties> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                ConnectionLimiterProperties limiter = properties.getObject();
+                int poolSize = hikari.getMaximumPoolSize() > 0 ? hikari.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+                int maxConcurrency = limiter.getMaxConcurrency() != null ? limiter.getMaxConcurrency() : poolSize;
+                return new LimitedDataSource(hikari, maxConcurrency, limiter.getAcquireTimeout());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+}
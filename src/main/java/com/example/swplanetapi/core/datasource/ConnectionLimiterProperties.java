@@ -0,0 +1,22 @@
+package com.example.swplanetapi.core.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.datasource.limiter")
+public class ConnectionLimiterProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Connections that may be checked out at the same time. Defaults to the maximum size of the Hikari pool.
+     */
+    private Integer maxConcurrency;
+
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,66 @@
+package com.example.swplanetapi.core.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes for replica routing. A write hands the client a short-lived cookie, and requests carrying it read
+ * from the primary, so a client does not miss its own write while the replicas catch up. The state lives in the
+ * client, so it holds across application instances.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "planet-read-primary";
+
+    private static final Set<String> READ_METHODS = Set.of(
+            HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name());
+
+    // Reads that take a POST only because their keys do not fit in a URL
+    private static final Set<String> READ_PATHS = Set.of("/planets/lookup");
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final int windowSeconds;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowSeconds = (int) Math.max(window.toSeconds(), 1);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = !READ_METHODS.contains(request.getMethod())
+                && !READ_PATHS.contains(urlPathHelper.getPathWithinApplication(request));
+        if (write) {
+            // Set before the body is written, since the response may be committed by the time the chain returns
+            Cookie cookie = new Cookie(COOKIE_NAME, "1");
+            cookie.setMaxAge(windowSeconds);
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+
+        if (!write && WebUtils.getCookie(request, COOKIE_NAME) == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ReplicaRoutingDataSource.setPrimaryOnly(true);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.setPrimaryOnly(false);
+        }
+    }
+}
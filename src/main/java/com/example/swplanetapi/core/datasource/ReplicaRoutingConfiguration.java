@@ -0,0 +1,110 @@
+package com.example.swplanetapi.core.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the read replicas listed in {@code planet.datasource.routing.replicas} and
+ * everything else to the primary ({@code spring.datasource.*}).
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "planet.datasource.routing", name = "enabled")
+public class ReplicaRoutingConfiguration {
+
+    private static final String PRIMARY_DATA_SOURCE = "dataSource";
+
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSources replicaDataSources(ReplicaRoutingProperties properties, DataSourceProperties primary) {
+        List<ReplicaRoutingProperties.Replica> replicas = properties.getReplicas();
+        Assert.notEmpty(replicas, "planet.datasource.routing.replicas must list at least one replica");
+
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaRoutingProperties.Replica replica = replicas.get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword());
+            pool.setReadOnly(true);
+            if (properties.getMaximumPoolSize() != null) {
+                pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+            }
+            pools.put(pool.getPoolName(), pool);
+        }
+
+        ReplicaDataSources dataSources = new ReplicaDataSources(pools);
+        dataSources.startHealthChecks(properties.getHealthCheckInterval());
+        return dataSources;
+    }
+
+    /**
+     * Wraps the primary after the connection limiter (if any) has wrapped it, so the limiter only guards the primary
+     * pool, and keeps replica reads out of the Hibernate caches ({@link ReplicaRoutingJpaDialect}).
+     */
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaDataSources> replicas) {
+        return new RoutingPostProcessor(replicas);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingProperties properties) {
+        return new ReadYourWritesFilter(properties.getReadYourWrites());
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReplicaDataSources replicas) {
+        return registry -> Gauge.builder("planet.datasource.replicas.healthy", replicas, ReplicaDataSources::getHealthyCount)
+                .description("Read replicas currently receiving read-only transactions")
+                .register(registry);
+    }
+
+    private static class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReplicaDataSources> replicas;
+
+        RoutingPostProcessor(ObjectProvider<ReplicaDataSources> replicas) {
+            this.replicas = replicas;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if (bean instanceof AbstractEntityManagerFactoryBean entityManagerFactory) {
+                // Taken up by the transaction manager from the factory
+                entityManagerFactory.setJpaDialect(new ReplicaRoutingJpaDialect());
+            }
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (PRIMARY_DATA_SOURCE.equals(beanName) && bean instanceof DataSource primary) {
+                return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas.getObject()));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
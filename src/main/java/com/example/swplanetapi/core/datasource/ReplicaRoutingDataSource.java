@@ -0,0 +1,77 @@
+package com.example.swplanetapi.core.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else. The decision
+ * is taken when the connection is requested, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager asks for the
+ * connection before it marks the transaction as read-only.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new NamedThreadLocal<>("Read from the primary");
+
+    private final ReplicaDataSources replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaDataSources replicas) {
+        super(primary);
+        this.replicas = replicas;
+    }
+
+    /**
+     * Sends every read of the current thread to the primary, for a client that has just written.
+     */
+    public static void setPrimaryOnly(boolean primaryOnly) {
+        if (primaryOnly) {
+            PRIMARY_ONLY.set(Boolean.TRUE);
+        } else {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    /**
+     * Runs the read on the primary whatever the transaction, for loads whose result is cached for every client: a
+     * stale row from a replica would outlive the replication lag there.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    static boolean isPrimaryOnly() {
+        return PRIMARY_ONLY.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPrimaryOnly()) {
+            ReplicaDataSources.Replica replica = replicas.next();
+            if (replica != null) {
+                try {
+                    return replica.getDataSource().getConnection();
+                } catch (SQLException ex) {
+                    log.debug("Could not connect to read replica {}", replica.getName(), ex);
+                    replica.markDown();
+                }
+            }
+        }
+        return super.getConnection();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.swplanetapi.core.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * How long after a write the same client keeps reading from the primary.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+    /**
+     * Maximum size of each replica pool. Defaults to Hikari's default.
+     */
+    private Integer maximumPoolSize;
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * Defaults to {@code spring.datasource.username}.
+         */
+        private String username;
+
+        /**
+         * Defaults to {@code spring.datasource.password}.
+         */
+        private String password;
+    }
+}
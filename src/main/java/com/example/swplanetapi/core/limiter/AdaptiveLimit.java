@@ -0,0 +1,115 @@
+package com.example.swplanetapi.core.limiter;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the latency of the calls it admits, in the style of a gradient limiter. It compares a
+ * short moving average of the latency (last ~10 calls) with a baseline, an estimate of the latency without queueing:
+ * it follows the average down at once and up only over ~500 calls made while the limit was mostly unused. While the
+ * average stays within {@code tolerance} times the baseline the limit grows by about its square root; past that it
+ * shrinks in proportion, by at most half per update. A call that failed because the database is overloaded cuts it by
+ * a tenth.
+ * <p>
+ * Calls are never queued: {@link #tryAcquire} either takes a slot or returns false.
+ */
+public class AdaptiveLimit {
+
+    private static final double SHORT_WEIGHT = 0.1;
+
+    private static final double BASELINE_WEIGHT = 0.002;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    // Guarded by this
+    private double shortLatency;
+
+    private double baselineLatency;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        Assert.isTrue(minLimit > 0 && minLimit <= initialLimit && initialLimit <= maxLimit,
+                "Limits must satisfy 0 < min <= initial <= max");
+        Assert.isTrue(tolerance >= 1, "tolerance must be at least 1");
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Takes a slot unless {@code share} of the limit (at least one slot) is already in use.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        for (int current = inFlight.get(); current < allowed; current = inFlight.get()) {
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives back the slot of a call that completed in {@code latencyNanos}, adjusting the limit.
+     */
+    public void release(long latencyNanos) {
+        update(latencyNanos, inFlight.getAndDecrement());
+    }
+
+    /**
+     * Gives back the slot of a call that failed because the database is overloaded (a timeout, no connection).
+     */
+    public void releaseDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+        }
+    }
+
+    /**
+     * Gives back the slot of a call that failed for a reason that says nothing about the load.
+     */
+    public void releaseIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long latency, int inFlightAtRelease) {
+        if (baselineLatency == 0) {
+            shortLatency = latency;
+            baselineLatency = latency;
+            return;
+        }
+        shortLatency += (latency - shortLatency) * SHORT_WEIGHT;
+        // A limit that is not being used says nothing about whether it is too high, but its calls did not queue behind
+        // each other: only they may raise the baseline, so it recovers when the database itself got slower
+        if (inFlightAtRelease < limit / 2) {
+            baselineLatency = Math.min(shortLatency, baselineLatency + (latency - baselineLatency) * BASELINE_WEIGHT);
+            return;
+        }
+        baselineLatency = Math.min(shortLatency, baselineLatency);
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineLatency / Math.max(shortLatency, 1)));
+        double next = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + next * SMOOTHING));
+    }
+}
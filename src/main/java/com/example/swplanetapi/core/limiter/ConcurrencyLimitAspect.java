@@ -0,0 +1,193 @@
+package com.example.swplanetapi.core.limiter;
+
+import com.example.swplanetapi.core.limiter.ConcurrencyLimited.Workload;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Applies {@link ConcurrencyLimited}: reads and writes each have an {@link AdaptiveLimit} driven by the latency of
+ * the calls they admit, so when the database slows down the excess fails fast with a 503 instead of piling up on
+ * request threads and the connection pool. Ordered outside the transaction advice, so a rejected call never takes a
+ * connection. Methods that are often answered from memory use {@link #call} around their database reads instead.
+ */
+@Aspect
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "planet.limiter", name = "enabled", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConcurrencyLimitAspect implements MeterBinder {
+
+    private static final ThreadLocal<Boolean> ADMITTED = new ThreadLocal<>();
+
+    private final AdaptiveLimit reads;
+
+    private final AdaptiveLimit writes;
+
+    private final double listShare;
+
+    private final Duration retryAfter;
+
+    private final Map<Workload, LongAdder> rejected = new EnumMap<>(Workload.class);
+
+    public ConcurrencyLimitAspect(ConcurrencyLimitProperties properties) {
+        this.reads = limit(properties.getRead(), properties.getTolerance());
+        this.writes = limit(properties.getWrite(), properties.getTolerance());
+        this.listShare = properties.getListShare();
+        this.retryAfter = properties.getRetryAfter();
+        for (Workload workload : Workload.values()) {
+            rejected.put(workload, new LongAdder());
+        }
+    }
+
+    @Around("@annotation(com.example.swplanetapi.core.limiter.ConcurrencyLimited)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Workload workload = AnnotationUtils.findAnnotation(method, ConcurrencyLimited.class).value();
+        return run(workload, joinPoint::proceed);
+    }
+
+    /**
+     * Runs {@code call} under the limit of {@code workload}. For methods that only reach the database on some paths
+     * (a cache miss, a column store that is not serving), which wrap just those paths: calls answered from memory
+     * neither take a slot nor feed their latency, far below the database's, into the baseline.
+     *
+     * @throws OverloadedException when the limit is reached
+     */
+    public <T> T call(Workload workload, Supplier<T> call) {
+        return run(workload, call::get);
+    }
+
+    /**
+     * Takes a slot for work that outlives the handler method, such as a streamed response. The slot is held until
+     * the returned {@link Permit} is closed; how long that takes depends on how much is streamed rather than on the
+     * database, so it is not taken as a latency sample.
+     *
+     * @throws OverloadedException when the limit is reached
+     */
+    public Permit acquire(Workload workload) {
+        return new Permit(admit(workload));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauges(registry, "read", reads);
+        gauges(registry, "write", writes);
+        rejected.forEach((workload, count) -> FunctionCounter.builder("planet.limiter.rejected", count, LongAdder::sum)
+                .description("Requests rejected with 503 because the concurrency limit was reached")
+                .tag("workload", workload.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+    }
+
+    AdaptiveLimit reads() {
+        return reads;
+    }
+
+    AdaptiveLimit writes() {
+        return writes;
+    }
+
+    private AdaptiveLimit admit(Workload workload) {
+        AdaptiveLimit limit = workload == Workload.WRITE ? writes : reads;
+        if (!limit.tryAcquire(workload == Workload.LIST ? listShare : 1)) {
+            rejected.get(workload).increment();
+            throw new OverloadedException(workload, retryAfter);
+        }
+        return limit;
+    }
+
+    private <T, E extends Throwable> T run(Workload workload, Call<T, E> call) throws E {
+        if (ADMITTED.get() != null) {
+            // Already holds a slot, such as the read a write starts with
+            return call.run();
+        }
+        AdaptiveLimit limit = admit(workload);
+        ADMITTED.set(Boolean.TRUE);
+        long start = System.nanoTime();
+        boolean released = false;
+        try {
+            T result = call.run();
+            limit.release(System.nanoTime() - start);
+            released = true;
+            return result;
+        } catch (ConcurrencyFailureException ex) {
+            // Transient, but a lost race with another writer says nothing about the load
+            throw ex;
+        } catch (TransientDataAccessException | DataAccessResourceFailureException
+                 | CannotCreateTransactionException ex) {
+            limit.releaseDropped();
+            released = true;
+            throw ex;
+        } finally {
+            ADMITTED.remove();
+            if (!released) {
+                limit.releaseIgnored();
+            }
+        }
+    }
+
+    private static void gauges(MeterRegistry registry, String name, AdaptiveLimit limit) {
+        Gauge.builder("planet.limiter.limit", limit, AdaptiveLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("limit", name)
+                .register(registry);
+        Gauge.builder("planet.limiter.in.flight", limit, AdaptiveLimit::getInFlight)
+                .description("Calls currently admitted under the limit")
+                .tag("limit", name)
+                .register(registry);
+    }
+
+    private static AdaptiveLimit limit(ConcurrencyLimitProperties.Limit limit, double tolerance) {
+        return new AdaptiveLimit(limit.getInitial(), limit.getMin(), limit.getMax(), tolerance);
+    }
+
+    @FunctionalInterface
+    private interface Call<T, E extends Throwable> {
+        T run() throws E;
+    }
+
+    /**
+     * A slot taken with {@link #acquire(Workload)}; closing it more than once releases the slot once.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final AdaptiveLimit limit;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(AdaptiveLimit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                limit.releaseIgnored();
+            }
+        }
+    }
+}
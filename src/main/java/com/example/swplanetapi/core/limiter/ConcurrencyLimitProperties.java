@@ -0,0 +1,54 @@
+package com.example.swplanetapi.core.limiter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.limiter")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private Limit read = new Limit(10, 2, 200);
+
+    private Limit write = new Limit(5, 1, 50);
+
+    /**
+     * Fraction of the read limit lists may take; the rest is kept for lookups.
+     */
+    private double listShare = 0.75;
+
+    /**
+     * How much the recent latency may exceed the long-term one before the limits shrink.
+     */
+    private double tolerance = 1.5;
+
+    /**
+     * Sent in the {@code Retry-After} header of rejected requests.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private int initial;
+
+        private int min;
+
+        private int max;
+
+        public Limit() {
+        }
+
+        Limit(int initial, int min, int max) {
+            this.initial = initial;
+            this.min = min;
+            this.max = max;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.swplanetapi.core.limiter;
+
+import java.lang.annotation.*;
+
+/**
+ * Runs the method under the adaptive concurrency limit of its workload (see {@link ConcurrencyLimitAspect}). When the
+ * limit is reached the call fails at once with {@link OverloadedException} instead of waiting for a connection.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConcurrencyLimited {
+
+    Workload value();
+
+    enum Workload {
+
+        /**
+         * Reads returning any number of planets. They share the read limit with lookups but may only take part of
+         * it, so they are shed first.
+         */
+        LIST,
+
+        /**
+         * Reads of a few planets by key.
+         */
+        LOOKUP,
+
+        WRITE
+    }
+}
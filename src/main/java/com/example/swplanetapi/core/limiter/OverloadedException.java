@@ -0,0 +1,21 @@
+package com.example.swplanetapi.core.limiter;
+
+import com.example.swplanetapi.core.limiter.ConcurrencyLimited.Workload;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Getter
+public class OverloadedException extends RuntimeException {
+
+    private final Workload workload;
+
+    private final Duration retryAfter;
+
+    public OverloadedException(Workload workload, Duration retryAfter) {
+        super("Too many concurrent " + workload.name().toLowerCase(Locale.ROOT) + " requests, retry later");
+        this.workload = workload;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.swplanetapi.core.startup;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfiguration {
+
+    /**
+     * With {@code spring.main.lazy-initialization} (the {@code lazy} profile) the indexes, counters and pollers are
+     * still created at startup: they load their state in {@link SmartInitializingSingleton#afterSingletonsInstantiated},
+     * which a bean created later never gets.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerSmartInitializingSingletons() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SmartInitializingSingleton.class);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.swplanetapi.core.web;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "server.compression", name = "enabled")
+public class CompressionConfiguration {
+
+    @Bean
+    public CompressionThresholdFilter compressionThresholdFilter(ServerProperties serverProperties) {
+        return new CompressionThresholdFilter(serverProperties.getCompression().getMinResponseSize());
+    }
+}
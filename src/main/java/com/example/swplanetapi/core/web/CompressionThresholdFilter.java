@@ -0,0 +1,192 @@
+package com.example.swplanetapi.core.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Makes {@code server.compression.min-response-size} apply to bodies written by message converters. Converters flush
+ * the body once written, which commits the response with an unknown length, and Tomcat then compresses it whatever
+ * its size. Here the first {@code threshold} bytes are held back: a body that ends below the threshold goes out with
+ * a Content-Length and uncompressed, a larger one is passed through as soon as it crosses it.
+ */
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    private final int threshold;
+
+    public CompressionThresholdFilter(DataSize threshold) {
+        this.threshold = (int) threshold.toBytes();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ThresholdResponse thresholdResponse = new ThresholdResponse(response);
+        try {
+            filterChain.doFilter(request, thresholdResponse);
+        } finally {
+            // Async bodies, such as NDJSON streams, are written after the chain returns: stop holding them back
+            thresholdResponse.release(!request.isAsyncStarted());
+        }
+    }
+
+    /**
+     * Async bodies are written from another thread while the request thread may still be releasing, hence the lock
+     * until the held bytes have been passed through.
+     */
+    private class ThresholdResponse extends HttpServletResponseWrapper {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile ByteArrayOutputStream held = new ByteArrayOutputStream();
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        ThresholdResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ThresholdOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (held == null) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            discardHeld();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            discardHeld();
+            super.reset();
+        }
+
+        /**
+         * Writes out what was held back. When the body is {@code complete}, its length is known and sent with it.
+         */
+        void release(boolean complete) throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            lock.lock();
+            try {
+                if (complete && held != null && held.size() > 0 && !isCommitted()) {
+                    setContentLength(held.size());
+                }
+                passThrough();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Holds the bytes back if they still fit under the threshold; otherwise writes out what was held so far.
+         */
+        private boolean hold(byte[] b, int off, int len) throws IOException {
+            lock.lock();
+            try {
+                if (held != null && held.size() + len <= threshold) {
+                    held.write(b, off, len);
+                    return true;
+                }
+                passThrough();
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void passThrough() throws IOException {
+            ByteArrayOutputStream bytes = held;
+            held = null;
+            if (bytes != null && bytes.size() > 0) {
+                bytes.writeTo(getResponse().getOutputStream());
+            }
+        }
+
+        private void discardHeld() {
+            lock.lock();
+            try {
+                if (held != null) {
+                    held.reset();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private class ThresholdOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (held == null || !hold(b, off, len)) {
+                    getResponse().getOutputStream().write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (held == null) {
+                    getResponse().getOutputStream().flush();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return held != null || responseOutputStream().isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                responseOutputStream().setWriteListener(writeListener);
+            }
+
+            private ServletOutputStream responseOutputStream() {
+                try {
+                    return getResponse().getOutputStream();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.swplanetapi.core.web;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.ReactorResourceFactory;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveServerConfiguration {
+
+    /**
+     * Runs the reactive profile on Reactor Netty's event loops. Spring Boot would otherwise pick Tomcat, since
+     * spring-boot-starter-web is on the classpath for the blocking stack.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ReactorResourceFactory resourceFactory) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.setResourceFactory(resourceFactory);
+        return factory;
+    }
+}
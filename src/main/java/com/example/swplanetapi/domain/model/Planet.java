@@ -1,9 +1,14 @@
 package com.example.swplanetapi.domain.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.annotation.ReadOnlyProperty;
 
-import javax.persistence.*;
-import javax.validation.constraints.NotBlank;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
 import java.io.Serializable;
 
 @Getter
@@ -12,11 +17,26 @@ import java.io.Serializable;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+// Sparse fieldsets (?fields=) leave the fields that were not requested null
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Entity(name = "planet")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Planet.CACHE_REGION)
+// The version ends both indexes so the list fingerprint can be computed from them alone
+@Table(indexes = {
+        @Index(name = "idx_planet_terrain_key_climate_key", columnList = "terrain_key, climate_key, version"),
+        @Index(name = "idx_planet_climate_key", columnList = "climate_key, version")
+})
 public class Planet implements Serializable {
 
+    public static final String CACHE_REGION = "planet";
+
+    public static final String QUERY_CACHE_REGION = "planet-queries";
+
     @EqualsAndHashCode.Include
     @Id
+    // Read by the R2DBC mapping of the reactive stack
+    @org.springframework.data.annotation.Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
@@ -29,4 +49,24 @@ public class Planet implements Serializable {
 
     @NotBlank
     private String terrain;
+
+    // Lower-cased copies maintained by the database so case-insensitive filters can use an index
+    @JsonIgnore
+    @ReadOnlyProperty
+    @Column(name = "climate_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(climate))")
+    private String climateKey;
+
+    @JsonIgnore
+    @ReadOnlyProperty
+    @Column(name = "terrain_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(terrain))")
+    private String terrainKey;
+
+    // Incremented by every update; the default covers rows inserted with plain SQL or by the reactive stack
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ReadOnlyProperty
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
@@ -0,0 +1,70 @@
+package com.example.swplanetapi.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One entry of the planet change feed. Written to the {@code planet_change} outbox in the same transaction as the
+ * change itself; {@code seq} orders the feed and is what consumers resume from.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Entity(name = "planet_change")
+@Table(indexes = @Index(name = "idx_planet_change_created_at", columnList = "created_at"))
+public class PlanetChange {
+
+    public enum Type {
+        CREATED, UPDATED, REMOVED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "planet_id", nullable = false)
+    private Long planetId;
+
+    // The new state of a created or updated planet; null for removals
+    private String name;
+
+    private String climate;
+
+    private String terrain;
+
+    // Version the change produced, so a consumer can tell whether it has already seen it
+    private Long version;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public static PlanetChange created(Planet planet) {
+        return created(planet.getId(), planet);
+    }
+
+    public static PlanetChange created(Long planetId, Planet planet) {
+        return new PlanetChange(null, Type.CREATED, planetId, planet.getName(), planet.getClimate(),
+                planet.getTerrain(), Objects.requireNonNullElse(planet.getVersion(), 0L), Instant.now());
+    }
+
+    public static PlanetChange updated(Planet planet) {
+        return new PlanetChange(null, Type.UPDATED, planet.getId(), planet.getName(), planet.getClimate(),
+                planet.getTerrain(), planet.getVersion(), Instant.now());
+    }
+
+    public static PlanetChange removed(Long planetId) {
+        return new PlanetChange(null, Type.REMOVED, planetId, null, null, null, null, Instant.now());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.swplanetapi.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/**
+ * State of a planet creation queued by the write-behind path, served at {@code GET /planets/creations/{id}}.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanetCreation {
+
+    public enum Status {
+        PENDING, CREATED, CONFLICT, FAILED
+    }
+
+    String id;
+
+    Status status;
+
+    Planet planet;
+
+    String message;
+
+    public static PlanetCreation pending(String id) {
+        return new PlanetCreation(id, Status.PENDING, null, null);
+    }
+
+    public static PlanetCreation created(String id, Planet planet) {
+        return new PlanetCreation(id, Status.CREATED, planet, null);
+    }
+
+    public static PlanetCreation conflict(String id, String message) {
+        return new PlanetCreation(id, Status.CONFLICT, null, message);
+    }
+
+    public static PlanetCreation failed(String id, String message) {
+        return new PlanetCreation(id, Status.FAILED, null, message);
+    }
+}
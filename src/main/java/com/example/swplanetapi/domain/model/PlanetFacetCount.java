@@ -0,0 +1,16 @@
+package com.example.swplanetapi.domain.model;
+
+import lombok.Value;
+
+/**
+ * Number of planets with a given terrain and climate, both lower-cased as the list filters compare them.
+ */
+@Value
+public class PlanetFacetCount {
+
+    String terrain;
+
+    String climate;
+
+    long count;
+}
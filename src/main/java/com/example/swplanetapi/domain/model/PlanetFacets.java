@@ -0,0 +1,18 @@
+package com.example.swplanetapi.domain.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.SortedMap;
+
+@Value
+public class PlanetFacets {
+
+    long total;
+
+    SortedMap<String, Long> terrain;
+
+    SortedMap<String, Long> climate;
+
+    List<PlanetFacetCount> terrainClimate;
+}
@@ -0,0 +1,68 @@
+package com.example.swplanetapi.domain.model;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Planet attributes a client can ask for with {@code ?fields=}. The id is always returned, since it identifies the
+ * planet and is the cursor of paged lists.
+ */
+public enum PlanetField {
+
+    ID(Planet::getId, (planet, value) -> planet.setId((Long) value)),
+    NAME(Planet::getName, (planet, value) -> planet.setName((String) value)),
+    CLIMATE(Planet::getClimate, (planet, value) -> planet.setClimate((String) value)),
+    TERRAIN(Planet::getTerrain, (planet, value) -> planet.setTerrain((String) value));
+
+    private final Function<Planet, Object> getter;
+
+    private final BiConsumer<Planet, Object> setter;
+
+    PlanetField(Function<Planet, Object> getter, BiConsumer<Planet, Object> setter) {
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Name of the mapped entity attribute, as used in queries and in the JSON representation.
+     */
+    public String getAttribute() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public void set(Planet planet, Object value) {
+        setter.accept(planet, value);
+    }
+
+    public static PlanetField of(String attribute) {
+        for (PlanetField field : values()) {
+            if (field.getAttribute().equalsIgnoreCase(attribute.trim())) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown planet field: " + attribute);
+    }
+
+    /**
+     * The requested fields plus the id, in declaration order.
+     */
+    public static Set<PlanetField> withId(Set<PlanetField> fields) {
+        Set<PlanetField> selected = EnumSet.of(ID);
+        selected.addAll(fields);
+        return selected;
+    }
+
+    /**
+     * Detached copy of {@code planet} holding only the selected fields (and the id).
+     */
+    public static Planet select(Planet planet, Set<PlanetField> fields) {
+        Planet selected = new Planet();
+        for (PlanetField field : withId(fields)) {
+            field.set(selected, field.getter.apply(planet));
+        }
+        return selected;
+    }
+}
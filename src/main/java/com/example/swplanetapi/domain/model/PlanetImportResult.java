@@ -0,0 +1,33 @@
+package com.example.swplanetapi.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanetImportResult {
+
+    public enum Status {
+        CREATED, CONFLICT, INVALID
+    }
+
+    int index;
+
+    Status status;
+
+    Long id;
+
+    String message;
+
+    public static PlanetImportResult created(int index, Long id) {
+        return new PlanetImportResult(index, Status.CREATED, id, null);
+    }
+
+    public static PlanetImportResult conflict(int index, String planetName) {
+        return new PlanetImportResult(index, Status.CONFLICT, null, "name already exists: " + planetName);
+    }
+
+    public static PlanetImportResult invalid(int index, String message) {
+        return new PlanetImportResult(index, Status.INVALID, null, message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.swplanetapi.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanetLookupRequest {
+
+    @NotNull
+    private List<@NotNull Long> ids = List.of();
+
+    @NotNull
+    private List<@NotNull String> names = List.of();
+}
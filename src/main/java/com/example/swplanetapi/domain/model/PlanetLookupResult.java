@@ -0,0 +1,18 @@
+package com.example.swplanetapi.domain.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Planets found by a batch lookup, in the order their ids and then their names were requested, each planet once.
+ */
+@Value
+public class PlanetLookupResult {
+
+    List<Planet> planets;
+
+    List<Long> missingIds;
+
+    List<String> missingNames;
+}
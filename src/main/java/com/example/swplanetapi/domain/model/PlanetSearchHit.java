@@ -0,0 +1,19 @@
+package com.example.swplanetapi.domain.model;
+
+import lombok.Value;
+
+@Value
+public class PlanetSearchHit {
+
+    public enum Match {
+        EXACT, PREFIX, WORD_PREFIX, FUZZY
+    }
+
+    Long id;
+
+    String name;
+
+    Match match;
+
+    double score;
+}
@@ -0,0 +1,34 @@
+package com.example.swplanetapi.domain.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filter on the tokens of the comma-separated terrain and climate lists, so {@code desert} matches a planet with
+ * terrain "desert, mountains". A value starting with {@code !} excludes the planets having that token. The terrain
+ * and climate conditions must both hold; {@link Match} says whether the tokens of each one must all be present or
+ * any of them.
+ */
+@Value
+public class PlanetTokenFilter {
+
+    public enum Match {
+        ALL, ANY;
+
+        public static Match of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    List<String> terrain;
+
+    List<String> climate;
+
+    Match match;
+
+    public boolean isEmpty() {
+        return terrain.isEmpty() && climate.isEmpty();
+    }
+}
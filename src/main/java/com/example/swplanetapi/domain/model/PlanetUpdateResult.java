@@ -0,0 +1,31 @@
+package com.example.swplanetapi.domain.model;
+
+import lombok.Value;
+
+@Value
+public class PlanetUpdateResult {
+
+    public enum Status {
+        CREATED, UPDATED, NOT_FOUND, PRECONDITION_FAILED
+    }
+
+    Status status;
+
+    Planet planet;
+
+    public static PlanetUpdateResult created(Planet planet) {
+        return new PlanetUpdateResult(Status.CREATED, planet);
+    }
+
+    public static PlanetUpdateResult updated(Planet planet) {
+        return new PlanetUpdateResult(Status.UPDATED, planet);
+    }
+
+    public static PlanetUpdateResult notFound() {
+        return new PlanetUpdateResult(Status.NOT_FOUND, null);
+    }
+
+    public static PlanetUpdateResult preconditionFailed() {
+        return new PlanetUpdateResult(Status.PRECONDITION_FAILED, null);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.swplanetapi.domain.repository;
+
+import com.example.swplanetapi.domain.model.PlanetChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface PlanetChangeRepository extends JpaRepository<PlanetChange, Long>, PlanetChangeRepositoryCustom {
+
+    // Read from the primary even with replica routing, so the feed never runs behind the writes it reports
+    @Transactional
+    @Query("select c from planet_change c where c.seq > :seq order by c.seq")
+    List<PlanetChange> findAfter(long seq, Limit limit);
+
+    @Transactional
+    @Query("select c.seq from planet_change c where c.seq in :seqs")
+    List<Long> findSeqIn(Collection<Long> seqs);
+
+    @Transactional
+    @Query("select c from planet_change c order by c.seq desc")
+    List<PlanetChange> findLatest(Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from planet_change c where c.createdAt < :before")
+    int deleteCreatedBefore(Instant before);
+}
@@ -0,0 +1,13 @@
+package com.example.swplanetapi.domain.repository;
+
+import com.example.swplanetapi.domain.model.PlanetChange;
+
+import java.util.Collection;
+
+public interface PlanetChangeRepositoryCustom {
+
+    /**
+     * Appends the changes to the outbox as a single JDBC batch, joining the caller's transaction.
+     */
+    void appendAll(Collection<PlanetChange> changes);
+}
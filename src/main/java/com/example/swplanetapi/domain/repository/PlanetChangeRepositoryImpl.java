@@ -0,0 +1,33 @@
+package com.example.swplanetapi.domain.repository;
+
+import com.example.swplanetapi.domain.model.PlanetChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PlanetChangeRepositoryImpl implements PlanetChangeRepositoryCustom {
+
+    private static final String INSERT =
+            "INSERT INTO planet_change (type, planet_id, name, climate, terrain, version, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void appendAll(Collection<PlanetChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = changes.stream()
+                .map(change -> new Object[]{change.getType().name(), change.getPlanetId(), change.getName(),
+                        change.getClimate(), change.getTerrain(), change.getVersion(),
+                        Timestamp.from(change.getCreatedAt())})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+}
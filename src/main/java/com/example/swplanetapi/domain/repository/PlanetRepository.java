@@ -1,11 +1,33 @@
 package com.example.swplanetapi.domain.repository;
 
 import com.example.swplanetapi.domain.model.Planet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface PlanetRepository extends JpaRepository<Planet, Long> {
+public interface PlanetRepository extends JpaRepository<Planet, Long>, JpaSpecificationExecutor<Planet>,
+        PlanetRepositoryCustom {
 
+    // A JPQL string is translated once and reused, a derived query is rebuilt as a criteria query on every call
+    @Query("select p from planet p where p.name = :planetName")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Planet.QUERY_CACHE_REGION)
+    })
     Optional<Planet> findByName(String planetName);
+
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Planet.QUERY_CACHE_REGION)
+    })
+    List<Planet> findAll(Specification<Planet> specification, Sort sort);
 }
@@ -0,0 +1,97 @@
+package com.example.swplanetapi.domain.repository;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetField;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface PlanetRepositoryCustom {
+
+    /**
+     * Keyset page: up to {@code limit} planets matching {@code specification} whose id is greater than
+     * {@code after} (or from the start when {@code after} is null), ordered by id. Seeks on the primary key
+     * instead of skipping rows with OFFSET.
+     */
+    List<Planet> findAllAfter(Specification<Planet> specification, Long after, int limit);
+
+    /**
+     * Same page as {@link #findAllAfter(Specification, Long, int)}, but only the id and the requested columns are
+     * selected. The planets are built from the rows and never enter the persistence context.
+     */
+    List<Planet> findAllAfter(Specification<Planet> specification, Set<PlanetField> fields, Long after, int limit);
+
+    /**
+     * Summary of the planets matching {@code specification} (count, max and sum of the ids, sum of the versions)
+     * that changes whenever a matching planet is created, updated or removed. Computed from the indexes, without
+     * reading the rows.
+     */
+    String fingerprint(Specification<Planet> specification);
+
+    /**
+     * Passes every planet, in id order, to {@code consumer}, holding only its id, name and version. Reads keyset pages
+     * of those columns only, so memory stays flat however large the table is.
+     */
+    void forEachName(Consumer<Planet> consumer);
+
+    /**
+     * Same scan as {@link #forEachName}, passing planets that only hold the id, terrain, climate and version.
+     */
+    void forEachTerrainAndClimate(Consumer<Planet> consumer);
+
+    /**
+     * Same scan as {@link #forEachName}, passing whole planets (without the generated keys).
+     */
+    void forEachPlanet(Consumer<Planet> consumer);
+
+    /**
+     * Planets with the given ids, in no particular order; unknown ids are skipped. Ids are loaded in chunks of at
+     * most 1000, so any number of them can be passed.
+     */
+    List<Planet> findAllByIds(Collection<Long> planetIds);
+
+    /**
+     * Planets with the given names, loaded with {@code IN} queries of at most 1000 names each. Names are compared
+     * the way the database collation does, so a planet may come back under a different case than requested.
+     */
+    List<Planet> findAllByNames(Collection<String> planetNames);
+
+    Set<String> findExistingNames(Collection<String> planetNames);
+
+    /**
+     * Inserts the planets as a single JDBC batch in one transaction, bypassing the persistence context, and
+     * returns the generated ids in the same order. Nothing is inserted if any row is rejected.
+     */
+    List<Long> insertAll(List<Planet> planets);
+
+    /**
+     * Reads the planet from the primary database, skipping the second-level cache: the version it returns is the
+     * one an update has to match.
+     */
+    Optional<Planet> findCurrent(Long planetId);
+
+    /**
+     * Overwrites the name, climate and terrain of the planet with id {@code planet.getId()} and increments its
+     * version, in a single {@code UPDATE} that only matches the row while its version is still
+     * {@code expectedVersion}. Returns whether the row was updated; the second-level cache is left to the caller.
+     */
+    boolean update(Planet planet, long expectedVersion);
+
+    /**
+     * Deletes the planets without loading them and returns the ids of the ones that were actually deleted. Each chunk
+     * of ids is locked with one {@code SELECT ... FOR UPDATE} and deleted with one {@code DELETE ... WHERE id IN}, so
+     * the ids reported are the rows this transaction held, never an update count taken on trust. A planet removed by
+     * two callers at once is only reported by the one that locked the row.
+     */
+    List<Long> removeAll(Collection<Long> planetIds);
+
+    /**
+     * Deletes the planets whose terrain and climate match the non-null arguments (ignoring case) with a single
+     * {@code DELETE} on the generated keys, after locking the same rows to learn their ids, and returns those ids.
+     */
+    List<Long> removeAll(String terrain, String climate);
+}
@@ -0,0 +1,299 @@
+package com.example.swplanetapi.domain.repository;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetField;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class PlanetRepositoryImpl implements PlanetRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO planet (name, climate, terrain) VALUES (?, ?, ?)";
+
+    private static final String UPDATE = "UPDATE planet SET name = ?, climate = ?, terrain = ?, version = version + 1 " +
+            "WHERE id = ? AND version = ?";
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private static final int SCAN_PAGE_SIZE = 10_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Planet> findAllAfter(Specification<Planet> specification, Long after, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Planet> query = builder.createQuery(Planet.class);
+        Root<Planet> root = query.from(Planet.class);
+
+        query.select(root)
+                .where(after(specification, after, root, query, builder))
+                .orderBy(builder.asc(root.get("id")));
+
+        // Nothing is written back, so Hibernate keeps no snapshot for dirty checking
+        return cached(entityManager.createQuery(query))
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Planet> findAllAfter(Specification<Planet> specification, Set<PlanetField> fields, Long after, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Planet> root = query.from(Planet.class);
+
+        List<PlanetField> selected = List.copyOf(PlanetField.withId(fields));
+        query.multiselect(selected.stream().<Selection<?>>map(field -> root.get(field.getAttribute())).toList())
+                .where(after(specification, after, root, query, builder))
+                .orderBy(builder.asc(root.get("id")));
+
+        List<Tuple> rows = cached(entityManager.createQuery(query)).setMaxResults(limit).getResultList();
+        List<Planet> planets = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Planet planet = new Planet();
+            for (int i = 0; i < selected.size(); i++) {
+                selected.get(i).set(planet, row.get(i));
+            }
+            planets.add(planet);
+        }
+        return planets;
+    }
+
+    /**
+     * Keeps the result in the query cache, which Hibernate invalidates whenever the planet table is written through it.
+     */
+    private static <T> TypedQuery<T> cached(TypedQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, Planet.QUERY_CACHE_REGION);
+    }
+
+    private static Predicate[] after(Specification<Planet> specification, Long after, Root<Planet> root,
+                                     CriteriaQuery<?> query, CriteriaBuilder builder) {
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filter = specification.toPredicate(root, query, builder);
+        if (filter != null) {
+            predicates.add(filter);
+        }
+        if (after != null) {
+            predicates.add(builder.greaterThan(root.get("id"), after));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String fingerprint(Specification<Planet> specification) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Planet> root = query.from(Planet.class);
+        Path<Long> id = root.get("id");
+
+        Predicate filter = specification.toPredicate(root, query, builder);
+        if (filter != null) {
+            query.where(filter);
+        }
+        query.multiselect(builder.count(id), builder.max(id), builder.sum(id), builder.sum(root.<Long>get("version")));
+
+        Tuple result = cached(entityManager.createQuery(query)).getSingleResult();
+        return result.get(0) + ":" + result.get(1) + ":" + result.get(2) + ":" + result.get(3);
+    }
+
+    @Override
+    public void forEachName(Consumer<Planet> consumer) {
+        forEachRow("name, version", row -> consumer.accept(Planet.builder()
+                .id(row.getLong(1))
+                .name(row.getString(2))
+                .version(row.getLong(3))
+                .build()));
+    }
+
+    @Override
+    public void forEachTerrainAndClimate(Consumer<Planet> consumer) {
+        forEachRow("terrain, climate, version", row -> consumer.accept(Planet.builder()
+                .id(row.getLong(1))
+                .terrain(row.getString(2))
+                .climate(row.getString(3))
+                .version(row.getLong(4))
+                .build()));
+    }
+
+    @Override
+    public void forEachPlanet(Consumer<Planet> consumer) {
+        forEachRow("name, climate, terrain, version", row -> consumer.accept(Planet.builder()
+                .id(row.getLong(1))
+                .name(row.getString(2))
+                .climate(row.getString(3))
+                .terrain(row.getString(4))
+                .version(row.getLong(5))
+                .build()));
+    }
+
+    /**
+     * Keyset pages of {@value #SCAN_PAGE_SIZE} rows of the id (first column) and {@code columns}, in id order.
+     */
+    private void forEachRow(String columns, RowCallbackHandler handler) {
+        String sql = "SELECT id, " + columns + " FROM planet WHERE id > ? ORDER BY id LIMIT ?";
+        long[] after = {Long.MIN_VALUE};
+        int[] read = new int[1];
+        do {
+            read[0] = 0;
+            jdbcTemplate.query(sql, (RowCallbackHandler) row -> {
+                after[0] = row.getLong(1);
+                handler.processRow(row);
+                read[0]++;
+            }, after[0], SCAN_PAGE_SIZE);
+        } while (read[0] == SCAN_PAGE_SIZE);
+    }
+
+    /**
+     * Checks the persistence context and the second-level cache first, then loads the rest by primary key in
+     * batches of {@value #IN_CHUNK_SIZE}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Planet> findAllByIds(Collection<Long> planetIds) {
+        if (planetIds.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class).byMultipleIds(Planet.class)
+                .withBatchSize(IN_CHUNK_SIZE)
+                .enableOrderedReturn(false)
+                .multiLoad(List.copyOf(planetIds));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Planet> findAllByNames(Collection<String> planetNames) {
+        List<String> names = List.copyOf(planetNames);
+        List<Planet> planets = new ArrayList<>(names.size());
+        for (int from = 0; from < names.size(); from += IN_CHUNK_SIZE) {
+            planets.addAll(entityManager.createQuery("select p from planet p where p.name in :names", Planet.class)
+                    .setParameter("names", names.subList(from, Math.min(from + IN_CHUNK_SIZE, names.size())))
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultList());
+        }
+        return planets;
+    }
+
+    @Override
+    public Set<String> findExistingNames(Collection<String> planetNames) {
+        if (planetNames.isEmpty()) {
+            return Set.of();
+        }
+        List<String> names = new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+                "SELECT name FROM planet WHERE name IN (:names)", Map.of("names", planetNames), String.class);
+        return new HashSet<>(names);
+    }
+
+    @Override
+    @Transactional
+    public List<Long> insertAll(List<Planet> planets) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Planet planet : planets) {
+                    statement.setString(1, planet.getName());
+                    statement.setString(2, planet.getClimate());
+                    statement.setString(3, planet.getTerrain());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> ids = new ArrayList<>(planets.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public Optional<Planet> findCurrent(Long planetId) {
+        return Optional.ofNullable(entityManager.find(Planet.class, planetId,
+                Map.of(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS)));
+    }
+
+    @Override
+    @Transactional
+    public boolean update(Planet planet, long expectedVersion) {
+        return jdbcTemplate.update(UPDATE, planet.getName(), planet.getClimate(), planet.getTerrain(), planet.getId(),
+                expectedVersion) == 1;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> removeAll(Collection<Long> planetIds) {
+        List<Long> ids = planetIds.stream().distinct().toList();
+        List<Long> removedIds = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            removedIds.addAll(delete("id IN (:ids)",
+                    Map.of("ids", ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size())))));
+        }
+        return removedIds;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> removeAll(String terrain, String climate) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (terrain != null) {
+            conditions.add("terrain_key = :terrain");
+            parameters.put("terrain", terrain.toLowerCase(Locale.ROOT));
+        }
+        if (climate != null) {
+            conditions.add("climate_key = :climate");
+            parameters.put("climate", climate.toLowerCase(Locale.ROOT));
+        }
+        return delete(conditions.isEmpty() ? "1 = 1" : String.join(" AND ", conditions), parameters);
+    }
+
+    /**
+     * Locks the rows matching {@code condition}, then deletes them with a single statement on the same condition. The
+     * locked ids are the ones reported: a row deleted by another transaction first is not locked, and one that starts
+     * matching between the two statements makes the counts differ, which rolls the whole delete back.
+     */
+    private List<Long> delete(String condition, Map<String, ?> parameters) {
+        NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(jdbcTemplate);
+        List<Long> lockedIds = template.queryForList("SELECT id FROM planet WHERE " + condition + " FOR UPDATE",
+                parameters, Long.class);
+        if (lockedIds.isEmpty()) {
+            return lockedIds;
+        }
+        int deleted = template.update("DELETE FROM planet WHERE " + condition, parameters);
+        if (deleted != lockedIds.size()) {
+            throw new ConcurrencyFailureException("Deleted " + deleted + " planets where " + lockedIds.size()
+                    + " were locked");
+        }
+        return lockedIds;
+    }
+}
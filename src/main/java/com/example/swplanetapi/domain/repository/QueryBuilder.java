@@ -1,16 +1,25 @@
 package com.example.swplanetapi.domain.repository;
 
 import com.example.swplanetapi.domain.model.Planet;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
 
 public class QueryBuilder {
 
     private QueryBuilder() {
     }
 
-    public static Example<Planet> makeQuery(Planet planet) {
-        ExampleMatcher exampleMatcher = ExampleMatcher.matchingAll().withIgnoreCase().withIgnoreNullValues();
-        return Example.of(planet, exampleMatcher);
+    public static Specification<Planet> makeQuery(Planet planet) {
+        return Specification.where(keyEquals("terrainKey", planet.getTerrain()))
+                .and(keyEquals("climateKey", planet.getClimate()));
+    }
+
+    private static Specification<Planet> keyEquals(String attribute, String value) {
+        if (value == null) {
+            return null;
+        }
+        String key = value.toLowerCase(Locale.ROOT);
+        return (root, query, builder) -> builder.equal(root.get(attribute), key);
     }
 }
@@ -0,0 +1,156 @@
+package com.example.swplanetapi.domain.repository;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * R2DBC counterpart of {@link PlanetRepository}. A class over {@link R2dbcEntityTemplate} rather than a Spring
+ * Data interface: {@link Planet} is a JPA entity, so Spring Data JPA would claim a repository interface for it too.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactivePlanetRepository {
+
+    private static final String INSERT_CHANGE = "INSERT INTO planet_change "
+            + "(type, planet_id, name, climate, terrain, version, created_at) "
+            + "VALUES (:type, :planetId, :name, :climate, :terrain, :version, :createdAt)";
+
+    private static final String INSERT_INVALIDATION =
+            "INSERT INTO planet_cache_invalidation (payload, created_at) VALUES (:payload, :createdAt)";
+
+    private final R2dbcEntityTemplate template;
+
+    public Mono<Planet> save(Planet planet) {
+        return template.insert(planet);
+    }
+
+    public Mono<Planet> findById(Long planetId) {
+        return template.selectOne(Query.query(Criteria.where("id").is(planetId)), Planet.class);
+    }
+
+    public Mono<Planet> findByName(String planetName) {
+        return template.selectOne(Query.query(Criteria.where("name").is(planetName)), Planet.class);
+    }
+
+    /**
+     * Planets matching the (case-insensitive) filters in id order, emitted as the driver reads them.
+     */
+    public Flux<Planet> findAll(String terrain, String climate) {
+        return template.select(Query.query(filter(terrain, climate)).sort(Sort.by("id")), Planet.class);
+    }
+
+    /**
+     * Keyset page, same contract as {@link PlanetRepositoryCustom#findAllAfter}.
+     */
+    public Flux<Planet> findAllAfter(String terrain, String climate, Long after, int limit) {
+        Criteria criteria = after == null ? filter(terrain, climate) : filter(terrain, climate).and("id").greaterThan(after);
+        return template.select(Query.query(criteria).sort(Sort.by("id")).limit(limit), Planet.class);
+    }
+
+    /**
+     * Same contract as {@link PlanetRepositoryCustom#removeAll(Collection)}: the ids are locked, deleted and
+     * returned, so they can be recorded in the change feed. Must run in a transaction.
+     */
+    public Mono<List<Long>> removeAll(Collection<Long> planetIds) {
+        return planetIds.isEmpty() ? Mono.just(List.of())
+                : delete("id IN (:ids)", Map.of("ids", List.copyOf(planetIds)));
+    }
+
+    /**
+     * Same contract as {@link PlanetRepositoryCustom#removeAll(String, String)}. Must run in a transaction.
+     */
+    public Mono<List<Long>> removeAll(String terrain, String climate) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (terrain != null) {
+            conditions.add("terrain_key = :terrain");
+            parameters.put("terrain", terrain.toLowerCase(Locale.ROOT));
+        }
+        if (climate != null) {
+            conditions.add("climate_key = :climate");
+            parameters.put("climate", climate.toLowerCase(Locale.ROOT));
+        }
+        return delete(conditions.isEmpty() ? "1 = 1" : String.join(" AND ", conditions), parameters);
+    }
+
+    /**
+     * Appends to the {@code planet_change} outbox, in the caller's transaction, the rows the blocking stack's
+     * {@link PlanetChangeRepositoryCustom#appendAll} would write.
+     */
+    public Mono<Void> appendAll(Collection<PlanetChange> changes) {
+        return Flux.fromIterable(changes)
+                .concatMap(change -> template.getDatabaseClient().sql(INSERT_CHANGE)
+                        .bind("type", change.getType().name())
+                        .bind("planetId", change.getPlanetId())
+                        .bind("name", Parameter.fromOrEmpty(change.getName(), String.class))
+                        .bind("climate", Parameter.fromOrEmpty(change.getClimate(), String.class))
+                        .bind("terrain", Parameter.fromOrEmpty(change.getTerrain(), String.class))
+                        .bind("version", Parameter.fromOrEmpty(change.getVersion(), Long.class))
+                        .bind("createdAt", timestamp(change.getCreatedAt()))
+                        .then())
+                .then();
+    }
+
+    /**
+     * Adds a row to the {@code planet_cache_invalidation} table polled by the blocking instances.
+     */
+    public Mono<Void> appendInvalidation(String payload) {
+        return template.getDatabaseClient().sql(INSERT_INVALIDATION)
+                .bind("payload", payload)
+                .bind("createdAt", timestamp(Instant.now()))
+                .then();
+    }
+
+    private Mono<List<Long>> delete(String condition, Map<String, ?> parameters) {
+        DatabaseClient client = template.getDatabaseClient();
+        return client.sql("SELECT id FROM planet WHERE " + condition + " FOR UPDATE").bindValues(parameters)
+                .map(row -> row.get("id", Long.class))
+                .all()
+                .collectList()
+                .flatMap(lockedIds -> lockedIds.isEmpty() ? Mono.just(lockedIds)
+                        : client.sql("DELETE FROM planet WHERE " + condition).bindValues(parameters)
+                        .fetch().rowsUpdated()
+                        .flatMap(deleted -> deleted == lockedIds.size() ? Mono.just(lockedIds)
+                                : Mono.error(new ConcurrencyFailureException("Deleted " + deleted + " planets where "
+                                + lockedIds.size() + " were locked"))));
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    // Same semantics as QueryBuilder: null filters are ignored and values match the lower-cased key columns
+    private static Criteria filter(String terrain, String climate) {
+        Criteria criteria = Criteria.empty();
+        if (terrain != null) {
+            criteria = criteria.and("terrainKey").is(terrain.toLowerCase(Locale.ROOT));
+        }
+        if (climate != null) {
+            criteria = criteria.and("climateKey").is(climate.toLowerCase(Locale.ROOT));
+        }
+        return criteria;
+    }
+}
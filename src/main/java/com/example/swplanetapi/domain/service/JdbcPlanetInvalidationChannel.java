@@ -0,0 +1,212 @@
+package com.example.swplanetapi.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Channel shared by every instance through the {@code planet_cache_invalidation} table of the application database,
+ * so no broker is needed. Each invalidation is one row; every instance polls for rows newer than the last one it saw
+ * and deletes rows older than the retention.
+ * <p>
+ * Ids are assigned at insert but rows become visible at commit, so a hole in the ids may be an insert still
+ * committing. Holes are handled as in {@link PlanetChangeLog}: the poller stops at one and goes past it after
+ * {@code gap-timeout}, together with every other hole read by then, and looks the skipped ids up again on each poll
+ * for {@code gap-recovery}. An invalidation that turns up late is delivered then; evicting twice is harmless, so
+ * unlike the change feed nothing has to be reset.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "planet.cache.invalidation", name = "channel", havingValue = "jdbc")
+public class JdbcPlanetInvalidationChannel implements PlanetInvalidationChannel, AutoCloseable {
+
+    private static final int POLL_LIMIT = 1000;
+
+    private static final int SKIPPED_LIMIT = 1000;
+
+    private static final RowMapper<Row> ROWS = (row, rowNum) -> new Row(row.getLong(1), row.getString(2));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration pollInterval;
+
+    private final Duration gapTimeout;
+
+    private final Duration gapRecovery;
+
+    private final Duration retention;
+
+    private final List<Consumer<PlanetInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    // Skipped ids, with when they were skipped, still looked up in case they commit late; like the fields below, only
+    // used by the poller
+    private final SortedMap<Long, Instant> skipped = new TreeMap<>();
+
+    private ScheduledExecutorService poller;
+
+    private long lastSeen;
+
+    private Instant gapSince;
+
+    private Instant lastPurge = Instant.EPOCH;
+
+    public JdbcPlanetInvalidationChannel(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                         PlanetCacheProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.pollInterval = properties.getInvalidation().getPollInterval();
+        this.gapTimeout = properties.getInvalidation().getGapTimeout();
+        this.gapRecovery = properties.getInvalidation().getGapRecovery();
+        this.retention = properties.getInvalidation().getRetention();
+    }
+
+    @Override
+    public void publish(PlanetInvalidation invalidation) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(invalidation);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        jdbcTemplate.update("INSERT INTO planet_cache_invalidation (payload, created_at) VALUES (?, ?)",
+                payload, Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Starts polling on the first subscription, from the newest row at that moment.
+     */
+    @Override
+    public synchronized void subscribe(Consumer<PlanetInvalidation> listener) {
+        listeners.add(listener);
+        if (poller == null) {
+            Long newest = jdbcTemplate.queryForObject("SELECT MAX(id) FROM planet_cache_invalidation", Long.class);
+            lastSeen = newest != null ? newest : 0;
+            poller = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("planet-invalidation").daemon().factory());
+            poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void poll() {
+        try {
+            List<Row> read;
+            do {
+                read = jdbcTemplate.query("SELECT id, payload FROM planet_cache_invalidation WHERE id > ? ORDER BY id LIMIT ?",
+                        ROWS, lastSeen, POLL_LIMIT);
+            } while (deliverAll(read) && read.size() == POLL_LIMIT);
+            recoverSkipped();
+
+            Instant now = Instant.now();
+            if (lastPurge.plus(retention.dividedBy(2)).isBefore(now)) {
+                jdbcTemplate.update("DELETE FROM planet_cache_invalidation WHERE created_at < ?",
+                        Timestamp.from(now.minus(retention)));
+                lastPurge = now;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not poll planet cache invalidations", e);
+        }
+    }
+
+    /**
+     * Delivers the rows in order, up to the first hole that has not timed out yet. Once the wait is over, the holes
+     * after it are skipped as well rather than waited for one after another. Returns whether all of them were
+     * delivered.
+     */
+    private boolean deliverAll(List<Row> read) {
+        boolean skipHoles = false;
+        for (Row row : read) {
+            if (lastSeen != 0 && row.id() != lastSeen + 1) {
+                if (!skipHoles && !gapTimedOut()) {
+                    return false;
+                }
+                skipHoles = true;
+                skip(lastSeen + 1, row.id());
+            }
+            lastSeen = row.id();
+            deliver(row.payload());
+        }
+        gapSince = null;
+        return true;
+    }
+
+    private boolean gapTimedOut() {
+        Instant now = Instant.now();
+        if (gapSince == null) {
+            gapSince = now;
+        }
+        return !gapSince.plus(gapTimeout).isAfter(now);
+    }
+
+    private void skip(long from, long to) {
+        Instant now = Instant.now();
+        for (long id = from; id < to; id++) {
+            if (skipped.size() == SKIPPED_LIMIT) {
+                log.warn("Not looking up skipped planet cache invalidations {} to {} again: too many skipped already",
+                        id, to - 1);
+                return;
+            }
+            skipped.put(id, now);
+        }
+    }
+
+    /**
+     * Looks the skipped ids up again and delivers the ones committed since.
+     */
+    private void recoverSkipped() {
+        Instant expired = Instant.now().minus(gapRecovery);
+        skipped.values().removeIf(skippedAt -> skippedAt.isBefore(expired));
+        if (skipped.isEmpty()) {
+            return;
+        }
+        List<Row> committed = new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "SELECT id, payload FROM planet_cache_invalidation WHERE id IN (:ids) ORDER BY id",
+                Map.of("ids", List.copyOf(skipped.keySet())), ROWS);
+        for (Row row : committed) {
+            skipped.remove(row.id());
+            deliver(row.payload());
+        }
+    }
+
+    private void deliver(String payload) {
+        PlanetInvalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(payload, PlanetInvalidation.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable planet cache invalidation", e);
+            return;
+        }
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    private record Row(long id, String payload) {
+    }
+}
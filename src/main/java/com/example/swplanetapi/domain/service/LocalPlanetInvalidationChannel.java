@@ -0,0 +1,31 @@
+package com.example.swplanetapi.domain.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process channel for a single instance, where there is nobody else to notify. Invalidations are delivered
+ * synchronously to the listeners of this object, which lets tests stand several instances on one channel.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "planet.cache.invalidation", name = "channel", havingValue = "local", matchIfMissing = true)
+public class LocalPlanetInvalidationChannel implements PlanetInvalidationChannel {
+
+    private final List<Consumer<PlanetInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(PlanetInvalidation invalidation) {
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<PlanetInvalidation> listener) {
+        listeners.add(listener);
+    }
+}
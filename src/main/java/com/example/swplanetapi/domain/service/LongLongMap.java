@@ -0,0 +1,141 @@
+package com.example.swplanetapi.domain.service;
+
+/**
+ * Open-addressing map from {@code long} to {@code long}, for per-planet state held by the in-memory indexes: an
+ * entry takes two array slots instead of a {@link java.util.HashMap} node and two boxed values. Linear probing, with
+ * removals shifting the following entries back so no tombstones are left.
+ * <p>
+ * Not thread-safe: its owner only uses it under its own lock.
+ */
+final class LongLongMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Key 0 marks an empty slot, so an entry for it is kept aside
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    private int mask = INITIAL_CAPACITY - 1;
+
+    private int size;
+
+    private boolean hasZero;
+
+    private long zeroValue;
+
+    /**
+     * The value of {@code key}, or {@code missing} when it has none.
+     */
+    long get(long key, long missing) {
+        if (key == 0) {
+            return hasZero ? zeroValue : missing;
+        }
+        for (int slot = slot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return missing;
+    }
+
+    boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZero;
+        }
+        for (int slot = slot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void put(long key, long value) {
+        if (key == 0) {
+            if (!hasZero) {
+                hasZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        // Kept at most half full, so probes stay short
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes {@code key} and returns whether it had a value.
+     */
+    boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int slot = slot(key);
+        for (; keys[slot] != key; slot = (slot + 1) & mask) {
+            if (keys[slot] == 0) {
+                return false;
+            }
+        }
+        // Moves back every following entry of the run that the emptied slot would otherwise cut off from its home
+        for (int next = (slot + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = 0;
+        values[slot] = 0;
+        size--;
+        if (keys.length > INITIAL_CAPACITY && size * 8 < keys.length) {
+            resize(keys.length / 2);
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
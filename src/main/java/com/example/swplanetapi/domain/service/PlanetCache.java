@@ -0,0 +1,349 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for planet lookups. Entries live in the id cache; name keys only point to an id, so
+ * every key of a planet resolves to the same cached {@link Planet}. Lookups that found nothing are cached with a
+ * shorter time to live.
+ * <p>
+ * Loads run outside the cache, so a slow query never holds a Caffeine entry or bin lock; coalescing concurrent misses
+ * is left to the caller. Every write moves a generation before it drops or replaces entries. A load that started
+ * before a write does not store what it read: the generation is compared inside Caffeine's atomic {@code compute} for
+ * the entry, which the write's eviction of that same entry waits for, so a lookup racing a delete cannot put the
+ * planet back.
+ * <p>
+ * Misses may be loaded from a read replica. For {@code replica-lag} after a write, the cache remembers the version it
+ * left (or that the planet was removed, or only that it changed when another instance announced it), and
+ * {@link #isCurrent(Long, Optional)} tells the loader that a row older than that has to be read again from the
+ * primary.
+ */
+@Component
+public class PlanetCache implements MeterBinder {
+
+    private static final long REMOVED = Long.MAX_VALUE;
+
+    private static final long CHANGED = -1;
+
+    private final boolean enabled;
+
+    private final Cache<Long, Optional<Planet>> byId;
+
+    private final Cache<String, Long> byName;
+
+    /**
+     * Names that were not found, keyed by the lower-cased name so a write drops every spelling of its name.
+     */
+    private final Cache<String, Set<String>> missingNames;
+
+    /**
+     * Version a loaded planet must have reached, {@link #REMOVED} or {@link #CHANGED}, for planets written recently.
+     */
+    private final Cache<Long, Long> writtenVersions;
+
+    /**
+     * Lower-cased names written recently, that a replica may not have yet.
+     */
+    private final Cache<String, Boolean> writtenNames;
+
+    private final AtomicLong writes = new AtomicLong();
+
+    public PlanetCache(PlanetCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new FoundOrMissingExpiry(properties))
+                .recordStats()
+                .build();
+        this.byName = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+        this.missingNames = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getNotFoundTimeToLive())
+                .recordStats()
+                .build();
+        this.writtenVersions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getReplicaLag())
+                .build();
+        this.writtenNames = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getReplicaLag())
+                .build();
+    }
+
+    public Optional<Planet> get(Long planetId, Function<Long, Optional<Planet>> loader) {
+        if (!enabled) {
+            return loader.apply(planetId);
+        }
+
+        Optional<Planet> cached = byId.getIfPresent(planetId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = writes.get();
+        Optional<Planet> planet = loader.apply(planetId);
+        cacheById(planetId, planet, generation);
+        return planet;
+    }
+
+    public Optional<Planet> getByName(String planetName, Function<String, Optional<Planet>> loader) {
+        if (!enabled) {
+            return loader.apply(planetName);
+        }
+
+        Optional<Planet> cached = cachedByName(planetName);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = writes.get();
+        Optional<Planet> planet = loader.apply(planetName);
+        cacheByName(planetName, planet, generation);
+        return planet;
+    }
+
+    /**
+     * Bulk {@link #get(Long, Function)}: ids that are not cached are passed to {@code loader} all at once, and the
+     * ones it does not return are cached as not found. Every requested id is a key of the result.
+     */
+    public Map<Long, Optional<Planet>> getAll(Collection<Long> planetIds,
+                                              Function<Collection<Long>, List<Planet>> loader) {
+        Function<Set<? extends Long>, Map<Long, Optional<Planet>>> load = missing -> {
+            Map<Long, Optional<Planet>> loaded = new HashMap<>();
+            missing.forEach(planetId -> loaded.put(planetId, Optional.empty()));
+            loader.apply(List.copyOf(missing)).forEach(planet -> loaded.put(planet.getId(), Optional.of(planet)));
+            return loaded;
+        };
+        if (!enabled) {
+            return load.apply(new HashSet<>(planetIds));
+        }
+
+        Map<Long, Optional<Planet>> planets = new HashMap<>(byId.getAllPresent(planetIds));
+        Set<Long> missing = new HashSet<>(planetIds);
+        missing.removeAll(planets.keySet());
+        if (!missing.isEmpty()) {
+            long generation = writes.get();
+            load.apply(missing).forEach((planetId, planet) -> {
+                cacheById(planetId, planet, generation);
+                planets.put(planetId, planet);
+            });
+        }
+        return planets;
+    }
+
+    /**
+     * Bulk {@link #getByName(String, Function)}: {@code loader} gets the names that are not cached and returns the
+     * planets it found keyed by the requested name. Every requested name is a key of the result.
+     */
+    public Map<String, Optional<Planet>> getAllByName(Collection<String> planetNames,
+                                                      Function<List<String>, Map<String, Planet>> loader) {
+        Map<String, Optional<Planet>> planets = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String planetName : new LinkedHashSet<>(planetNames)) {
+            Optional<Planet> cached = enabled ? cachedByName(planetName) : null;
+            if (cached != null) {
+                planets.put(planetName, cached);
+            } else {
+                missing.add(planetName);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long generation = writes.get();
+            Map<String, Planet> loaded = loader.apply(missing);
+            for (String planetName : missing) {
+                Optional<Planet> planet = Optional.ofNullable(loaded.get(planetName));
+                planets.put(planetName, planet);
+                if (enabled) {
+                    cacheByName(planetName, planet, generation);
+                }
+            }
+        }
+        return planets;
+    }
+
+    /**
+     * Caches a planet that was just written and drops the not-found entries of its name, in any case, since the
+     * database may compare names ignoring case.
+     */
+    public void put(Planet planet) {
+        if (!enabled) {
+            return;
+        }
+        writes.incrementAndGet();
+        writtenNames.put(missingKey(planet.getName()), Boolean.TRUE);
+        missingNames.invalidate(missingKey(planet.getName()));
+        byName.invalidate(planet.getName());
+        if (planet.getId() != null) {
+            writtenVersions.asMap().merge(planet.getId(), version(planet), Math::max);
+            byId.put(planet.getId(), Optional.of(planet));
+        }
+    }
+
+    /**
+     * Drops whatever is cached for planets written without going through {@link #put(Planet)}, such as bulk
+     * inserts that should not flood the cache.
+     */
+    public void invalidate(Collection<Long> planetIds, Collection<String> planetNames) {
+        if (!enabled) {
+            return;
+        }
+        writes.incrementAndGet();
+        planetNames.forEach(planetName -> writtenNames.put(missingKey(planetName), Boolean.TRUE));
+        // The version is not known: the next load of these planets reads the primary
+        planetIds.forEach(planetId -> writtenVersions.asMap().merge(planetId, CHANGED,
+                (written, changed) -> written == REMOVED ? REMOVED : CHANGED));
+        missingNames.invalidateAll(planetNames.stream().map(PlanetCache::missingKey).toList());
+        byName.invalidateAll(planetNames);
+        byId.invalidateAll(planetIds);
+    }
+
+    /**
+     * Drops a planet. Name keys pointing to it become misses since their id no longer resolves.
+     */
+    public void evict(Long planetId) {
+        evictAll(List.of(planetId));
+    }
+
+    public void evictAll(Collection<Long> planetIds) {
+        if (!enabled) {
+            return;
+        }
+        writes.incrementAndGet();
+        planetIds.forEach(planetId -> writtenVersions.put(planetId, REMOVED));
+        byId.invalidateAll(planetIds);
+    }
+
+    /**
+     * Whether what a replica returned for {@code planetId} is at least as recent as the last write of it seen here.
+     * When it is not, the planet has to be read from the primary, and {@link #confirm} told what that returned.
+     */
+    public boolean isCurrent(Long planetId, Optional<Planet> planet) {
+        Long written = enabled ? writtenVersions.getIfPresent(planetId) : null;
+        if (written == null) {
+            return true;
+        }
+        if (written == REMOVED) {
+            return planet.isEmpty();
+        }
+        return written != CHANGED && planet.isPresent() && version(planet.get()) >= written;
+    }
+
+    /**
+     * {@link #isCurrent(Long, Optional)} for a lookup by name: a planet found is checked by its id, and a name written
+     * recently that was not found may just not have reached the replica.
+     */
+    public boolean isCurrent(String planetName, Optional<Planet> planet) {
+        if (planet.isPresent()) {
+            return planet.get().getId() == null || isCurrent(planet.get().getId(), planet);
+        }
+        return !enabled || writtenNames.getIfPresent(missingKey(planetName)) == null;
+    }
+
+    /**
+     * Records what the primary returned for a planet that was not current on a replica, as the version later replica
+     * reads must reach.
+     */
+    public void confirm(Long planetId, Optional<Planet> planet) {
+        if (!enabled) {
+            return;
+        }
+        long confirmed = planet.map(PlanetCache::version).orElse(REMOVED);
+        writtenVersions.asMap().computeIfPresent(planetId,
+                (key, written) -> written == CHANGED || confirmed > written ? confirmed : written);
+    }
+
+    /**
+     * The cached result for a name, or null when it has to be loaded. A name key whose planet has since been renamed
+     * counts as a miss.
+     */
+    private Optional<Planet> cachedByName(String planetName) {
+        Long planetId = byName.getIfPresent(planetName);
+        if (planetId != null) {
+            Optional<Planet> cached = byId.getIfPresent(planetId);
+            return cached != null && cached.isPresent() && cached.get().getName().equalsIgnoreCase(planetName)
+                    ? cached : null;
+        }
+        Set<String> missing = missingNames.getIfPresent(missingKey(planetName));
+        return missing != null && missing.contains(planetName) ? Optional.empty() : null;
+    }
+
+    /**
+     * Caches what a load started at {@code generation} read, unless a write has happened since.
+     */
+    private void cacheByName(String planetName, Optional<Planet> planet, long generation) {
+        if (planet.isEmpty()) {
+            missingNames.asMap().compute(missingKey(planetName), (key, missing) -> {
+                if (writes.get() != generation) {
+                    return missing;
+                }
+                Set<String> names = missing == null ? new HashSet<>() : new HashSet<>(missing);
+                names.add(planetName);
+                return Set.copyOf(names);
+            });
+        } else if (planet.get().getId() != null) {
+            cacheById(planet.get().getId(), planet, generation);
+            byName.put(planetName, planet.get().getId());
+        }
+    }
+
+    private void cacheById(Long planetId, Optional<Planet> planet, long generation) {
+        byId.asMap().compute(planetId, (key, cached) -> writes.get() == generation ? planet : cached);
+    }
+
+    private static long version(Planet planet) {
+        return planet.getVersion() == null ? 0 : planet.getVersion();
+    }
+
+    private static String missingKey(String planetName) {
+        return planetName.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "planets.id");
+        CaffeineCacheMetrics.monitor(registry, byName, "planets.name");
+        CaffeineCacheMetrics.monitor(registry, missingNames, "planets.missing-name");
+    }
+
+    private static class FoundOrMissingExpiry implements Expiry<Long, Optional<Planet>> {
+
+        private final long foundNanos;
+
+        private final long missingNanos;
+
+        FoundOrMissingExpiry(PlanetCacheProperties properties) {
+            this.foundNanos = properties.getTimeToLive().toNanos();
+            this.missingNanos = properties.getNotFoundTimeToLive().toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Long key, Optional<Planet> value, long currentTime) {
+            return value.isPresent() ? foundNanos : missingNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Optional<Planet> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Optional<Planet> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
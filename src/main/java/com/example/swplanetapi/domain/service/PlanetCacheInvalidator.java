@@ -0,0 +1,116 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the planet caches of every instance in step with the writes made by any of them. The writer keeps its own
+ * {@link PlanetCache} up to date and calls {@link #invalidate}; the other instances receive the ids and names through
+ * the {@link PlanetInvalidationChannel} and drop them from their {@link PlanetCache} and from Hibernate's
+ * second-level and query caches.
+ * <p>
+ * Cached queries are not evicted but marked stale, by moving the planet table's last update time in Hibernate's
+ * update-timestamps region as a write through Hibernate does. A query that was already running when the write
+ * committed still stores its result, but with its start time, which is now older than the table's, so it is never
+ * served; after an eviction it would be served until it expired.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class PlanetCacheInvalidator implements SmartInitializingSingleton {
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final PlanetCache planetCache;
+
+    private final SessionFactory sessionFactory;
+
+    private final PlanetInvalidationChannel channel;
+
+    private final Counter sent;
+
+    private final Counter received;
+
+    private final Counter failed;
+
+    public PlanetCacheInvalidator(PlanetCache planetCache, SessionFactory sessionFactory,
+                                  PlanetInvalidationChannel channel, MeterRegistry meterRegistry) {
+        this.planetCache = planetCache;
+        this.sessionFactory = sessionFactory;
+        this.channel = channel;
+        this.sent = invalidations("sent", meterRegistry);
+        this.received = invalidations("received", meterRegistry);
+        this.failed = invalidations("failed", meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        channel.subscribe(this::receive);
+    }
+
+    /**
+     * Announces planets written by this instance. Locally only Hibernate's caches are dropped, since writes made
+     * outside Hibernate (the JDBC batch import and updates) do not invalidate them.
+     * <p>
+     * Called once the write has committed, so an announcement that cannot be sent is only logged: failing the caller
+     * would skip the rest of its post-commit work (the local caches and indexes) and report a committed write as
+     * failed. The other instances then pick up the write when their cached copy expires.
+     */
+    public void invalidate(Collection<Long> planetIds, Collection<String> planetNames) {
+        Cache cache = sessionFactory.getCache();
+        planetIds.forEach(planetId -> cache.evictEntityData(Planet.class, planetId));
+        invalidateQueries();
+        try {
+            channel.publish(new PlanetInvalidation(origin, List.copyOf(planetIds), List.copyOf(planetNames)));
+            sent.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Could not announce the write of planets {} to the other instances", planetIds, e);
+        }
+    }
+
+    void receive(PlanetInvalidation invalidation) {
+        if (origin.equals(invalidation.getOrigin())) {
+            return;
+        }
+        planetCache.invalidate(invalidation.getPlanetIds(), invalidation.getPlanetNames());
+        Cache cache = sessionFactory.getCache();
+        invalidation.getPlanetIds().forEach(planetId -> cache.evictEntityData(Planet.class, planetId));
+        invalidateQueries();
+        received.increment();
+    }
+
+    private void invalidateQueries() {
+        if (!(sessionFactory.getCache() instanceof CacheImplementor cache) || cache.getTimestampsCache() == null) {
+            // Query cache disabled
+            return;
+        }
+        String[] planetSpaces = sessionFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                .getEntityDescriptor(Planet.class).getPropertySpaces();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            cache.getTimestampsCache().invalidate(planetSpaces, (SharedSessionContractImplementor) session);
+        }
+    }
+
+    private static Counter invalidations(String direction, MeterRegistry meterRegistry) {
+        return Counter.builder("planet.cache.invalidations")
+                .description("Planet cache invalidations exchanged with the other instances")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
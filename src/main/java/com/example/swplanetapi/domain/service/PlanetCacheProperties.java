@@ -0,0 +1,65 @@
+package com.example.swplanetapi.domain.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.cache")
+public class PlanetCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 10_000;
+
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    private Duration notFoundTimeToLive = Duration.ofSeconds(30);
+
+    /**
+     * How long the version left by a write is kept to reject older rows that a lagging read replica returns when
+     * the cache is filled. At least the replication lag; zero when nothing is read from replicas.
+     */
+    private Duration replicaLag = Duration.ofSeconds(5);
+
+    private Invalidation invalidation = new Invalidation();
+
+    @Getter
+    @Setter
+    public static class Invalidation {
+
+        /**
+         * How writes reach the caches of the other instances: {@code local} when there is only one, {@code jdbc}
+         * through a table in the application database.
+         */
+        private Channel channel = Channel.LOCAL;
+
+        /**
+         * How often the {@code jdbc} channel looks for invalidations sent by other instances.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * How long the {@code jdbc} channel waits for a hole in the invalidation ids before going past it. A hole is
+         * an invalidation whose insert has not committed yet, or one that rolled back.
+         */
+        private Duration gapTimeout = Duration.ofSeconds(1);
+
+        /**
+         * How long the {@code jdbc} channel keeps looking up an id it went past, to deliver it if it commits late.
+         */
+        private Duration gapRecovery = Duration.ofMinutes(5);
+
+        /**
+         * How long the {@code jdbc} channel keeps sent invalidations before deleting them.
+         */
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    public enum Channel {
+        LOCAL, JDBC
+    }
+}
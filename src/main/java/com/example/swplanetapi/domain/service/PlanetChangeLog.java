@@ -0,0 +1,366 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered feed of planet changes. Writers append changes to the {@code planet_change} outbox inside their own
+ * transaction, so a change is in the feed exactly when it is committed. A single poller copies committed rows, in
+ * sequence order, into a bounded in-memory ring that subscribers read from at their own pace; after a local commit
+ * the poller runs right away, and otherwise every {@code planet.changes.poll-interval} to pick up other instances.
+ * <p>
+ * Sequence numbers are taken at insert but become visible at commit, so a hole in the sequence may be a transaction
+ * still running. The poller stops at a hole and skips it after {@code planet.changes.gap-timeout}, together with every
+ * other hole read by then. Skipped sequence numbers are looked up again on each poll for
+ * {@code planet.changes.gap-recovery}; one that turns up was a slow commit the consumers have already gone past, so
+ * the feed is reset: {@link #resets()} changes and {@link #after} answers empty for the positions before it, and
+ * consumers reload as if they had fallen behind.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class PlanetChangeLog implements SmartInitializingSingleton, MeterBinder, AutoCloseable {
+
+    private static final int POLL_LIMIT = 1000;
+
+    private static final int SKIPPED_LIMIT = 1000;
+
+    private final PlanetChangeRepository changeRepository;
+
+    private final PlanetChangeProperties properties;
+
+    private final PlanetChange[] changes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition appended = lock.newCondition();
+
+    // Skipped sequence numbers, with when they were skipped, still looked up in case they commit late
+    private final SortedMap<Long, Instant> skipped = new TreeMap<>();
+
+    /**
+     * Whether a poll is queued and has not started yet, so a burst of commits queues one poll rather than one each.
+     */
+    private final AtomicBoolean pollPending = new AtomicBoolean();
+
+    private int head;
+
+    private int size;
+
+    private long lastSeq;
+
+    private long evictedSeq;
+
+    private Instant gapSince;
+
+    private long resets;
+
+    private Instant lastPurge = Instant.now();
+
+    private ScheduledExecutorService poller;
+
+    public PlanetChangeLog(PlanetChangeRepository changeRepository, PlanetChangeProperties properties) {
+        this.changeRepository = changeRepository;
+        this.properties = properties;
+        this.changes = new PlanetChange[properties.getCapacity()];
+    }
+
+    /**
+     * Reloads the latest changes from the outbox, so consumers can resume across restarts, and starts polling.
+     */
+    @Override
+    public synchronized void afterSingletonsInstantiated() {
+        List<PlanetChange> latest = new ArrayList<>(changeRepository.findLatest(Limit.of(changes.length)));
+        Collections.reverse(latest);
+        lock.lock();
+        try {
+            latest.forEach(this::add);
+            evictedSeq = latest.isEmpty() ? 0 : latest.get(0).getSeq() - 1;
+        } finally {
+            lock.unlock();
+        }
+
+        long interval = properties.getPollInterval().toMillis();
+        poller = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("planet-changes").daemon().factory());
+        poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the changes to the outbox in the caller's transaction; they reach subscribers once it commits.
+     */
+    public void record(Collection<PlanetChange> recorded) {
+        if (recorded.isEmpty()) {
+            return;
+        }
+        changeRepository.appendAll(recorded);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    /**
+     * Sequence number of the newest change in the feed, or 0 when there is none.
+     */
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number of the newest change dropped from memory to make room, or 0 when none has been.
+     */
+    public long evictedSeq() {
+        lock.lock();
+        try {
+            return evictedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How many times the feed has been reset because a change committed after it had been skipped. A consumer that
+     * sees this change has missed that change and has to reload, like one that gets nothing from {@link #after}.
+     */
+    public long resets() {
+        lock.lock();
+        try {
+            return resets;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} changes with a sequence number greater than {@code seq}, oldest first. Empty when some of
+     * those changes have already been dropped from memory, or the feed was reset since: the caller cannot resume.
+     */
+    public Optional<List<PlanetChange>> after(long seq, int limit) {
+        lock.lock();
+        try {
+            if (seq < evictedSeq) {
+                return Optional.empty();
+            }
+            List<PlanetChange> after = new ArrayList<>(Math.min(limit, size));
+            for (int i = firstAfter(seq); i < size && after.size() < limit; i++) {
+                after.add(changes[(head + i) % changes.length]);
+            }
+            return Optional.of(after);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a change newer than {@code seq} is in the feed, or the timeout elapses.
+     */
+    public boolean await(long seq, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = timeout.toNanos();
+            while (lastSeq <= seq && nanos > 0) {
+                nanos = appended.awaitNanos(nanos);
+            }
+            return lastSeq > seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("planet.changes.log.size", this, PlanetChangeLog::size)
+                .description("Number of planet changes held in memory for the change feed")
+                .baseUnit("changes")
+                .register(registry);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    void refresh() {
+        ScheduledExecutorService current = poller;
+        if (current == null || current.isShutdown() || !pollPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            current.execute(this::poll);
+        } catch (RejectedExecutionException e) {
+            // Shut down in the meantime
+            pollPending.set(false);
+        }
+    }
+
+    void poll() {
+        // Cleared before reading, so a commit from now on queues the next poll
+        pollPending.set(false);
+        try {
+            List<PlanetChange> read;
+            do {
+                read = changeRepository.findAfter(lastSeq(), Limit.of(POLL_LIMIT));
+            } while (append(read) && read.size() == POLL_LIMIT);
+            recoverSkipped();
+
+            Instant now = Instant.now();
+            if (lastPurge.plus(properties.getRetention().dividedBy(2)).isBefore(now)) {
+                changeRepository.deleteCreatedBefore(now.minus(properties.getRetention()));
+                lastPurge = now;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not poll planet changes", e);
+        }
+    }
+
+    /**
+     * Appends the changes in order, up to the first hole that has not timed out yet. Once the wait is over, the
+     * holes after it are skipped as well rather than waited for one after another. Returns whether all of them were
+     * appended.
+     */
+    private boolean append(List<PlanetChange> read) {
+        lock.lock();
+        try {
+            boolean skipHoles = false;
+            for (PlanetChange change : read) {
+                if (lastSeq != 0 && change.getSeq() != lastSeq + 1) {
+                    if (!skipHoles && !gapTimedOut()) {
+                        return false;
+                    }
+                    skipHoles = true;
+                    skip(lastSeq + 1, change.getSeq());
+                }
+                add(change);
+            }
+            gapSince = null;
+            return true;
+        } finally {
+            appended.signalAll();
+            lock.unlock();
+        }
+    }
+
+    private boolean gapTimedOut() {
+        Instant now = Instant.now();
+        if (gapSince == null) {
+            gapSince = now;
+        }
+        return !gapSince.plus(properties.getGapTimeout()).isAfter(now);
+    }
+
+    private void skip(long from, long to) {
+        Instant now = Instant.now();
+        for (long seq = from; seq < to; seq++) {
+            if (skipped.size() == SKIPPED_LIMIT) {
+                log.warn("Not looking up skipped planet changes {} to {} again: too many skipped already", seq, to - 1);
+                return;
+            }
+            skipped.put(seq, now);
+        }
+    }
+
+    /**
+     * Looks the skipped sequence numbers up again, and resets the feed when one of them has been committed since.
+     */
+    private void recoverSkipped() {
+        List<Long> missing;
+        lock.lock();
+        try {
+            Instant expired = Instant.now().minus(properties.getGapRecovery());
+            skipped.values().removeIf(skippedAt -> skippedAt.isBefore(expired));
+            missing = List.copyOf(skipped.keySet());
+        } finally {
+            lock.unlock();
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<Long> committed = changeRepository.findSeqIn(missing);
+        if (committed.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            skipped.keySet().removeAll(committed);
+            // Whoever is at the current position may have gone past the late changes
+            evictedSeq = Math.max(evictedSeq, lastSeq);
+            resets++;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        log.info("Planet changes {} were committed after the feed skipped them, resetting it", committed);
+    }
+
+    private void add(PlanetChange change) {
+        if (size == changes.length) {
+            evictedSeq = Math.max(evictedSeq, changes[head].getSeq());
+            changes[head] = null;
+            head = (head + 1) % changes.length;
+            size--;
+        }
+        changes[(head + size) % changes.length] = change;
+        size++;
+        lastSeq = change.getSeq();
+    }
+
+    /**
+     * Position in the ring of the first change newer than {@code seq}, by binary search since the ring is ordered.
+     */
+    private int firstAfter(long seq) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (changes[(head + middle) % changes.length].getSeq() <= seq) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.swplanetapi.domain.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.changes")
+public class PlanetChangeProperties {
+
+    /**
+     * How many of the latest changes are kept in memory. Consumers further behind than that have to reload.
+     */
+    private int capacity = 10_000;
+
+    /**
+     * How often the outbox is read for changes committed by other instances. Local commits are read right away.
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long a hole in the sequence is waited for before it is skipped. A hole is a transaction that has taken its
+     * sequence number but not committed yet, or one that rolled back.
+     */
+    private Duration gapTimeout = Duration.ofSeconds(1);
+
+    /**
+     * How long a skipped sequence number is looked up again. If it shows up meanwhile, the feed is reset and consumers
+     * reload; past that it is taken for a rollback.
+     */
+    private Duration gapRecovery = Duration.ofMinutes(5);
+
+    /**
+     * How long changes are kept in the outbox table.
+     */
+    private Duration retention = Duration.ofDays(1);
+
+    /**
+     * Interval of the keep-alive comments sent to idle subscribers.
+     */
+    private Duration heartbeat = Duration.ofSeconds(15);
+
+    /**
+     * How long a subscription lasts before the client has to reconnect, resuming from its last event id.
+     */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,176 @@
+package com.example.swplanetapi.domain.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The distinct values of a column of {@link PlanetColumns}, each stored once and referred to by its position, with the
+ * ids of the live planets having each value for the filters.
+ * <p>
+ * Not thread-safe: only used under the lock of the {@link PlanetColumnStore}.
+ */
+final class PlanetColumnDictionary {
+
+    private static final long[] EMPTY = {};
+
+    private final List<String> values = new ArrayList<>();
+
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    // Codes by value in lower case, as the database compares them
+    private final Map<String, List<Integer>> folded = new HashMap<>();
+
+    // Ids of the live planets having each value, by code, sorted; the first counts[code] are in use
+    private long[][] planetIds = new long[16][];
+
+    private int[] counts = new int[16];
+
+    int code(String value) {
+        return codes.computeIfAbsent(value, key -> {
+            int code = values.size();
+            values.add(key);
+            if (code == planetIds.length) {
+                planetIds = Arrays.copyOf(planetIds, code * 2);
+                counts = Arrays.copyOf(counts, code * 2);
+            }
+            planetIds[code] = EMPTY;
+            if (key != null) {
+                folded.computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> new ArrayList<>(1)).add(code);
+            }
+            return code;
+        });
+    }
+
+    /**
+     * Sets the ids of every value from the rows, in id order, in one pass.
+     */
+    void index(long[] ids, int[] rowCodes, int rows) {
+        Arrays.fill(counts, 0);
+        for (int row = 0; row < rows; row++) {
+            counts[rowCodes[row]]++;
+        }
+        for (int code = 0; code < values.size(); code++) {
+            planetIds[code] = counts[code] == 0 ? EMPTY : new long[counts[code]];
+            counts[code] = 0;
+        }
+        for (int row = 0; row < rows; row++) {
+            int code = rowCodes[row];
+            planetIds[code][counts[code]++] = ids[row];
+        }
+    }
+
+    void remove(int code, long planetId) {
+        if (code == PlanetColumns.REMOVED) {
+            return;
+        }
+        int at = Arrays.binarySearch(planetIds[code], 0, counts[code], planetId);
+        if (at >= 0) {
+            System.arraycopy(planetIds[code], at + 1, planetIds[code], at, counts[code] - at - 1);
+            counts[code]--;
+        }
+    }
+
+    /**
+     * Moves the planet from the value with {@code code} ({@code REMOVED} for a new planet) to {@code value},
+     * returning the code of the new value.
+     */
+    int move(int code, String value, long planetId) {
+        int moved = code(value);
+        if (moved != code) {
+            remove(code, planetId);
+            add(moved, planetId);
+        }
+        return moved;
+    }
+
+    /**
+     * Codes of the values equal to {@code value} ignoring case.
+     */
+    List<Integer> codes(String value) {
+        return folded.getOrDefault(value.toLowerCase(Locale.ROOT), List.of());
+    }
+
+    int count(List<Integer> codes) {
+        return codes.stream().mapToInt(code -> counts[code]).sum();
+    }
+
+    /**
+     * Sorted ids of the planets having any of these values.
+     */
+    long[] ids(List<Integer> codes) {
+        if (codes.size() == 1) {
+            return Arrays.copyOf(planetIds[codes.get(0)], counts[codes.get(0)]);
+        }
+        long[] ids = codes.stream()
+                .flatMapToLong(code -> Arrays.stream(planetIds[code], 0, counts[code]))
+                .toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    long heapBytes() {
+        long bytes = 0;
+        for (int code = 0; code < values.size(); code++) {
+            bytes += 16 + (long) planetIds[code].length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    private void add(int code, long planetId) {
+        long[] codeIds = planetIds[code];
+        int count = counts[code];
+        // Ids mostly arrive in increasing order, so this is usually an append
+        int at = count == 0 || codeIds[count - 1] < planetId ? count
+                : Arrays.binarySearch(codeIds, 0, count, planetId);
+        if (at >= 0 && at < count) {
+            return;
+        }
+        at = at < 0 ? -at - 1 : at;
+        if (count == codeIds.length) {
+            codeIds = planetIds[code] = Arrays.copyOf(codeIds, Math.max(4, count + (count >> 1)));
+        }
+        System.arraycopy(codeIds, at, codeIds, at + 1, count - at);
+        codeIds[at] = planetId;
+        counts[code]++;
+    }
+
+    String value(int code) {
+        return values.get(code);
+    }
+
+    long snapshotSize() {
+        long size = Integer.BYTES;
+        for (String value : values) {
+            size += Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+        }
+        return size;
+    }
+
+    void writeTo(ByteBuffer out) {
+        out.putInt(values.size());
+        for (String value : values) {
+            if (value == null) {
+                out.putInt(-1);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.putInt(bytes.length).put(bytes);
+            }
+        }
+    }
+
+    static PlanetColumnDictionary readFrom(ByteBuffer in) {
+        PlanetColumnDictionary dictionary = new PlanetColumnDictionary();
+        for (int count = in.getInt(); count > 0; count--) {
+            int length = in.getInt();
+            String value = null;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            dictionary.code(value);
+        }
+        return dictionary;
+    }
+}
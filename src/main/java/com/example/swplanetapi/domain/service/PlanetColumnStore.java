@@ -0,0 +1,459 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Read model holding every planet in memory as columns: ids and versions in {@code long} arrays sorted by id, the
+ * terrain and climate as codes into a dictionary per column that also keeps the ids having each value, and the names
+ * as UTF-8 in an off-heap buffer with a hash index over them. A planet takes about 70 bytes of heap instead of the
+ * several hundred of a managed entity. The rows and their lookups are {@link PlanetColumns}, and
+ * {@link PlanetColumnWriter} applies the writes to them; this class owns the lock, the snapshot file and following the
+ * feed.
+ * <p>
+ * With {@code planet.store.enabled}, {@link PlanetService} answers {@code get}, {@code getByName} and the unpaged list
+ * from here. Writes still go to the database and are applied here once committed; the writes of other instances
+ * arrive through the {@link PlanetChangeLog}. Changes carry the version they produced, so one that is seen twice, or
+ * an older one arriving late, is ignored.
+ * <p>
+ * The store is saved to {@code planet.store.snapshot} periodically and on shutdown. At startup the snapshot is
+ * memory-mapped and read back, then brought up to date from the change outbox, instead of reading the whole table.
+ * Without a usable snapshot (missing, or older than the outbox retention) the table is read in the background and the
+ * service keeps using the database until it is done.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class PlanetColumnStore implements SmartInitializingSingleton, MeterBinder, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x504c4e54;
+
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private static final int SNAPSHOT_HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    private static final int CHANGE_LIMIT = 1000;
+
+    private static final Duration FOLLOW_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final PlanetRepository planetRepository;
+
+    private final PlanetChangeRepository changeRepository;
+
+    private final PlanetChangeLog changeLog;
+
+    private final PlanetStoreProperties properties;
+
+    private final PlanetChangeProperties changeProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private PlanetColumns columns = new PlanetColumns();
+
+    private PlanetColumnWriter writer = new PlanetColumnWriter(columns);
+
+    // Sequence of the newest change applied, and when the store last had every committed change
+    private long appliedSeq;
+
+    private Instant currentAt = Instant.now();
+
+    private volatile boolean serving;
+
+    private Thread follower;
+
+    private ScheduledExecutorService snapshots;
+
+    public PlanetColumnStore(PlanetRepository planetRepository, PlanetChangeRepository changeRepository,
+                             PlanetChangeLog changeLog, PlanetStoreProperties properties,
+                             PlanetChangeProperties changeProperties) {
+        this.planetRepository = planetRepository;
+        this.changeRepository = changeRepository;
+        this.changeLog = changeLog;
+        this.properties = properties;
+        this.changeProperties = changeProperties;
+    }
+
+    /**
+     * Loads the snapshot, when there is one, and starts following the change feed.
+     */
+    @Override
+    public synchronized void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        load();
+
+        follower = Thread.ofPlatform().name("planet-store").daemon().start(this::follow);
+        if (properties.getSnapshot() != null) {
+            long interval = properties.getSnapshotInterval().toMillis();
+            snapshots = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("planet-store-snapshot").daemon().factory());
+            snapshots.scheduleWithFixedDelay(this::saveSnapshot, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Whether reads can be answered from here: the store is enabled and has been loaded.
+     */
+    public boolean isServing() {
+        return serving;
+    }
+
+    public Optional<Planet> get(long planetId) {
+        lock.readLock().lock();
+        try {
+            return columns.get(planetId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The planet with exactly this name, otherwise one whose name differs only in case.
+     */
+    public Optional<Planet> getByName(String planetName) {
+        lock.readLock().lock();
+        try {
+            return columns.getByName(planetName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Planets whose terrain and climate equal the given ones ignoring case (null matches any), in id order.
+     */
+    public List<Planet> list(String terrain, String climate) {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(columns.list(terrain, climate));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same value as {@link PlanetRepository#fingerprint} computes for these planets.
+     */
+    public String fingerprint(String terrain, String climate) {
+        lock.readLock().lock();
+        try {
+            return columns.fingerprint(terrain, climate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed create or update, unless the store already has this version or a newer one.
+     */
+    public void put(Planet planet) {
+        putAll(List.of(planet));
+    }
+
+    public void putAll(Collection<Planet> planets) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            planets.forEach(planet -> writer.put(planet.getId(), planet.getVersion(), planet.getName(),
+                    planet.getTerrain(), planet.getClimate()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed removal. Only pass the planets that were actually deleted: a removed id stays a tombstone,
+     * and every later create or update for it is ignored.
+     */
+    public void removeAll(Collection<Long> planetIds) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            planetIds.forEach(writer::remove);
+            writer.compactIfWasted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads every planet from the table into a new set of columns, then swaps them in. Reads keep using the current
+     * columns meanwhile.
+     */
+    public void rebuild() {
+        long seq = Math.max(changeLog.lastSeq(), changeRepository.findLatest(Limit.of(1)).stream()
+                .mapToLong(PlanetChange::getSeq).findFirst().orElse(0));
+        Instant current = Instant.now();
+        PlanetColumns rebuilt = new PlanetColumns();
+        PlanetColumnWriter building = new PlanetColumnWriter(rebuilt);
+        planetRepository.forEachPlanet(planet -> building.put(planet.getId(), planet.getVersion(), planet.getName(),
+                planet.getTerrain(), planet.getClimate()));
+        swap(rebuilt, seq, current);
+    }
+
+    /**
+     * Replaces the columns with the snapshot and applies the changes made since it was saved. Returns false, leaving
+     * the store as it was, when there is no snapshot or it cannot be used.
+     */
+    public boolean load() {
+        Path path = properties.getSnapshot();
+        if (path == null || !Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_FORMAT) {
+                log.warn("Ignoring {}: not a planet store snapshot of this version", path);
+                return false;
+            }
+            long seq = in.getLong();
+            Instant current = Instant.ofEpochMilli(in.getLong());
+            if (!recent(current)) {
+                log.info("Ignoring {}: the changes made since it was saved are no longer kept", path);
+                return false;
+            }
+            swap(PlanetColumnWriter.readFrom(in), seq, current);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load {}", path, e);
+            return false;
+        }
+        catchUp();
+        return true;
+    }
+
+    /**
+     * Writes the store to {@code planet.store.snapshot}, through a temporary file so a crash never leaves half a
+     * snapshot behind.
+     */
+    public void snapshot() throws IOException {
+        Path path = properties.getSnapshot();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = SNAPSHOT_HEADER_SIZE + writer.snapshotSize();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot of " + size + " bytes is too large to map");
+            }
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_FORMAT).putLong(appliedSeq).putLong(currentAt.toEpochMilli());
+            writer.writeTo(out);
+            out.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("planet.store.size", this, PlanetColumnStore::size)
+                .description("Number of planets in the column store")
+                .baseUnit("planets")
+                .register(registry);
+        memory(registry, "heap", columns -> columns.heapBytes());
+        memory(registry, "off-heap", columns -> columns.names.capacity());
+        Gauge.builder("planet.store.lag", this, store -> Math.max(changeLog.lastSeq() - store.appliedSeq(), 0))
+                .description("Changes in the feed not applied to the column store yet")
+                .baseUnit("changes")
+                .register(registry);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (follower != null) {
+            follower.interrupt();
+        }
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+        }
+        if (serving && properties.getSnapshot() != null) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Applies changes from the feed in sequence order.
+     */
+    void apply(List<PlanetChange> changes) {
+        lock.writeLock().lock();
+        try {
+            for (PlanetChange change : changes) {
+                if (change.getType() == PlanetChange.Type.REMOVED) {
+                    writer.remove(change.getPlanetId());
+                } else {
+                    writer.put(change.getPlanetId(), change.getVersion(), change.getName(), change.getTerrain(),
+                            change.getClimate());
+                }
+                appliedSeq = Math.max(appliedSeq, change.getSeq());
+            }
+            writer.compactIfWasted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    long appliedSeq() {
+        lock.readLock().lock();
+        try {
+            return appliedSeq;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void follow() {
+        long resets = changeLog.resets();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // Read the table again when the feed went past a change that committed late
+                long reset = changeLog.resets();
+                if (!serving || reset != resets) {
+                    resets = reset;
+                    rebuild();
+                    continue;
+                }
+                long seq = appliedSeq();
+                Optional<List<PlanetChange>> changes = changeLog.after(seq, CHANGE_LIMIT);
+                if (changes.isEmpty()) {
+                    // Further behind than the feed keeps in memory
+                    catchUp();
+                } else if (changes.get().isEmpty()) {
+                    current(seq, Instant.now());
+                    changeLog.await(seq, FOLLOW_TIMEOUT);
+                } else {
+                    apply(changes.get());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not update the planet store", e);
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the changes after {@link #appliedSeq()} straight from the outbox, or reads the table again when some of
+     * them may have been purged already.
+     */
+    private void catchUp() {
+        Instant now = Instant.now();
+        lock.readLock().lock();
+        try {
+            if (!recent(currentAt)) {
+                serving = false;
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<PlanetChange> changes;
+        do {
+            changes = changeRepository.findAfter(appliedSeq(), Limit.of(CHANGE_LIMIT));
+            apply(changes);
+        } while (changes.size() == CHANGE_LIMIT);
+        current(appliedSeq(), now);
+    }
+
+    private boolean recent(Instant current) {
+        return current.plus(changeProperties.getRetention()).isAfter(Instant.now());
+    }
+
+    private void current(long seq, Instant now) {
+        lock.writeLock().lock();
+        try {
+            if (appliedSeq == seq) {
+                currentAt = now;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void swap(PlanetColumns swapped, long seq, Instant current) {
+        lock.writeLock().lock();
+        try {
+            columns = swapped;
+            writer = new PlanetColumnWriter(swapped);
+            appliedSeq = seq;
+            currentAt = current;
+            serving = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void saveSnapshot() {
+        if (!serving) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not save the planet store to {}", properties.getSnapshot(), e);
+        }
+    }
+
+    private void memory(MeterRegistry registry, String area, ToDoubleFunction<PlanetColumns> bytes) {
+        Gauge.builder("planet.store.memory", this, store -> {
+                    store.lock.readLock().lock();
+                    try {
+                        return bytes.applyAsDouble(store.columns);
+                    } finally {
+                        store.lock.readLock().unlock();
+                    }
+                })
+                .description("Memory taken by the column store")
+                .baseUnit("bytes")
+                .tag("area", area)
+                .register(registry);
+    }
+}
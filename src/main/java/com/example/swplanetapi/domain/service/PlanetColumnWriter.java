@@ -0,0 +1,273 @@
+package com.example.swplanetapi.domain.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static com.example.swplanetapi.domain.service.PlanetColumns.MIN_CAPACITY;
+import static com.example.swplanetapi.domain.service.PlanetColumns.REMOVED;
+import static com.example.swplanetapi.domain.service.PlanetColumns.ref;
+
+/**
+ * Builds and changes {@link PlanetColumns}: applies creates, updates and removals, keeps the name index up to date,
+ * compacts the removed rows away, and reads and writes the columns in the snapshot format.
+ * <p>
+ * Changes are only made under the write lock of the {@link PlanetColumnStore}; {@link #writeTo} only reads, under the
+ * read lock.
+ */
+final class PlanetColumnWriter {
+
+    private final PlanetColumns columns;
+
+    PlanetColumnWriter(PlanetColumns columns) {
+        this.columns = columns;
+    }
+
+    void put(long planetId, Long version, String name, String terrain, String climate) {
+        long putVersion = Objects.requireNonNullElse(version, 0L);
+        if (columns.removedIds.contains(planetId)) {
+            return;
+        }
+        int row = columns.row(planetId);
+        boolean renamed;
+        if (row >= 0) {
+            if (columns.versions[row] >= putVersion) {
+                return;
+            }
+            renamed = !columns.name(row).equals(name);
+            if (renamed) {
+                columns.garbageNames += columns.length(row);
+                columns.nameRefs[row] = append(name);
+            }
+        } else {
+            row = -row - 1;
+            insert(row);
+            columns.ids[row] = planetId;
+            columns.terrainCodes[row] = REMOVED;
+            columns.climateCodes[row] = REMOVED;
+            columns.nameRefs[row] = append(name);
+            columns.live++;
+            renamed = true;
+        }
+        columns.versions[row] = putVersion;
+        columns.terrainCodes[row] = columns.terrainValues.move(columns.terrainCodes[row], terrain, planetId);
+        columns.climateCodes[row] = columns.climateValues.move(columns.climateCodes[row], climate, planetId);
+        if (renamed) {
+            index(row);
+        }
+    }
+
+    void remove(long planetId) {
+        columns.removedIds.addLong(planetId);
+        int row = columns.row(planetId);
+        if (row >= 0 && columns.climateCodes[row] != REMOVED) {
+            columns.terrainValues.remove(columns.terrainCodes[row], planetId);
+            columns.climateValues.remove(columns.climateCodes[row], planetId);
+            columns.climateCodes[row] = REMOVED;
+            columns.garbageNames += columns.length(row);
+            columns.live--;
+        }
+    }
+
+    void compactIfWasted() {
+        if (columns.rows - columns.live > Math.max(columns.rows / 4, MIN_CAPACITY)) {
+            compact();
+        }
+    }
+
+    long snapshotSize() {
+        return columns.terrainValues.snapshotSize() + columns.climateValues.snapshotSize() + Integer.BYTES
+                + (long) columns.live * (2 * Long.BYTES + 3 * Integer.BYTES)
+                + (columns.namesSize - columns.garbageNames);
+    }
+
+    /**
+     * The dictionaries, then each column of the live rows in turn, then their names.
+     */
+    void writeTo(ByteBuffer out) {
+        columns.terrainValues.writeTo(out);
+        columns.climateValues.writeTo(out);
+        out.putInt(columns.live);
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] != REMOVED) {
+                out.putLong(columns.ids[row]);
+            }
+        }
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] != REMOVED) {
+                out.putLong(columns.versions[row]);
+            }
+        }
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] != REMOVED) {
+                out.putInt(columns.terrainCodes[row]);
+            }
+        }
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] != REMOVED) {
+                out.putInt(columns.climateCodes[row]);
+            }
+        }
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] != REMOVED) {
+                out.putInt(columns.length(row));
+            }
+        }
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] != REMOVED) {
+                out.put(columns.names.slice(columns.offset(row), columns.length(row)));
+            }
+        }
+    }
+
+    /**
+     * Reads columns written by {@link #writeTo}.
+     */
+    static PlanetColumns readFrom(ByteBuffer in) {
+        PlanetColumnDictionary terrainValues = PlanetColumnDictionary.readFrom(in);
+        PlanetColumnDictionary climateValues = PlanetColumnDictionary.readFrom(in);
+        int live = in.getInt();
+
+        long[] ids = new long[live];
+        long[] versions = new long[live];
+        int[] terrainCodes = new int[live];
+        int[] climateCodes = new int[live];
+        int[] lengths = new int[live];
+        in.asLongBuffer().get(ids);
+        in.position(in.position() + live * Long.BYTES);
+        in.asLongBuffer().get(versions);
+        in.position(in.position() + live * Long.BYTES);
+        in.asIntBuffer().get(terrainCodes);
+        in.position(in.position() + live * Integer.BYTES);
+        in.asIntBuffer().get(climateCodes);
+        in.position(in.position() + live * Integer.BYTES);
+        in.asIntBuffer().get(lengths);
+        in.position(in.position() + live * Integer.BYTES);
+
+        int namesSize = Arrays.stream(lengths).sum();
+        PlanetColumns columns = new PlanetColumns(terrainValues, climateValues, 0,
+                Math.max(namesSize, 16 * MIN_CAPACITY));
+        columns.ids = ids;
+        columns.versions = versions;
+        columns.terrainCodes = terrainCodes;
+        columns.climateCodes = climateCodes;
+        columns.nameRefs = new long[live];
+        for (int row = 0, offset = 0; row < live; offset += lengths[row], row++) {
+            columns.nameRefs[row] = ref(offset, lengths[row]);
+        }
+        columns.names.put(0, in, in.position(), namesSize);
+        in.position(in.position() + namesSize);
+        columns.namesSize = namesSize;
+        columns.rows = live;
+        columns.live = live;
+        terrainValues.index(ids, terrainCodes, live);
+        climateValues.index(ids, climateCodes, live);
+        new PlanetColumnWriter(columns).rehash();
+        return columns;
+    }
+
+    /**
+     * Opens a row at {@code row}. Ids mostly arrive in increasing order, so this is usually an append.
+     */
+    private void insert(int row) {
+        int rows = columns.rows;
+        if (rows == columns.ids.length) {
+            int capacity = Math.max(MIN_CAPACITY, rows + (rows >> 1));
+            columns.ids = Arrays.copyOf(columns.ids, capacity);
+            columns.versions = Arrays.copyOf(columns.versions, capacity);
+            columns.terrainCodes = Arrays.copyOf(columns.terrainCodes, capacity);
+            columns.climateCodes = Arrays.copyOf(columns.climateCodes, capacity);
+            columns.nameRefs = Arrays.copyOf(columns.nameRefs, capacity);
+        }
+        if (row < rows) {
+            System.arraycopy(columns.ids, row, columns.ids, row + 1, rows - row);
+            System.arraycopy(columns.versions, row, columns.versions, row + 1, rows - row);
+            System.arraycopy(columns.terrainCodes, row, columns.terrainCodes, row + 1, rows - row);
+            System.arraycopy(columns.climateCodes, row, columns.climateCodes, row + 1, rows - row);
+            System.arraycopy(columns.nameRefs, row, columns.nameRefs, row + 1, rows - row);
+        }
+        columns.rows++;
+    }
+
+    private long append(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Planet name of " + bytes.length + " bytes is too long");
+        }
+        int namesSize = columns.namesSize;
+        if (namesSize + (long) bytes.length > columns.names.capacity()) {
+            long capacity = Math.max(2L * columns.names.capacity(), namesSize + (long) bytes.length);
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Planet name table is full");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+            grown.put(0, columns.names, 0, namesSize);
+            columns.names = grown;
+        }
+        columns.names.put(namesSize, bytes);
+        columns.namesSize += bytes.length;
+        return ref(namesSize, bytes.length);
+    }
+
+    private void index(int row) {
+        if ((columns.byNameEntries + 1) * 4L > columns.byName.length * 3L) {
+            rehash();
+        } else {
+            addName(row);
+        }
+    }
+
+    private void rehash() {
+        // Filled at most to three quarters
+        int live = columns.live;
+        int capacity = Integer.highestOneBit(Math.max(live, 8) * 2);
+        columns.byName = new long[live * 4L > capacity * 3L ? capacity << 1 : capacity];
+        columns.byNameEntries = 0;
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] != REMOVED) {
+                addName(row);
+            }
+        }
+    }
+
+    private void addName(int row) {
+        long[] byName = columns.byName;
+        int mask = byName.length - 1;
+        int slot = PlanetColumns.hash(columns.names, columns.offset(row), columns.length(row)) & mask;
+        while (byName[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        byName[slot] = columns.ids[row];
+        columns.byNameEntries++;
+    }
+
+    /**
+     * Drops the removed rows and the names no row points to any more.
+     */
+    private void compact() {
+        ByteBuffer compacted = ByteBuffer.allocateDirect(
+                Math.max(columns.namesSize - columns.garbageNames, 16 * MIN_CAPACITY));
+        int kept = 0;
+        int size = 0;
+        for (int row = 0; row < columns.rows; row++) {
+            if (columns.climateCodes[row] == REMOVED) {
+                continue;
+            }
+            int length = columns.length(row);
+            compacted.put(size, columns.names, columns.offset(row), length);
+            columns.ids[kept] = columns.ids[row];
+            columns.versions[kept] = columns.versions[row];
+            columns.terrainCodes[kept] = columns.terrainCodes[row];
+            columns.climateCodes[kept] = columns.climateCodes[row];
+            columns.nameRefs[kept] = ref(size, length);
+            size += length;
+            kept++;
+        }
+        columns.rows = kept;
+        columns.names = compacted;
+        columns.namesSize = size;
+        columns.garbageNames = 0;
+        rehash();
+    }
+}
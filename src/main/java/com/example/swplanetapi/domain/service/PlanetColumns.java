@@ -0,0 +1,198 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+/**
+ * The rows of the {@link PlanetColumnStore} and the lookups over them. Rows are sorted by id; a removed row keeps its
+ * place, with {@link #REMOVED} as its climate code, until {@link PlanetColumnWriter} compacts the columns.
+ * <p>
+ * Not thread-safe: the store reads them under its read lock and changes them under its write lock.
+ */
+final class PlanetColumns {
+
+    // Climate code of a removed row, which keeps its place until the next compaction
+    static final int REMOVED = -1;
+
+    static final int MIN_CAPACITY = 1024;
+
+    final PlanetColumnDictionary terrainValues;
+
+    final PlanetColumnDictionary climateValues;
+
+    // Removed planets, so a late create or update for one is not applied
+    final Roaring64NavigableMap removedIds = new Roaring64NavigableMap();
+
+    long[] ids;
+
+    long[] versions;
+
+    int[] terrainCodes;
+
+    int[] climateCodes;
+
+    // Offset in the name table << 16 | length in bytes
+    long[] nameRefs;
+
+    int rows;
+
+    int live;
+
+    ByteBuffer names;
+
+    int namesSize;
+
+    int garbageNames;
+
+    // Open addressing on the name hash, holding planet ids (0 is empty). Entries of renamed or removed planets stay
+    // until the next rehash; the lookup skips them.
+    long[] byName = new long[16];
+
+    int byNameEntries;
+
+    PlanetColumns() {
+        this(new PlanetColumnDictionary(), new PlanetColumnDictionary(), MIN_CAPACITY, 16 * MIN_CAPACITY);
+    }
+
+    PlanetColumns(PlanetColumnDictionary terrainValues, PlanetColumnDictionary climateValues, int capacity,
+                  int nameCapacity) {
+        this.terrainValues = terrainValues;
+        this.climateValues = climateValues;
+        this.ids = new long[capacity];
+        this.versions = new long[capacity];
+        this.terrainCodes = new int[capacity];
+        this.climateCodes = new int[capacity];
+        this.nameRefs = new long[capacity];
+        this.names = ByteBuffer.allocateDirect(nameCapacity);
+    }
+
+    Optional<Planet> get(long planetId) {
+        int row = row(planetId);
+        return row >= 0 && climateCodes[row] != REMOVED ? Optional.of(planet(row)) : Optional.empty();
+    }
+
+    Optional<Planet> getByName(String planetName) {
+        ByteBuffer bytes = ByteBuffer.wrap(planetName.getBytes(StandardCharsets.UTF_8));
+        int mask = byName.length - 1;
+        int ignoringCase = -1;
+        for (int slot = hash(bytes, 0, bytes.capacity()) & mask; byName[slot] != 0; slot = (slot + 1) & mask) {
+            int row = row(byName[slot]);
+            if (row < 0 || climateCodes[row] == REMOVED) {
+                continue;
+            }
+            String name = name(row);
+            if (name.equals(planetName)) {
+                return Optional.of(planet(row));
+            }
+            if (ignoringCase < 0 && name.equalsIgnoreCase(planetName)) {
+                ignoringCase = row;
+            }
+        }
+        return ignoringCase < 0 ? Optional.empty() : Optional.of(planet(ignoringCase));
+    }
+
+    List<Planet> list(String terrain, String climate) {
+        List<Planet> planets = new ArrayList<>();
+        forEachMatching(terrain, climate, row -> planets.add(planet(row)));
+        return planets;
+    }
+
+    String fingerprint(String terrain, String climate) {
+        long[] sums = new long[4];
+        forEachMatching(terrain, climate, row -> {
+            sums[0]++;
+            sums[1] = ids[row];
+            sums[2] += ids[row];
+            sums[3] += versions[row];
+        });
+        return sums[0] == 0 ? "0:null:null:null" : sums[0] + ":" + sums[1] + ":" + sums[2] + ":" + sums[3];
+    }
+
+    long heapBytes() {
+        return (long) ids.length * (3 * Long.BYTES + 2 * Integer.BYTES) + (long) byName.length * Long.BYTES
+                + terrainValues.heapBytes() + climateValues.heapBytes();
+    }
+
+    int row(long planetId) {
+        return Arrays.binarySearch(ids, 0, rows, planetId);
+    }
+
+    String name(int row) {
+        byte[] bytes = new byte[length(row)];
+        names.get(offset(row), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int offset(int row) {
+        return (int) (nameRefs[row] >>> 16);
+    }
+
+    int length(int row) {
+        return (int) (nameRefs[row] & 0xFFFF);
+    }
+
+    static long ref(int offset, int length) {
+        return (long) offset << 16 | length;
+    }
+
+    /**
+     * Hash of the UTF-8 name with ASCII letters folded to lower case, so names differing only in that case share a
+     * chain. Names differing in the case of other letters are not found ignoring case.
+     */
+    static int hash(ByteBuffer bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes.get(i);
+            hash = 31 * hash + (b >= 'A' && b <= 'Z' ? b | 0x20 : b);
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Visits the live rows matching the filters in id order: every row without filters, otherwise only the rows of
+     * the planets in the id sets of the matching values.
+     */
+    private void forEachMatching(String terrain, String climate, IntConsumer action) {
+        if (terrain == null && climate == null) {
+            for (int row = 0; row < rows; row++) {
+                if (climateCodes[row] != REMOVED) {
+                    action.accept(row);
+                }
+            }
+            return;
+        }
+        List<Integer> terrainMatch = terrain == null ? null : terrainValues.codes(terrain);
+        List<Integer> climateMatch = climate == null ? null : climateValues.codes(climate);
+        // Walks the ids of the more selective filter and checks the other on the row
+        boolean byTerrain = climateMatch == null
+                || terrainMatch != null && terrainValues.count(terrainMatch) <= climateValues.count(climateMatch);
+        long[] planetIds = byTerrain ? terrainValues.ids(terrainMatch) : climateValues.ids(climateMatch);
+        List<Integer> other = byTerrain ? climateMatch : terrainMatch;
+        int[] otherCodes = byTerrain ? climateCodes : terrainCodes;
+        for (long planetId : planetIds) {
+            int row = row(planetId);
+            if (other == null || other.contains(otherCodes[row])) {
+                action.accept(row);
+            }
+        }
+    }
+
+    private Planet planet(int row) {
+        return Planet.builder()
+                .id(ids[row])
+                .name(name(row))
+                .climate(climateValues.value(climateCodes[row]))
+                .terrain(terrainValues.value(terrainCodes[row]))
+                .version(versions[row])
+                .build();
+    }
+}
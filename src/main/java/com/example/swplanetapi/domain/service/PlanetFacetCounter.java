@@ -0,0 +1,167 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetFacetCount;
+import com.example.swplanetapi.domain.model.PlanetFacets;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Planet counts per (terrain, climate) pair, loaded from the database at startup and then kept up to date by
+ * {@link PlanetService} and, for the writes of other instances, by {@link PlanetIndexFollower}, so facet requests
+ * never touch the table. The pair of every planet is kept as well: a change carries only the new state of a planet,
+ * and applying one that was already counted must not count it twice. Writes are applied with {@link PlanetVersions},
+ * so a create or update older than what is counted, or for a removed planet, is ignored. Keys are lower-cased the
+ * same way the list filters compare them.
+ */
+@Component
+@Profile("!reactive")
+public class PlanetFacetCounter {
+
+    private static final Comparator<PlanetFacetCount> BY_KEYS = Comparator.comparing(PlanetFacetCount::getTerrain)
+            .thenComparing(PlanetFacetCount::getClimate);
+
+    private final PlanetRepository planetRepository;
+
+    private Counts current = new Counts();
+
+    public PlanetFacetCounter(PlanetRepository planetRepository) {
+        this.planetRepository = planetRepository;
+    }
+
+    /**
+     * Reads the counts from the database into a new set, then swaps it in. Facets keep being served from the current
+     * counts meanwhile; the writes they receive in that time are replayed from the change feed afterwards.
+     */
+    public void rebuild() {
+        Counts rebuilt = new Counts();
+        planetRepository.forEachTerrainAndClimate(rebuilt::count);
+        synchronized (this) {
+            current = rebuilt;
+        }
+    }
+
+    /**
+     * Counts a created planet, or moves an updated one to its new terrain and climate.
+     */
+    public void put(Planet planet) {
+        putAll(List.of(planet));
+    }
+
+    public synchronized void putAll(Collection<Planet> planets) {
+        planets.forEach(current::count);
+    }
+
+    public synchronized void removeAll(Collection<Long> planetIds) {
+        planetIds.forEach(current::uncount);
+    }
+
+    /**
+     * Applies changes from the feed in sequence order.
+     */
+    public synchronized void apply(List<PlanetChange> changes) {
+        for (PlanetChange change : changes) {
+            if (change.getType() == PlanetChange.Type.REMOVED) {
+                current.uncount(change.getPlanetId(), change.getSeq());
+            } else {
+                current.count(change.getPlanetId(), change.getVersion(), change.getTerrain(), change.getClimate());
+            }
+        }
+    }
+
+    /**
+     * Forgets the removals the feed delivered up to {@code seq}, see {@link PlanetVersions#prune}.
+     */
+    public synchronized void prune(long seq) {
+        current.versions.prune(seq);
+    }
+
+    public synchronized PlanetFacets snapshot() {
+        long total = 0;
+        SortedMap<String, Long> terrain = new TreeMap<>();
+        SortedMap<String, Long> climate = new TreeMap<>();
+        List<PlanetFacetCount> terrainClimate = new ArrayList<>(current.keys.size());
+        for (int key = 0; key < current.keys.size(); key++) {
+            long count = current.counts[key];
+            if (count == 0) {
+                continue;
+            }
+            List<String> pair = current.keys.get(key);
+            total += count;
+            terrain.merge(pair.get(0), count, Long::sum);
+            climate.merge(pair.get(1), count, Long::sum);
+            terrainClimate.add(new PlanetFacetCount(pair.get(0), pair.get(1), count));
+        }
+        terrainClimate.sort(BY_KEYS);
+        return new PlanetFacets(total, terrain, climate, terrainClimate);
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The counts and the pair of every planet, only changed while holding the counter's monitor. A planet only holds
+     * the index of its pair; the pairs are few, so they are numbered once and never dropped.
+     */
+    private static final class Counts {
+
+        private static final long NONE = -1;
+
+        private final PlanetVersions versions = new PlanetVersions();
+
+        private final List<List<String>> keys = new ArrayList<>();
+
+        private final Map<List<String>, Integer> keyIndexes = new HashMap<>();
+
+        // Planets per key index
+        private long[] counts = new long[16];
+
+        private final LongLongMap keysById = new LongLongMap();
+
+        void count(Planet planet) {
+            count(planet.getId(), planet.getVersion(), planet.getTerrain(), planet.getClimate());
+        }
+
+        void count(Long planetId, Long version, String terrain, String climate) {
+            if (terrain == null || climate == null || !versions.put(planetId, version)) {
+                return;
+            }
+            int key = keyIndexes.computeIfAbsent(List.of(lower(terrain), lower(climate)), pair -> {
+                keys.add(pair);
+                if (keys.size() > counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+                return keys.size() - 1;
+            });
+            if (keysById.get(planetId, NONE) == key) {
+                return;
+            }
+            drop(planetId);
+            counts[key]++;
+            keysById.put(planetId, key);
+        }
+
+        void uncount(Long planetId) {
+            uncount(planetId, 0);
+        }
+
+        void uncount(Long planetId, long seq) {
+            if (versions.remove(planetId, seq)) {
+                drop(planetId);
+            }
+        }
+
+        private void drop(Long planetId) {
+            long key = keysById.get(planetId, NONE);
+            if (key != NONE) {
+                keysById.remove(planetId);
+                counts[(int) key]--;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.swplanetapi.domain.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.import")
+public class PlanetImportProperties {
+
+    private int batchSize = 500;
+}
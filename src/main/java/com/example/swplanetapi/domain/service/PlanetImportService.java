@@ -0,0 +1,161 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetImportResult;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of planets. Rows are read one at a time, validated, and inserted in JDBC batches of
+ * {@code planet.import.batch-size}, so the input is never held in memory as a whole.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class PlanetImportService {
+
+    private final PlanetRepository planetRepository;
+
+    private final PlanetCache planetCache;
+
+    private final PlanetService planetService;
+
+    private final PlanetCacheInvalidator cacheInvalidator;
+
+    private final PlanetSearchIndex searchIndex;
+
+    private final PlanetFacetCounter facetCounter;
+
+    private final PlanetTokenIndex tokenIndex;
+
+    private final PlanetColumnStore columnStore;
+
+    private final PlanetChangeLog changeLog;
+
+    private final TransactionOperations transactionOperations;
+
+    private final Validator validator;
+
+    private final PlanetImportProperties properties;
+
+    public List<PlanetImportResult> createAll(Iterator<Planet> planets) {
+        List<PlanetImportResult> results = new ArrayList<>();
+        Map<Integer, Planet> batch = new LinkedHashMap<>();
+
+        while (planets.hasNext()) {
+            validate(planets.next(), batch, results);
+            if (batch.size() == properties.getBatchSize()) {
+                flush(batch, results);
+            }
+        }
+        flush(batch, results);
+
+        return results;
+    }
+
+    /**
+     * Creates the valid planets with a single batch insert and transaction, however many there are, for callers that
+     * already group creations themselves ({@link PlanetWriteBehind}). Results are in the order of {@code planets}.
+     */
+    public List<PlanetImportResult> createBatch(List<Planet> planets) {
+        List<PlanetImportResult> results = new ArrayList<>(planets.size());
+        Map<Integer, Planet> batch = new LinkedHashMap<>();
+        planets.forEach(planet -> validate(planet, batch, results));
+        flush(batch, results);
+        return results;
+    }
+
+    /**
+     * Adds the result slot of the planet, and the planet to the batch unless it is invalid.
+     */
+    private void validate(Planet planet, Map<Integer, Planet> batch, List<PlanetImportResult> results) {
+        int index = results.size();
+        Set<ConstraintViolation<Planet>> violations = validator.validate(planet);
+        if (violations.isEmpty()) {
+            results.add(null);
+            batch.put(index, planet);
+        } else {
+            results.add(PlanetImportResult.invalid(index, describe(violations)));
+        }
+    }
+
+    private void flush(Map<Integer, Planet> batch, List<PlanetImportResult> results) {
+        Set<String> existing = planetRepository.findExistingNames(
+                batch.values().stream().map(Planet::getName).collect(Collectors.toSet()));
+
+        Set<String> seen = new HashSet<>();
+        Map<Integer, Planet> insertable = new LinkedHashMap<>();
+        batch.forEach((index, planet) -> {
+            if (existing.contains(planet.getName()) || !seen.add(planet.getName())) {
+                results.set(index, PlanetImportResult.conflict(index, planet.getName()));
+            } else {
+                insertable.put(index, planet);
+            }
+        });
+
+        try {
+            insert(insertable, results);
+        } catch (DataIntegrityViolationException ex) {
+            // Lost a race with another writer, or the database compares names differently: retry row by row
+            insertable.forEach((index, planet) -> {
+                try {
+                    insert(Map.of(index, planet), results);
+                } catch (DataIntegrityViolationException rowEx) {
+                    results.set(index, PlanetImportResult.conflict(index, planet.getName()));
+                }
+            });
+        }
+
+        batch.clear();
+    }
+
+    private void insert(Map<Integer, Planet> planets, List<PlanetImportResult> results) {
+        if (planets.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = transactionOperations.execute(status -> {
+            List<Long> inserted = planetRepository.insertAll(new ArrayList<>(planets.values()));
+            Iterator<Long> id = inserted.iterator();
+            changeLog.record(planets.values().stream()
+                    .map(planet -> PlanetChange.created(id.next(), planet))
+                    .toList());
+            return inserted;
+        });
+
+        Iterator<Long> id = ids.iterator();
+        List<Planet> created = new ArrayList<>(planets.size());
+        planets.forEach((index, planet) -> {
+            Long planetId = id.next();
+            results.set(index, PlanetImportResult.created(index, planetId));
+            created.add(Planet.builder().id(planetId).name(planet.getName()).terrain(planet.getTerrain())
+                    .climate(planet.getClimate()).version(0L).build());
+        });
+        searchIndex.addAll(created);
+        facetCounter.putAll(created);
+        tokenIndex.addAll(created);
+        columnStore.putAll(created);
+
+        List<String> names = planets.values().stream().map(Planet::getName).toList();
+        planetCache.invalidate(ids, names);
+        planetService.forgetFlights(ids, names);
+        cacheInvalidator.invalidate(ids, names);
+    }
+
+    private static String describe(Set<ConstraintViolation<Planet>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Loads the {@link PlanetSearchIndex}, {@link PlanetFacetCounter} and {@link PlanetTokenIndex} at startup and then
+ * applies the {@link PlanetChangeLog} to them, so they also see the writes of other instances. Local writes are
+ * applied right away by the writer and once more from the feed, in either order; every index compares versions and
+ * keeps the removed ids until the feed drops their removal, so a late write never brings back an older state or a
+ * removed planet.
+ * <p>
+ * A follower that falls further behind than the feed keeps in memory, or sees the feed reset, reloads the indexes
+ * from the table.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class PlanetIndexFollower implements SmartInitializingSingleton, AutoCloseable {
+
+    private static final int CHANGE_LIMIT = 1000;
+
+    private static final Duration FOLLOW_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final PlanetChangeLog changeLog;
+
+    private final PlanetChangeRepository changeRepository;
+
+    private final PlanetSearchIndex searchIndex;
+
+    private final PlanetFacetCounter facetCounter;
+
+    private final PlanetTokenIndex tokenIndex;
+
+    private volatile long appliedSeq;
+
+    private volatile long resets;
+
+    private Thread follower;
+
+    public PlanetIndexFollower(PlanetChangeLog changeLog, PlanetChangeRepository changeRepository,
+                               PlanetSearchIndex searchIndex, PlanetFacetCounter facetCounter,
+                               PlanetTokenIndex tokenIndex) {
+        this.changeLog = changeLog;
+        this.changeRepository = changeRepository;
+        this.searchIndex = searchIndex;
+        this.facetCounter = facetCounter;
+        this.tokenIndex = tokenIndex;
+    }
+
+    /**
+     * Loads the indexes before the application takes requests, and starts following the change feed.
+     */
+    @Override
+    public synchronized void afterSingletonsInstantiated() {
+        rebuild();
+        follower = Thread.ofPlatform().name("planet-indexes").daemon().start(this::follow);
+    }
+
+    /**
+     * Reads every planet from the table into the indexes. The changes committed while it runs are applied again
+     * afterwards, so none is lost.
+     */
+    public void rebuild() {
+        long reset = changeLog.resets();
+        long seq = Math.max(changeLog.lastSeq(), changeRepository.findLatest(Limit.of(1)).stream()
+                .mapToLong(PlanetChange::getSeq).findFirst().orElse(0));
+        searchIndex.rebuild();
+        facetCounter.rebuild();
+        tokenIndex.rebuild();
+        appliedSeq = seq;
+        resets = reset;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (follower != null) {
+            follower.interrupt();
+        }
+    }
+
+    /**
+     * Applies changes from the feed in sequence order, then lets the indexes forget the removals the feed no longer
+     * holds: the writes they have to outlast were all committed before them.
+     */
+    void apply(List<PlanetChange> changes) {
+        searchIndex.apply(changes);
+        facetCounter.apply(changes);
+        tokenIndex.apply(changes);
+        appliedSeq = changes.get(changes.size() - 1).getSeq();
+
+        long evictedSeq = Math.min(changeLog.evictedSeq(), appliedSeq);
+        searchIndex.prune(evictedSeq);
+        facetCounter.prune(evictedSeq);
+        tokenIndex.prune(evictedSeq);
+    }
+
+    long appliedSeq() {
+        return appliedSeq;
+    }
+
+    private void follow() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long seq = appliedSeq;
+                Optional<List<PlanetChange>> changes = changeLog.after(seq, CHANGE_LIMIT);
+                if (changes.isEmpty() || changeLog.resets() != resets) {
+                    // Further behind than the feed keeps in memory, or it went past a change that committed late
+                    rebuild();
+                } else if (changes.get().isEmpty()) {
+                    changeLog.await(seq, FOLLOW_TIMEOUT);
+                } else {
+                    apply(changes.get());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not update the planet indexes", e);
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
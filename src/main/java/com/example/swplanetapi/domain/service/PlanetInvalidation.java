@@ -0,0 +1,21 @@
+package com.example.swplanetapi.domain.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Planets written by the instance {@code origin}, whose cached copies the other instances must drop.
+ */
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class PlanetInvalidation {
+
+    String origin;
+
+    List<Long> planetIds;
+
+    List<String> planetNames;
+}
@@ -0,0 +1,16 @@
+package com.example.swplanetapi.domain.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache invalidations between the instances of the service.
+ */
+public interface PlanetInvalidationChannel {
+
+    void publish(PlanetInvalidation invalidation);
+
+    /**
+     * Registers a listener for every invalidation published from now on, including the ones this instance sends.
+     */
+    void subscribe(Consumer<PlanetInvalidation> listener);
+}
@@ -0,0 +1,430 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.model.PlanetSearchHit.Match;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index over planet names, built from the repository at startup and kept up to date by
+ * {@link PlanetService} and, for the writes of other instances, by {@link PlanetIndexFollower}. Normalized names
+ * (lower case, without accents or punctuation) and the words inside them are kept in sorted maps, so a prefix query
+ * is a range scan over the matching subtree, as in a trie. Trigram posting lists answer misspelled queries.
+ * <p>
+ * Documents are numbered in insertion order and referenced by that number in every posting list. Removed documents
+ * are only marked as deleted until they outnumber the live ones, when the index is compacted.
+ * <p>
+ * Writes are applied with {@link PlanetVersions}: a create or update older than what the index has, or for a removed
+ * planet, is ignored.
+ */
+@Component
+@Profile("!reactive")
+public class PlanetSearchIndex implements MeterBinder {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final PlanetRepository planetRepository;
+
+    private final double minSimilarity;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Documents current;
+
+    public PlanetSearchIndex(PlanetRepository planetRepository, PlanetSearchProperties properties) {
+        this.planetRepository = planetRepository;
+        this.minSimilarity = properties.getMinSimilarity();
+        this.current = new Documents(minSimilarity);
+    }
+
+    /**
+     * Reads every name from the repository into a new index, then swaps it in. Searches keep using the current index
+     * meanwhile; the writes it receives in that time are replayed from the change feed afterwards.
+     */
+    public void rebuild() {
+        Documents rebuilt = new Documents(minSimilarity);
+        planetRepository.forEachName(planet -> rebuilt.put(planet.getId(), planet.getVersion(), planet.getName()));
+        lock.writeLock().lock();
+        try {
+            current = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a created planet, or the new name of an updated one.
+     */
+    public void add(Planet planet) {
+        addAll(List.of(planet));
+    }
+
+    public void addAll(Collection<Planet> planets) {
+        lock.writeLock().lock();
+        try {
+            planets.forEach(planet -> current.put(planet.getId(), planet.getVersion(), planet.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long planetId) {
+        removeAll(List.of(planetId));
+    }
+
+    public void removeAll(Collection<Long> planetIds) {
+        lock.writeLock().lock();
+        try {
+            planetIds.forEach(current::remove);
+            current.compactIfWasted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies changes from the feed in sequence order.
+     */
+    public void apply(List<PlanetChange> changes) {
+        lock.writeLock().lock();
+        try {
+            for (PlanetChange change : changes) {
+                if (change.getType() == PlanetChange.Type.REMOVED) {
+                    current.remove(change.getPlanetId(), change.getSeq());
+                } else {
+                    current.put(change.getPlanetId(), change.getVersion(), change.getName());
+                }
+            }
+            current.compactIfWasted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forgets the removals the feed delivered up to {@code seq}, see {@link PlanetVersions#prune}.
+     */
+    public void prune(long seq) {
+        lock.writeLock().lock();
+        try {
+            current.versions.prune(seq);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return current.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} planets whose name matches {@code query}: the exact name first, then names starting with
+     * the query, then names with a word starting with it (both in alphabetical order), then names with at least
+     * {@code minSimilarity} trigram similarity, most similar first.
+     */
+    public List<PlanetSearchHit> search(String query, int limit) {
+        String term = normalize(query);
+        if (term.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return current.search(term, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("planet.search.index.size", this, PlanetSearchIndex::size)
+                .description("Number of planet names in the search index")
+                .baseUnit("planets")
+                .register(registry);
+    }
+
+    static String normalize(String name) {
+        String decomposed = ACCENTS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Distinct trigrams of the normalized name, padded so the first letters and the end of the name count too.
+     * Each trigram is packed into a long, 16 bits per character.
+     */
+    static long[] trigrams(String term) {
+        String padded = "  " + term + " ";
+        long[] trigrams = new long[padded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        return Arrays.stream(trigrams).sorted().distinct().toArray();
+    }
+
+    /**
+     * The documents and their posting lists, only changed under the write lock of the index.
+     */
+    private static final class Documents {
+
+        private final double minSimilarity;
+
+        private final PlanetVersions versions = new PlanetVersions();
+
+        private final Map<Long, Integer> documentsById = new HashMap<>();
+
+        private final NavigableMap<String, Postings> byName = new TreeMap<>();
+
+        private final NavigableMap<String, Postings> byWord = new TreeMap<>();
+
+        private final Map<Long, Postings> byTrigram = new HashMap<>();
+
+        private final BitSet deleted = new BitSet();
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+
+        private String[] names = new String[INITIAL_CAPACITY];
+
+        private int[] trigramCounts = new int[INITIAL_CAPACITY];
+
+        private int documents;
+
+        private int live;
+
+        Documents(double minSimilarity) {
+            this.minSimilarity = minSimilarity;
+        }
+
+        void put(Long planetId, Long version, String planetName) {
+            if (planetName == null || !versions.put(planetId, version)) {
+                return;
+            }
+            Integer document = documentsById.get(planetId);
+            if (document != null) {
+                if (names[document].equals(planetName)) {
+                    return;
+                }
+                delete(planetId);
+            }
+            index(planetId, planetName);
+        }
+
+        void remove(Long planetId) {
+            remove(planetId, 0);
+        }
+
+        void remove(Long planetId, long seq) {
+            if (versions.remove(planetId, seq)) {
+                delete(planetId);
+            }
+        }
+
+        void compactIfWasted() {
+            if (deleted.cardinality() > live) {
+                compact();
+            }
+        }
+
+        List<PlanetSearchHit> search(String term, int limit) {
+            Hits hits = new Hits(limit);
+
+            Postings exact = byName.get(term);
+            if (exact != null) {
+                for (int i = 0; i < exact.size && !hits.isFull(); i++) {
+                    hits.add(exact.documents[i], Match.EXACT, 1.0);
+                }
+            }
+            collectPrefix(byName.subMap(term, false, term + Character.MAX_VALUE, false), Match.PREFIX, term, hits);
+            collectPrefix(byWord.subMap(term, true, term + Character.MAX_VALUE, false), Match.WORD_PREFIX, term, hits);
+            if (!hits.isFull() && term.length() >= 3) {
+                collectSimilar(term, hits);
+            }
+
+            return hits.list;
+        }
+
+        private void collectPrefix(SortedMap<String, Postings> terms, Match match, String term, Hits hits) {
+            for (Iterator<Map.Entry<String, Postings>> entries = terms.entrySet().iterator();
+                 entries.hasNext() && !hits.isFull(); ) {
+                Map.Entry<String, Postings> entry = entries.next();
+                Postings postings = entry.getValue();
+                double score = (double) term.length() / entry.getKey().length();
+                for (int i = 0; i < postings.size && !hits.isFull(); i++) {
+                    hits.add(postings.documents[i], match, score);
+                }
+            }
+        }
+
+        /**
+         * Jaccard similarity over trigrams. The posting lists of the query trigrams are walked once, counting how many
+         * trigrams each name shares with the query; only names sharing at least {@code ceil(minSimilarity * q)} of the
+         * {@code q} query trigrams can reach the threshold, and only those get scored.
+         */
+        private void collectSimilar(String term, Hits hits) {
+            long[] trigrams = trigrams(term);
+            int needed = Math.max(1, (int) Math.ceil(minSimilarity * trigrams.length));
+
+            short[] common = new short[documents];
+            int[] candidates = new int[INITIAL_CAPACITY];
+            int candidateCount = 0;
+            for (long trigram : trigrams) {
+                Postings postings = byTrigram.get(trigram);
+                if (postings == null) {
+                    continue;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    int document = postings.documents[i];
+                    if (++common[document] == needed) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = document;
+                    }
+                }
+            }
+
+            List<PlanetSearchHit> similar = new ArrayList<>();
+            for (int i = 0; i < candidateCount; i++) {
+                int document = candidates[i];
+                if (deleted.get(document) || hits.contains(document)) {
+                    continue;
+                }
+                double similarity = (double) common[document] / (trigrams.length + trigramCounts[document] - common[document]);
+                if (similarity >= minSimilarity) {
+                    similar.add(new PlanetSearchHit(ids[document], names[document], Match.FUZZY, similarity));
+                }
+            }
+
+            similar.sort(Comparator.comparingDouble(PlanetSearchHit::getScore).reversed()
+                    .thenComparing(PlanetSearchHit::getName));
+            for (int i = 0; i < similar.size() && !hits.isFull(); i++) {
+                hits.list.add(similar.get(i));
+            }
+        }
+
+        private void index(Long planetId, String planetName) {
+            if (documents == ids.length) {
+                int capacity = documents * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                trigramCounts = Arrays.copyOf(trigramCounts, capacity);
+            }
+
+            int document = documents++;
+            ids[document] = planetId;
+            names[document] = planetName;
+            documentsById.put(planetId, document);
+            live++;
+
+            String term = normalize(planetName);
+            byName.computeIfAbsent(term, key -> new Postings()).add(document);
+            for (int space = term.indexOf(' '); space >= 0; space = term.indexOf(' ', space + 1)) {
+                byWord.computeIfAbsent(term.substring(space + 1), key -> new Postings()).add(document);
+            }
+
+            long[] trigrams = trigrams(term);
+            trigramCounts[document] = trigrams.length;
+            for (long trigram : trigrams) {
+                byTrigram.computeIfAbsent(trigram, key -> new Postings()).add(document);
+            }
+        }
+
+        private void delete(Long planetId) {
+            Integer document = documentsById.remove(planetId);
+            if (document != null) {
+                deleted.set(document);
+                live--;
+            }
+        }
+
+        private void compact() {
+            long[] liveIds = new long[live];
+            String[] liveNames = new String[live];
+            int count = 0;
+            for (int document = deleted.nextClearBit(0); document < documents; document = deleted.nextClearBit(document + 1)) {
+                liveIds[count] = ids[document];
+                liveNames[count++] = names[document];
+            }
+
+            clear();
+            for (int i = 0; i < count; i++) {
+                index(liveIds[i], liveNames[i]);
+            }
+        }
+
+        private void clear() {
+            documentsById.clear();
+            byName.clear();
+            byWord.clear();
+            byTrigram.clear();
+            deleted.clear();
+            ids = new long[INITIAL_CAPACITY];
+            names = new String[INITIAL_CAPACITY];
+            trigramCounts = new int[INITIAL_CAPACITY];
+            documents = 0;
+            live = 0;
+        }
+
+        private static class Postings {
+
+            int[] documents = new int[1];
+
+            int size;
+
+            void add(int document) {
+                if (size == documents.length) {
+                    documents = Arrays.copyOf(documents, size * 2);
+                }
+                documents[size++] = document;
+            }
+        }
+
+        private class Hits {
+
+            final int limit;
+
+            final List<PlanetSearchHit> list = new ArrayList<>();
+
+            final Set<Integer> documents = new HashSet<>();
+
+            Hits(int limit) {
+                this.limit = limit;
+            }
+
+            boolean isFull() {
+                return list.size() >= limit;
+            }
+
+            boolean contains(int document) {
+                return documents.contains(document);
+            }
+
+            void add(int document, Match match, double score) {
+                if (!deleted.get(document) && documents.add(document)) {
+                    list.add(new PlanetSearchHit(ids[document], names[document], match, score));
+                }
+            }
+        }
+    }
+}
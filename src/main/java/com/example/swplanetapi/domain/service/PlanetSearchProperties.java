@@ -0,0 +1,20 @@
+package com.example.swplanetapi.domain.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.search")
+public class PlanetSearchProperties {
+
+    private boolean enabled = true;
+
+    private int maxResults = 50;
+
+    /**
+     * Smallest trigram similarity (Jaccard, from 0 to 1) for a name to be returned as a fuzzy match.
+     */
+    private double minSimilarity = 0.3;
+}
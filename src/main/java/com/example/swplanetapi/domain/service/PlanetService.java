@@ -1,40 +1,535 @@
 package com.example.swplanetapi.domain.service;
 
+import com.example.swplanetapi.core.limiter.ConcurrencyLimitAspect;
+import com.example.swplanetapi.core.limiter.ConcurrencyLimited;
+import com.example.swplanetapi.core.limiter.ConcurrencyLimited.Workload;
 import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetFacets;
+import com.example.swplanetapi.domain.model.PlanetField;
+import com.example.swplanetapi.domain.model.PlanetLookupResult;
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.model.PlanetUpdateResult;
 import com.example.swplanetapi.domain.repository.PlanetRepository;
 import com.example.swplanetapi.domain.repository.QueryBuilder;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Example;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
-import javax.persistence.Query;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static com.example.swplanetapi.core.datasource.ReplicaRoutingDataSource.readFromPrimary;
 
 @Service
-@RequiredArgsConstructor
+@Profile("!reactive")
 public class PlanetService {
 
+    static final int STREAM_PAGE_SIZE = 500;
+
+    static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final PlanetRepository planetRepository;
 
+    private final PlanetCache planetCache;
+
+    private final PlanetCacheInvalidator cacheInvalidator;
+
+    private final PlanetSearchIndex searchIndex;
+
+    private final PlanetFacetCounter facetCounter;
+
+    private final PlanetTokenIndex tokenIndex;
+
+    private final PlanetColumnStore columnStore;
+
+    private final PlanetChangeLog changeLog;
+
+    private final TransactionOperations transactionOperations;
+
+    private final ObjectProvider<ConcurrencyLimitAspect> limiter;
+
+    private final int maxSearchResults;
+
+    private final DistributionSummary listSize;
+
+    private final DistributionSummary pageSize;
+
+    private final SingleFlight<Long, Optional<Planet>> byIdFlights;
+
+    private final SingleFlight<String, Optional<Planet>> byNameFlights;
+
+    private final SingleFlight<List<String>, List<Planet>> listFlights;
+
+    public PlanetService(PlanetRepository planetRepository, PlanetCache planetCache,
+                         PlanetCacheInvalidator cacheInvalidator, PlanetSearchIndex searchIndex,
+                         PlanetFacetCounter facetCounter, PlanetTokenIndex tokenIndex, PlanetColumnStore columnStore,
+                         PlanetChangeLog changeLog, TransactionOperations transactionOperations,
+                         ObjectProvider<ConcurrencyLimitAspect> limiter, PlanetSearchProperties searchProperties,
+                         MeterRegistry meterRegistry) {
+        this.planetRepository = planetRepository;
+        this.planetCache = planetCache;
+        this.cacheInvalidator = cacheInvalidator;
+        this.searchIndex = searchIndex;
+        this.facetCounter = facetCounter;
+        this.tokenIndex = tokenIndex;
+        this.columnStore = columnStore;
+        this.changeLog = changeLog;
+        this.transactionOperations = transactionOperations;
+        this.limiter = limiter;
+        this.maxSearchResults = searchProperties.getMaxResults();
+        this.listSize = resultSize("all", meterRegistry);
+        this.pageSize = resultSize("page", meterRegistry);
+        this.byIdFlights = new SingleFlight<>("get", meterRegistry);
+        this.byNameFlights = new SingleFlight<>("getByName", meterRegistry);
+        this.listFlights = new SingleFlight<>("list", meterRegistry);
+    }
+
+    /**
+     * Every matching planet, from the column store when it is serving. Otherwise concurrent calls with the same
+     * filters share one query and the same unmodifiable list; only that query is under the read limit.
+     */
     public List<Planet> list(String terrain, String climate) {
-        Example<Planet> query = QueryBuilder.makeQuery(new Planet(null, null, climate, terrain));
-        return planetRepository.findAll(query);
+        List<Planet> planets = columnStore.isServing()
+                ? columnStore.list(terrain, climate)
+                : listFlights.load(Arrays.asList(terrain, climate), key -> limited(Workload.LIST, () ->
+                        Collections.unmodifiableList(planetRepository.findAll(filter(terrain, climate), Sort.by("id")))));
+        listSize.record(planets.size());
+        return planets;
     }
 
+    /**
+     * Cheap value that changes whenever the result of {@link #list(String, String)} changes.
+     */
+    public String listFingerprint(String terrain, String climate) {
+        if (columnStore.isServing()) {
+            return columnStore.fingerprint(terrain, climate);
+        }
+        return limited(Workload.LIST, () -> planetRepository.fingerprint(filter(terrain, climate)));
+    }
+
+    /**
+     * Every matching planet with only the id and the requested fields, selected as columns instead of entities.
+     */
+    public List<Planet> list(String terrain, String climate, Set<PlanetField> fields) {
+        List<Planet> planets = columnStore.isServing()
+                ? columnStore.list(terrain, climate).stream().map(planet -> PlanetField.select(planet, fields)).toList()
+                : limited(Workload.LIST, () ->
+                        planetRepository.findAllAfter(filter(terrain, climate), fields, null, Integer.MAX_VALUE));
+        listSize.record(planets.size());
+        return planets;
+    }
+
+    @ConcurrencyLimited(Workload.LIST)
+    @Transactional(readOnly = true)
+    public List<Planet> list(String terrain, String climate, Long after, int limit) {
+        List<Planet> planets = planetRepository.findAllAfter(filter(terrain, climate), after, limit);
+        pageSize.record(planets.size());
+        return planets;
+    }
+
+    @ConcurrencyLimited(Workload.LIST)
+    @Transactional(readOnly = true)
+    public List<Planet> list(String terrain, String climate, Long after, int limit, Set<PlanetField> fields) {
+        List<Planet> planets = planetRepository.findAllAfter(filter(terrain, climate), fields, after, limit);
+        pageSize.record(planets.size());
+        return planets;
+    }
+
+    /**
+     * A page of the planets matching the terrain and climate tokens, in id order. The ids come from the in-memory
+     * token index and only that page is loaded, from the cache or with one {@code IN} query under the read limit.
+     */
+    public List<Planet> list(PlanetTokenFilter filter, Long after, int limit) {
+        List<Long> planetIds = tokenIndex.find(filter, after, limit);
+        Map<Long, Optional<Planet>> loaded = planetIds.isEmpty() ? Map.of()
+                : planetCache.getAll(planetIds, ids -> limited(Workload.LIST, () -> loadAllByIds(ids)));
+        // Removed between the index lookup and the load
+        List<Planet> planets = planetIds.stream().flatMap(planetId -> loaded.get(planetId).stream()).toList();
+        pageSize.record(planets.size());
+        return planets;
+    }
+
+    /**
+     * Lazily pages through every matching planet in id order, so only one page is held in memory at a time.
+     */
+    public Stream<Planet> stream(String terrain, String climate) {
+        Specification<Planet> query = filter(terrain, climate);
+        return pages(after -> planetRepository.findAllAfter(query, after, STREAM_PAGE_SIZE));
+    }
+
+    public Stream<Planet> stream(String terrain, String climate, Set<PlanetField> fields) {
+        Specification<Planet> query = filter(terrain, climate);
+        return pages(after -> planetRepository.findAllAfter(query, fields, after, STREAM_PAGE_SIZE));
+    }
+
+    /**
+     * Saves the planet and appends it to the change feed in one transaction.
+     */
+    @ConcurrencyLimited(Workload.WRITE)
     public Planet create(Planet planet) {
-        return planetRepository.save(planet);
+        Planet created = transactionOperations.execute(status -> {
+            Planet saved = planetRepository.save(planet);
+            changeLog.record(List.of(PlanetChange.created(saved)));
+            return saved;
+        });
+        forgetFlights(Stream.ofNullable(created.getId()).toList(), List.of(created.getName()));
+        planetCache.put(created);
+        cacheInvalidator.invalidate(Stream.ofNullable(created.getId()).toList(), List.of(created.getName()));
+        searchIndex.add(created);
+        facetCounter.put(created);
+        tokenIndex.add(created);
+        columnStore.put(created);
+        return created;
+    }
+
+    /**
+     * Replaces the name, climate and terrain of a planet. {@code precondition} is checked against the current
+     * planet (the If-Match header); null updates whatever version is current.
+     */
+    @ConcurrencyLimited(Workload.WRITE)
+    public PlanetUpdateResult replace(Long planetId, Planet planet, Predicate<Planet> precondition) {
+        return update(planetId, precondition, current -> planet);
+    }
+
+    /**
+     * Like {@link #replace}, but only the non-null fields of {@code changes} are applied.
+     */
+    @ConcurrencyLimited(Workload.WRITE)
+    public PlanetUpdateResult patch(Long planetId, Planet changes, Predicate<Planet> precondition) {
+        return update(planetId, precondition, current -> Planet.builder()
+                .name(Objects.requireNonNullElse(changes.getName(), current.getName()))
+                .climate(Objects.requireNonNullElse(changes.getClimate(), current.getClimate()))
+                .terrain(Objects.requireNonNullElse(changes.getTerrain(), current.getTerrain()))
+                .build());
+    }
+
+    /**
+     * Updates the planet with this name, or creates it when there is none. Repeating the call leaves the same
+     * state. With a precondition the planet has to exist already.
+     */
+    @ConcurrencyLimited(Workload.WRITE)
+    public PlanetUpdateResult upsert(String planetName, Planet planet, Predicate<Planet> precondition) {
+        for (int attempt = 1; ; attempt++) {
+            Optional<Planet> current = getByName(planetName);
+            if (current.isPresent()) {
+                return update(current.get().getId(), precondition, existing -> planet);
+            }
+            if (precondition != null) {
+                return PlanetUpdateResult.preconditionFailed();
+            }
+            try {
+                return PlanetUpdateResult.created(create(planet));
+            } catch (DataIntegrityViolationException ex) {
+                // Created meanwhile by another writer: drop the cached miss and update it instead
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw ex;
+                }
+                planetCache.invalidate(List.of(), List.of(planetName));
+            }
+        }
+    }
+
+    /**
+     * Planet counts per terrain, per climate and per (terrain, climate) pair, served from memory.
+     */
+    public PlanetFacets facets() {
+        return facetCounter.snapshot();
+    }
+
+    /**
+     * Ranked name search answered from the in-memory index. A null limit, or one above the configured maximum, returns
+     * the maximum number of results.
+     */
+    public List<PlanetSearchHit> search(String query, Integer limit) {
+        return searchIndex.search(query, limit == null ? maxSearchResults : Math.min(limit, maxSearchResults));
     }
 
+    /**
+     * From the column store when it is serving and has the planet. Otherwise a cached lookup; on a miss, concurrent
+     * calls for the same id share one query through {@link SingleFlight}, the only part under the read limit, which
+     * runs outside the cache so no Caffeine lock is held while it waits. The query may go to a replica; a
+     * row older than a recent write is read again from the primary before it is cached.
+     */
     public Optional<Planet> get(Long planetId) {
-        return planetRepository.findById(planetId);
+        if (columnStore.isServing()) {
+            Optional<Planet> stored = columnStore.get(planetId);
+            if (stored.isPresent()) {
+                return stored;
+            }
+        }
+        return planetCache.get(planetId, id -> byIdFlights.load(id,
+                key -> limited(Workload.LOOKUP, () -> loadById(key))));
     }
 
     public Optional<Planet> getByName(String planetName) {
-        return planetRepository.findByName(planetName);
+        if (columnStore.isServing()) {
+            Optional<Planet> stored = columnStore.getByName(planetName);
+            if (stored.isPresent()) {
+                return stored;
+            }
+        }
+        return planetCache.getByName(planetName, name -> byNameFlights.load(name,
+                key -> limited(Workload.LOOKUP, () -> loadByName(key))));
+    }
+
+    /**
+     * Batch lookup by ids and names. Cached planets are answered from the cache; the rest are loaded with chunked
+     * {@code IN} queries, one pass for the ids and one for the names, so the cost grows with the number of misses
+     * rather than the number of keys. Only those queries are under the read limit.
+     */
+    public PlanetLookupResult lookup(Collection<Long> planetIds, Collection<String> planetNames) {
+        Map<Long, Optional<Planet>> byId = planetIds.isEmpty() ? Map.of()
+                : planetCache.getAll(planetIds, ids -> limited(Workload.LOOKUP, () -> loadAllByIds(ids)));
+        Map<String, Optional<Planet>> byName = planetNames.isEmpty() ? Map.of()
+                : planetCache.getAllByName(planetNames, names -> limited(Workload.LOOKUP, () -> loadAllByNames(names)));
+
+        Map<Long, Planet> planets = new LinkedHashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        List<String> missingNames = new ArrayList<>();
+        for (Long planetId : new LinkedHashSet<>(planetIds)) {
+            byId.get(planetId).ifPresentOrElse(planet -> planets.putIfAbsent(planet.getId(), planet),
+                    () -> missingIds.add(planetId));
+        }
+        for (String planetName : new LinkedHashSet<>(planetNames)) {
+            byName.get(planetName).ifPresentOrElse(planet -> planets.putIfAbsent(planet.getId(), planet),
+                    () -> missingNames.add(planetName));
+        }
+        return new PlanetLookupResult(List.copyOf(planets.values()), missingIds, missingNames);
+    }
+
+    /**
+     * Deletes a planet with a single statement and reports whether it existed.
+     */
+    @ConcurrencyLimited(Workload.WRITE)
+    public boolean remove(Long planetId) {
+        return removeAll(List.of(planetId)) > 0;
+    }
+
+    /**
+     * Deletes the planets and appends the ones that existed to the change feed, in one transaction.
+     */
+    @ConcurrencyLimited(Workload.WRITE)
+    public int removeAll(Collection<Long> planetIds) {
+        return remove(planetIds, () -> planetRepository.removeAll(planetIds));
+    }
+
+    /**
+     * Deletes the planets matching the filter with one set-based statement; only the ids the delete locked are
+     * recorded and evicted.
+     */
+    @ConcurrencyLimited(Workload.WRITE)
+    public int removeAll(String terrain, String climate) {
+        return remove(null, () -> planetRepository.removeAll(terrain, climate));
+    }
+
+    /**
+     * Runs {@code delete} and records its removed ids in one transaction, then evicts {@code planetIds} (or, when
+     * null, the removed ids) whether or not it committed.
+     */
+    private int remove(Collection<Long> planetIds, Supplier<List<Long>> delete) {
+        List<Long> removed = List.of();
+        try {
+            removed = transactionOperations.execute(status -> {
+                List<Long> removedIds = delete.get();
+                changeLog.record(removedIds.stream().map(PlanetChange::removed).toList());
+                return removedIds;
+            });
+        } finally {
+            Collection<Long> evicted = planetIds == null ? removed : planetIds;
+            // The names of the removed planets are not known here
+            forgetFlights(evicted, null);
+            planetCache.evictAll(evicted);
+            cacheInvalidator.invalidate(evicted, List.of());
+        }
+        // Only once committed, and only the planets that existed: the indexes are not reloaded after a rollback, and
+        // the column store ignores every later write of an id it saw removed
+        searchIndex.removeAll(removed);
+        facetCounter.removeAll(removed);
+        tokenIndex.removeAll(removed);
+        columnStore.removeAll(removed);
+        return removed.size();
+    }
+
+    /**
+     * Optimistic update without reading the row first: the current planet usually comes from the cache, and the
+     * conditional {@code UPDATE} only applies while the row still has that version. When it does not (another write
+     * won, or the cached copy is behind), the planet is read again from the primary and the update retried.
+     */
+    private PlanetUpdateResult update(Long planetId, Predicate<Planet> precondition, UnaryOperator<Planet> change) {
+        Optional<Planet> current = get(planetId);
+        boolean fresh = false;
+        for (int attempt = 1; current.isPresent(); attempt++) {
+            Planet previous = current.get();
+            if (precondition == null || precondition.test(previous)) {
+                Planet updated = change.apply(previous);
+                updated.setId(planetId);
+                updated.setVersion(previous.getVersion() + 1);
+                if (write(previous, updated)) {
+                    return PlanetUpdateResult.updated(updated);
+                }
+            } else if (fresh) {
+                return PlanetUpdateResult.preconditionFailed();
+            }
+            if (attempt == MAX_UPDATE_ATTEMPTS) {
+                throw new ConcurrencyFailureException("Planet " + planetId + " kept changing during the update");
+            }
+            current = planetRepository.findCurrent(planetId);
+            fresh = true;
+        }
+        return PlanetUpdateResult.notFound();
+    }
+
+    /**
+     * Detaches the loads in flight that may have read these planets before a write, see {@link SingleFlight}. Null
+     * names detach every load by name. Any write can change any list. Called before the {@link PlanetCache} is
+     * written, so a lookup that no longer joins the old load also sees the cache's new write generation.
+     */
+    void forgetFlights(Collection<Long> planetIds, Collection<String> planetNames) {
+        planetIds.forEach(byIdFlights::forget);
+        if (planetNames == null) {
+            byNameFlights.forgetAll();
+        } else {
+            planetNames.forEach(byNameFlights::forget);
+        }
+        listFlights.forgetAll();
+    }
+
+    private boolean write(Planet previous, Planet updated) {
+        boolean written = Boolean.TRUE.equals(transactionOperations.execute(status -> {
+            if (!planetRepository.update(updated, previous.getVersion())) {
+                return false;
+            }
+            changeLog.record(List.of(PlanetChange.updated(updated)));
+            return true;
+        }));
+        if (written) {
+            forgetFlights(List.of(updated.getId()), List.of(previous.getName(), updated.getName()));
+            planetCache.put(updated);
+            cacheInvalidator.invalidate(List.of(updated.getId()), List.of(previous.getName(), updated.getName()));
+            searchIndex.add(updated);
+            facetCounter.put(updated);
+            tokenIndex.add(updated);
+            columnStore.put(updated);
+        }
+        return written;
+    }
+
+    /**
+     * Loads a planet for the cache from wherever the transaction is routed, and again from the primary when that
+     * copy is older than a write {@link PlanetCache} has seen.
+     */
+    private Optional<Planet> loadById(Long planetId) {
+        Optional<Planet> planet = planetRepository.findById(planetId);
+        if (planetCache.isCurrent(planetId, planet)) {
+            return planet;
+        }
+        Optional<Planet> current = readFromPrimary(() -> planetRepository.findById(planetId));
+        planetCache.confirm(planetId, current);
+        return current;
+    }
+
+    private Optional<Planet> loadByName(String planetName) {
+        Optional<Planet> planet = planetRepository.findByName(planetName);
+        if (planetCache.isCurrent(planetName, planet)) {
+            return planet;
+        }
+        Optional<Planet> current = readFromPrimary(() -> planetRepository.findByName(planetName));
+        current.ifPresent(found -> planetCache.confirm(found.getId(), current));
+        return current;
+    }
+
+    private List<Planet> loadAllByIds(Collection<Long> planetIds) {
+        Map<Long, Planet> planets = new HashMap<>();
+        planetRepository.findAllByIds(planetIds).forEach(planet -> planets.put(planet.getId(), planet));
+        List<Long> stale = planetIds.stream()
+                .filter(planetId -> !planetCache.isCurrent(planetId, Optional.ofNullable(planets.get(planetId))))
+                .toList();
+        if (!stale.isEmpty()) {
+            stale.forEach(planets::remove);
+            readFromPrimary(() -> planetRepository.findAllByIds(stale))
+                    .forEach(planet -> planets.put(planet.getId(), planet));
+            stale.forEach(planetId -> planetCache.confirm(planetId, Optional.ofNullable(planets.get(planetId))));
+        }
+        return List.copyOf(planets.values());
+    }
+
+    private Map<String, Planet> loadAllByNames(List<String> planetNames) {
+        Map<String, Planet> planets = new HashMap<>(
+                byRequestedName(planetNames, planetRepository.findAllByNames(planetNames)));
+        List<String> stale = planetNames.stream()
+                .filter(planetName -> !planetCache.isCurrent(planetName, Optional.ofNullable(planets.get(planetName))))
+                .toList();
+        if (!stale.isEmpty()) {
+            stale.forEach(planets::remove);
+            planets.putAll(byRequestedName(stale, readFromPrimary(() -> planetRepository.findAllByNames(stale))));
+            stale.stream().map(planets::get).filter(Objects::nonNull)
+                    .forEach(planet -> planetCache.confirm(planet.getId(), Optional.of(planet)));
+        }
+        return planets;
+    }
+
+    /**
+     * Runs a database read of a method that is often answered from memory under the limit of {@code workload}.
+     */
+    private <T> T limited(Workload workload, Supplier<T> read) {
+        ConcurrencyLimitAspect limit = limiter.getIfAvailable();
+        return limit == null ? read.get() : limit.call(workload, read);
+    }
+
+    /**
+     * Matches loaded planets to the requested names: an exact match wins, otherwise a name differing only in case
+     * (the database may compare names ignoring case, as {@link #getByName(String)} does).
+     */
+    private static Map<String, Planet> byRequestedName(List<String> requested, List<Planet> loaded) {
+        Map<String, Planet> exact = new HashMap<>();
+        Map<String, Planet> ignoringCase = new HashMap<>();
+        for (Planet planet : loaded) {
+            exact.put(planet.getName(), planet);
+            ignoringCase.putIfAbsent(planet.getName().toLowerCase(Locale.ROOT), planet);
+        }
+
+        Map<String, Planet> planets = new HashMap<>();
+        for (String planetName : requested) {
+            Planet planet = exact.getOrDefault(planetName, ignoringCase.get(planetName.toLowerCase(Locale.ROOT)));
+            if (planet != null) {
+                planets.put(planetName, planet);
+            }
+        }
+        return planets;
+    }
+
+    private static Stream<Planet> pages(Function<Long, List<Planet>> pageAfter) {
+        return Stream.iterate(pageAfter.apply(null),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < STREAM_PAGE_SIZE ? List.of() : pageAfter.apply(page.get(page.size() - 1).getId()))
+                .flatMap(List::stream);
+    }
+
+    private static DistributionSummary resultSize(String mode, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("planet.list.size")
+                .description("Number of planets returned by a list call")
+                .baseUnit("planets")
+                .tag("mode", mode)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    public void remove(Long planetId) {
-        planetRepository.deleteById(planetId);
+    private Specification<Planet> filter(String terrain, String climate) {
+        return QueryBuilder.makeQuery(Planet.builder().terrain(terrain).climate(climate).build());
     }
 }
@@ -0,0 +1,29 @@
+package com.example.swplanetapi.domain.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.store")
+public class PlanetStoreProperties {
+
+    /**
+     * Whether get, getByName and the unpaged list are answered from the in-memory column store.
+     */
+    private boolean enabled = false;
+
+    /**
+     * File the store is saved to and loaded from at startup. Without it every start reads the whole table.
+     */
+    private Path snapshot;
+
+    /**
+     * How often the snapshot is written. It is also written on shutdown.
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+}
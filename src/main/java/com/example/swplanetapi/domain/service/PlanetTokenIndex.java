@@ -0,0 +1,299 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter.Match;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Inverted index from the terrain and climate tokens to the ids of the planets having them, built from the
+ * repository at startup and kept up to date by {@link PlanetService} and, for the writes of other instances, by
+ * {@link PlanetIndexFollower}. Each posting list is a compressed (Roaring)
+ * bitmap of planet ids, so a {@link PlanetTokenFilter} is answered with bitmap AND, OR and AND NOT, and a page is
+ * read from the result by rank without materializing the other ids.
+ * <p>
+ * The tokens of every planet are kept as well, so a removal only touches the posting lists having the planet. Planets
+ * with the same terrain and climate share one instance of them. Writes are applied with {@link PlanetVersions}: a
+ * create or update older than what the index has, or for a removed planet, is ignored.
+ */
+@Component
+@Profile("!reactive")
+public class PlanetTokenIndex implements MeterBinder {
+
+    private static final Roaring64NavigableMap EMPTY = new Roaring64NavigableMap();
+
+    private final PlanetRepository planetRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Postings current = new Postings();
+
+    public PlanetTokenIndex(PlanetRepository planetRepository) {
+        this.planetRepository = planetRepository;
+    }
+
+    /**
+     * Reads every planet from the repository into a new index, then swaps it in. Filters keep using the current index
+     * meanwhile; the writes it receives in that time are replayed from the change feed afterwards.
+     */
+    public void rebuild() {
+        Postings rebuilt = new Postings();
+        planetRepository.forEachTerrainAndClimate(rebuilt::put);
+        rebuilt.optimize();
+        lock.writeLock().lock();
+        try {
+            current = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a created planet, or re-indexes an updated one.
+     */
+    public void add(Planet planet) {
+        addAll(List.of(planet));
+    }
+
+    public void addAll(Collection<Planet> planets) {
+        lock.writeLock().lock();
+        try {
+            planets.forEach(current::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAll(Collection<Long> planetIds) {
+        lock.writeLock().lock();
+        try {
+            planetIds.forEach(current::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies changes from the feed in sequence order.
+     */
+    public void apply(List<PlanetChange> changes) {
+        lock.writeLock().lock();
+        try {
+            for (PlanetChange change : changes) {
+                if (change.getType() == PlanetChange.Type.REMOVED) {
+                    current.remove(change.getPlanetId(), change.getSeq());
+                } else {
+                    current.put(Planet.builder().id(change.getPlanetId()).terrain(change.getTerrain())
+                            .climate(change.getClimate()).version(change.getVersion()).build());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forgets the removals the feed delivered up to {@code seq}, see {@link PlanetVersions#prune}.
+     */
+    public void prune(long seq) {
+        lock.writeLock().lock();
+        try {
+            current.versions.prune(seq);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return current.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of up to {@code limit} planets matching {@code filter} whose id is greater than {@code after} (or from the
+     * start when null), in id order.
+     */
+    public List<Long> find(PlanetTokenFilter filter, Long after, int limit) {
+        Roaring64NavigableMap matched = match(filter);
+
+        long from = after == null ? 0 : matched.rankLong(after);
+        long to = Math.min(matched.getLongCardinality(), from + limit);
+        List<Long> ids = new ArrayList<>((int) Math.max(to - from, 0));
+        for (long rank = from; rank < to; rank++) {
+            ids.add(matched.select(rank));
+        }
+        return ids;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("planet.token.index.size", this, PlanetTokenIndex::size)
+                .description("Number of planets in the terrain and climate token index")
+                .baseUnit("planets")
+                .register(registry);
+    }
+
+    /**
+     * Splits a comma-separated terrain or climate into its lower-cased tokens.
+     */
+    static List<String> tokens(String value) {
+        if (value == null) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(token -> token.trim().toLowerCase(Locale.ROOT))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * The matching ids, as a new bitmap the caller owns.
+     */
+    private Roaring64NavigableMap match(PlanetTokenFilter filter) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap excluded = new Roaring64NavigableMap();
+            Roaring64NavigableMap terrain = match(current.byTerrain, filter.getTerrain(), filter.getMatch(), excluded);
+            Roaring64NavigableMap climate = match(current.byClimate, filter.getClimate(), filter.getMatch(), excluded);
+
+            Roaring64NavigableMap matched;
+            if (terrain == null && climate == null) {
+                matched = copy(current.all);
+            } else if (terrain == null || climate == null) {
+                matched = terrain == null ? climate : terrain;
+            } else {
+                matched = terrain;
+                matched.and(climate);
+            }
+            matched.andNot(excluded);
+            return matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Combines the posting lists of the positive values, or returns null when there are none; the posting lists of
+     * the negated values are added to {@code excluded}.
+     */
+    private static Roaring64NavigableMap match(Map<String, Roaring64NavigableMap> index, List<String> values,
+                                               Match match, Roaring64NavigableMap excluded) {
+        Roaring64NavigableMap matched = null;
+        for (String value : values) {
+            boolean negated = value.startsWith("!");
+            String token = (negated ? value.substring(1) : value).trim().toLowerCase(Locale.ROOT);
+            Roaring64NavigableMap ids = index.getOrDefault(token, EMPTY);
+            if (negated) {
+                excluded.or(ids);
+            } else if (matched == null) {
+                matched = copy(ids);
+            } else if (match == Match.ALL) {
+                matched.and(ids);
+            } else {
+                matched.or(ids);
+            }
+        }
+        return matched;
+    }
+
+    // clone() is orders of magnitude slower than OR-ing into an empty map
+    private static Roaring64NavigableMap copy(Roaring64NavigableMap ids) {
+        Roaring64NavigableMap copy = new Roaring64NavigableMap();
+        copy.or(ids);
+        return copy;
+    }
+
+    /**
+     * The posting lists and the tokens of every planet, only changed under the write lock of the index.
+     */
+    private static final class Postings {
+
+        private final PlanetVersions versions = new PlanetVersions();
+
+        private final Roaring64NavigableMap all = new Roaring64NavigableMap();
+
+        private final Map<String, Roaring64NavigableMap> byTerrain = new HashMap<>();
+
+        private final Map<String, Roaring64NavigableMap> byClimate = new HashMap<>();
+
+        private final Map<Long, Tokens> tokensById = new HashMap<>();
+
+        private final Map<Tokens, Tokens> distinctTokens = new HashMap<>();
+
+        // Bitmaps cache their cardinality when asked for it, so the shared ones are not asked under the read lock
+        private int live;
+
+        void put(Planet planet) {
+            if (!versions.put(planet.getId(), planet.getVersion())) {
+                return;
+            }
+            delete(planet.getId());
+            Tokens tokens = distinctTokens.computeIfAbsent(
+                    new Tokens(tokens(planet.getTerrain()), tokens(planet.getClimate())), Function.identity());
+            tokensById.put(planet.getId(), tokens);
+            all.addLong(planet.getId());
+            live++;
+            tokens.terrain().forEach(token ->
+                    byTerrain.computeIfAbsent(token, key -> new Roaring64NavigableMap()).addLong(planet.getId()));
+            tokens.climate().forEach(token ->
+                    byClimate.computeIfAbsent(token, key -> new Roaring64NavigableMap()).addLong(planet.getId()));
+        }
+
+        void remove(Long planetId) {
+            remove(planetId, 0);
+        }
+
+        void remove(Long planetId, long seq) {
+            if (versions.remove(planetId, seq)) {
+                delete(planetId);
+            }
+        }
+
+        void optimize() {
+            all.runOptimize();
+            byTerrain.values().forEach(Roaring64NavigableMap::runOptimize);
+            byClimate.values().forEach(Roaring64NavigableMap::runOptimize);
+        }
+
+        private void delete(Long planetId) {
+            Tokens tokens = tokensById.remove(planetId);
+            if (tokens == null) {
+                return;
+            }
+            all.removeLong(planetId);
+            live--;
+            delete(byTerrain, tokens.terrain(), planetId);
+            delete(byClimate, tokens.climate(), planetId);
+        }
+
+        private static void delete(Map<String, Roaring64NavigableMap> index, List<String> tokens, long planetId) {
+            for (String token : tokens) {
+                Roaring64NavigableMap ids = index.get(token);
+                ids.removeLong(planetId);
+                if (ids.isEmpty()) {
+                    index.remove(token);
+                }
+            }
+        }
+    }
+
+    private record Tokens(List<String> terrain, List<String> climate) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.swplanetapi.domain.service;
+
+import java.util.Objects;
+
+/**
+ * The version each planet of an in-memory index was last written with, and the planets it saw removed. A planet
+ * reaches the indexes twice, once from the writer right after the commit and once from the change feed, in either
+ * order; comparing versions makes both orders end in the newest state, as in {@link PlanetColumnStore}.
+ * <p>
+ * A removal is kept as a tombstone so a late create or update of the planet is not applied. Once the feed has
+ * delivered it, its sequence number is known, and {@link #prune} drops it when the feed no longer holds that change:
+ * every write of the planet was committed before it, so none is still to come. Only removals the writer applied and
+ * the feed has not delivered yet have no sequence number, and are kept.
+ * <p>
+ * Not thread-safe: every index only uses it under its own lock.
+ */
+final class PlanetVersions {
+
+    private static final long MISSING = Long.MIN_VALUE;
+
+    // Versions are not negative; a tombstone is stored as -(seq + 1), -1 while its sequence number is not known
+    private final LongLongMap versions = new LongLongMap();
+
+    // Tombstones with a sequence number as (seq, id) pairs, in sequence order since the feed delivers it
+    private long[] removals = new long[32];
+
+    private int removalsHead;
+
+    private int removalsEnd;
+
+    /**
+     * Records a create or update and returns whether the index should apply it: false when the planet was removed or
+     * the index already has this version or a newer one. A null version counts as the first one.
+     */
+    boolean put(Long planetId, Long version) {
+        if (planetId == null) {
+            return false;
+        }
+        long putVersion = Objects.requireNonNullElse(version, 0L);
+        long current = versions.get(planetId, MISSING);
+        if (current != MISSING && (current < 0 || current >= putVersion)) {
+            return false;
+        }
+        versions.put(planetId, putVersion);
+        return true;
+    }
+
+    /**
+     * Records a removal applied by the writer and returns whether the index should apply it, which it only needs to
+     * once.
+     */
+    boolean remove(Long planetId) {
+        return remove(planetId, 0);
+    }
+
+    /**
+     * Records a removal delivered by the change feed with sequence number {@code seq}.
+     */
+    boolean remove(Long planetId, long seq) {
+        if (planetId == null) {
+            return false;
+        }
+        long current = versions.get(planetId, MISSING);
+        boolean removed = current == MISSING || current >= 0;
+        if (removed || current == -1 && seq > 0) {
+            versions.put(planetId, -(seq + 1));
+            if (seq > 0) {
+                addRemoval(seq, planetId);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Drops the tombstones of removals with a sequence number up to {@code seq}.
+     */
+    void prune(long seq) {
+        while (removalsHead < removalsEnd && removals[removalsHead] <= seq) {
+            long removedSeq = removals[removalsHead];
+            long planetId = removals[removalsHead + 1];
+            if (versions.get(planetId, MISSING) == -(removedSeq + 1)) {
+                versions.remove(planetId);
+            }
+            removalsHead += 2;
+        }
+    }
+
+    private void addRemoval(long seq, long planetId) {
+        if (removalsEnd == removals.length) {
+            int pending = removalsEnd - removalsHead;
+            // Compacts in place while at most half of it is pending, grows otherwise
+            long[] moved = pending * 2 > removals.length ? new long[removals.length * 2] : removals;
+            System.arraycopy(removals, removalsHead, moved, 0, pending);
+            removals = moved;
+            removalsHead = 0;
+            removalsEnd = pending;
+        }
+        removals[removalsEnd++] = seq;
+        removals[removalsEnd++] = planetId;
+    }
+}
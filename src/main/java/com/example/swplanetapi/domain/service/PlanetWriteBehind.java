@@ -0,0 +1,266 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.core.limiter.ConcurrencyLimitProperties;
+import com.example.swplanetapi.core.limiter.ConcurrencyLimited.Workload;
+import com.example.swplanetapi.core.limiter.OverloadedException;
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetCreation;
+import com.example.swplanetapi.domain.model.PlanetImportResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind path for {@code POST /planets} ({@code planet.write-behind.enabled}). A creation is checked up front
+ * against the planets that exist and the names reserved by creations still queued, so a duplicate name is refused
+ * with 409 as on the synchronous path. It then waits in a bounded queue that a single writer drains through
+ * {@link PlanetImportService#createBatch}: up to {@code batch-size} creations are inserted with one multi-row statement
+ * and committed together (group commit), instead of one transaction per request.
+ * <p>
+ * The request waits up to {@code planet.write-behind.wait} for its commit; when that is not enough it gets the
+ * {@link PlanetCreation} to poll instead. On shutdown the writer commits what is still queued before stopping; nothing
+ * is queued once {@link #close} has started, and what an interrupted writer leaves behind is failed.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class PlanetWriteBehind implements SmartInitializingSingleton, AutoCloseable {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final PlanetService planetService;
+
+    private final PlanetImportService importService;
+
+    private final PlanetWriteBehindProperties properties;
+
+    private final Duration retryAfter;
+
+    private final BlockingQueue<Pending> queue;
+
+    // Queued creations by lower-cased name (names are unique regardless of case) and by id; a creation leaves both
+    // once its outcome is in completed
+    private final Map<String, Pending> reservedNames = new ConcurrentHashMap<>();
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private final Cache<String, PlanetCreation> completed;
+
+    private final DistributionSummary batchSize;
+
+    // Only set under the monitor, which submit holds while it queues, so nothing is queued once close cleared it
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public PlanetWriteBehind(PlanetService planetService, PlanetImportService importService,
+                             PlanetWriteBehindProperties properties, ConcurrencyLimitProperties limitProperties,
+                             MeterRegistry meterRegistry) {
+        this.planetService = planetService;
+        this.importService = importService;
+        this.properties = properties;
+        this.retryAfter = limitProperties.getRetryAfter();
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.completed = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStatusRetention())
+                .maximumSize(properties.getStatusCapacity())
+                .build();
+        this.batchSize = DistributionSummary.builder("planet.write-behind.batch")
+                .description("Planets created per group commit")
+                .baseUnit("planets")
+                .register(meterRegistry);
+        Gauge.builder("planet.write-behind.queued", queue, BlockingQueue::size)
+                .description("Planet creations waiting for the writer")
+                .baseUnit("planets")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("planet-write-behind").daemon().start(this::write);
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Queues the creation and, unless {@code respondAsync}, waits up to {@code planet.write-behind.wait} for it to be
+     * committed. Returns the created planet, or a pending creation when it is still queued.
+     *
+     * @throws DataIntegrityViolationException when the name exists or is taken by another queued creation
+     * @throws OverloadedException             when the queue is full
+     */
+    public PlanetCreation create(Planet planet, boolean respondAsync) throws InterruptedException {
+        return create(planet, respondAsync ? Duration.ZERO : properties.getWait());
+    }
+
+    PlanetCreation create(Planet planet, Duration wait) throws InterruptedException {
+        Pending creation = submit(planet);
+        PlanetCreation result;
+        try {
+            result = creation.result().get(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return PlanetCreation.pending(creation.id());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+        if (result.getStatus() == PlanetCreation.Status.CONFLICT) {
+            throw new DataIntegrityViolationException(result.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * The creation while it is queued, and its outcome for {@code planet.write-behind.status-retention} afterwards.
+     */
+    public Optional<PlanetCreation> status(String id) {
+        if (pending.containsKey(id)) {
+            return Optional.of(PlanetCreation.pending(id));
+        }
+        return Optional.ofNullable(completed.getIfPresent(id));
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            current = writer;
+        }
+        if (current != null) {
+            current.join();
+        }
+    }
+
+    private Pending submit(Planet planet) {
+        if (!running) {
+            throw new OverloadedException(Workload.WRITE, retryAfter);
+        }
+        Pending creation = new Pending(UUID.randomUUID().toString(), planet, new CompletableFuture<>());
+        if (reservedNames.putIfAbsent(reservedName(planet), creation) != null) {
+            throw new DataIntegrityViolationException("Planet name already exists: " + planet.getName());
+        }
+        boolean queued = false;
+        try {
+            if (planetService.getByName(planet.getName()).isPresent()) {
+                throw new DataIntegrityViolationException("Planet name already exists: " + planet.getName());
+            }
+            pending.put(creation.id(), creation);
+            synchronized (this) {
+                queued = running && queue.offer(creation);
+            }
+            if (!queued) {
+                throw new OverloadedException(Workload.WRITE, retryAfter);
+            }
+            return creation;
+        } finally {
+            if (!queued) {
+                pending.remove(creation.id());
+                reservedNames.remove(reservedName(planet), creation);
+            }
+        }
+    }
+
+    private void write() {
+        List<Pending> batch = new ArrayList<>(properties.getBatchSize());
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending first = queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Everything that queued up during the previous commit goes into this one
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            failRemaining(batch);
+        }
+    }
+
+    /**
+     * Fails the creations the writer leaves behind when it stops early (interrupted, or an unexpected error), so their
+     * requests do not wait for a commit that never comes. Nothing is queued afterwards.
+     */
+    private void failRemaining(List<Pending> batch) {
+        List<Pending> remaining = new ArrayList<>();
+        batch.stream().filter(creation -> !creation.result().isDone()).forEach(remaining::add);
+        synchronized (this) {
+            running = false;
+            queue.drainTo(remaining);
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+        log.warn("Write-behind stopped with {} planets not committed", remaining.size());
+        IllegalStateException failure = new IllegalStateException("Stopped before the planet was created");
+        remaining.forEach(creation ->
+                complete(creation, PlanetCreation.failed(creation.id(), failure.getMessage()), failure));
+    }
+
+    private void commit(List<Pending> batch) {
+        List<PlanetImportResult> results;
+        try {
+            results = importService.createBatch(batch.stream().map(Pending::planet).toList());
+        } catch (RuntimeException e) {
+            log.warn("Could not create {} queued planets", batch.size(), e);
+            batch.forEach(creation -> complete(creation, PlanetCreation.failed(creation.id(), e.getMessage()), e));
+            return;
+        }
+        batchSize.record(batch.size());
+        for (PlanetImportResult result : results) {
+            Pending creation = batch.get(result.getIndex());
+            Planet planet = creation.planet();
+            complete(creation, switch (result.getStatus()) {
+                case CREATED -> PlanetCreation.created(creation.id(), Planet.builder().id(result.getId())
+                        .name(planet.getName()).climate(planet.getClimate()).terrain(planet.getTerrain())
+                        .version(0L).build());
+                case CONFLICT -> PlanetCreation.conflict(creation.id(), result.getMessage());
+                case INVALID -> PlanetCreation.failed(creation.id(), result.getMessage());
+            }, null);
+        }
+    }
+
+    private void complete(Pending creation, PlanetCreation result, RuntimeException failure) {
+        completed.put(creation.id(), result);
+        pending.remove(creation.id());
+        reservedNames.remove(reservedName(creation.planet()), creation);
+        if (failure == null) {
+            creation.result().complete(result);
+        } else {
+            creation.result().completeExceptionally(failure);
+        }
+    }
+
+    private static String reservedName(Planet planet) {
+        return planet.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private record Pending(String id, Planet planet, CompletableFuture<PlanetCreation> result) {
+    }
+}
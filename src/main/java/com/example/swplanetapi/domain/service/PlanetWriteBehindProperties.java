@@ -0,0 +1,44 @@
+package com.example.swplanetapi.domain.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("planet.write-behind")
+public class PlanetWriteBehindProperties {
+
+    /**
+     * Whether {@code POST /planets} queues the creation and commits it together with others.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Creations that may wait in the queue; past that the request gets 503.
+     */
+    private int capacity = 10000;
+
+    /**
+     * Most creations committed in one transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * How long a request waits for its commit to answer 201 before answering 202 with the status location.
+     */
+    private Duration wait = Duration.ofMillis(100);
+
+    /**
+     * How long the outcome of a creation stays available at its status location.
+     */
+    private Duration statusRetention = Duration.ofMinutes(5);
+
+    /**
+     * Most outcomes kept for their status location; past that the least recently used are dropped before their
+     * retention ends.
+     */
+    private long statusCapacity = 100000;
+}
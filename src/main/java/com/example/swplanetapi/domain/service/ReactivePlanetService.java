@@ -0,0 +1,112 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.repository.ReactivePlanetRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link PlanetService}, used by the {@code reactive} profile.
+ * <p>
+ * Writes go through the same {@code planet_change} outbox as the blocking stack, in the transaction of the write,
+ * and with the {@code jdbc} invalidation channel they are announced in {@code planet_cache_invalidation} once
+ * committed, so blocking instances on the same database keep their indexes and caches current.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactivePlanetService {
+
+    private final String origin = "reactive-" + UUID.randomUUID();
+
+    private final ReactivePlanetRepository planetRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final PlanetCacheProperties cacheProperties;
+
+    private final ObjectMapper objectMapper;
+
+    public Flux<Planet> list(String terrain, String climate) {
+        return planetRepository.findAll(terrain, climate);
+    }
+
+    public Flux<Planet> list(String terrain, String climate, Long after, int limit) {
+        return planetRepository.findAllAfter(terrain, climate, after, limit);
+    }
+
+    /**
+     * Emits planets as the client consumes them, requesting at most {@link PlanetService#STREAM_PAGE_SIZE} rows
+     * from the driver ahead of demand.
+     */
+    public Flux<Planet> stream(String terrain, String climate) {
+        return planetRepository.findAll(terrain, climate).limitRate(PlanetService.STREAM_PAGE_SIZE);
+    }
+
+    public Mono<Planet> create(Planet planet) {
+        // The id is always generated, as it is for a new planet on the JPA stack
+        planet.setId(null);
+        return planetRepository.save(planet)
+                .flatMap(created -> planetRepository.appendAll(List.of(PlanetChange.created(created))).thenReturn(created))
+                .as(transactionalOperator::transactional)
+                .flatMap(created -> announce(List.of(created.getId()), List.of(created.getName())).thenReturn(created));
+    }
+
+    public Mono<Planet> get(Long planetId) {
+        return planetRepository.findById(planetId);
+    }
+
+    public Mono<Planet> getByName(String planetName) {
+        return planetRepository.findByName(planetName);
+    }
+
+    public Mono<Boolean> remove(Long planetId) {
+        return removeAll(List.of(planetId)).map(removed -> removed > 0);
+    }
+
+    public Mono<Long> removeAll(Collection<Long> planetIds) {
+        return remove(planetRepository.removeAll(planetIds));
+    }
+
+    public Mono<Long> removeAll(String terrain, String climate) {
+        return remove(planetRepository.removeAll(terrain, climate));
+    }
+
+    private Mono<Long> remove(Mono<List<Long>> delete) {
+        return delete
+                .flatMap(removedIds -> planetRepository.appendAll(removedIds.stream().map(PlanetChange::removed).toList())
+                        .thenReturn(removedIds))
+                .as(transactionalOperator::transactional)
+                .flatMap(removedIds -> announce(removedIds, List.of()).thenReturn((long) removedIds.size()));
+    }
+
+    /**
+     * Same announcement as {@link PlanetCacheInvalidator#invalidate}, written straight to the {@code jdbc} channel's
+     * table; nothing to do with the {@code local} channel, which has no other instance to reach. As there, an
+     * announcement that cannot be sent is only logged, since the write has committed.
+     */
+    private Mono<Void> announce(List<Long> planetIds, List<String> planetNames) {
+        if (planetIds.isEmpty() || cacheProperties.getInvalidation().getChannel() != PlanetCacheProperties.Channel.JDBC) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(
+                        new PlanetInvalidation(origin, planetIds, planetNames)))
+                .flatMap(planetRepository::appendInvalidation)
+                .onErrorResume(e -> {
+                    log.warn("Could not announce the write of planets {} to the other instances", planetIds, e);
+                    return Mono.empty();
+                });
+    }
+}
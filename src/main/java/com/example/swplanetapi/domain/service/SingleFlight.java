@@ -0,0 +1,77 @@
+package com.example.swplanetapi.domain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent calls for the same key share one load: the first caller runs it and the callers arriving while it
+ * runs wait for its result, or its exception, instead of starting their own. Nothing is kept once the load is over.
+ * <p>
+ * A load may have read the key before a write that commits while it runs, so a call made after that write could
+ * join it and get the old value. The writer therefore calls {@link #forget} (or {@link #forgetAll}) once it has
+ * committed: the load in flight still answers the callers already waiting for it, and later calls start a new one.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter shared;
+
+    SingleFlight(String operation, MeterRegistry meterRegistry) {
+        this.shared = Counter.builder("planet.single-flight.shared")
+                .description("Calls answered by a load already in flight for the same key")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    V load(K key, Function<K, V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            shared.increment();
+            return join(running);
+        }
+
+        try {
+            V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Makes the calls from now on start their own load of the key instead of joining the one in flight.
+     */
+    void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    void forgetAll() {
+        inFlight.clear();
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- H2 counterpart of db/migration/mysql, for the tests and benchmarks
+CREATE TABLE planet (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    climate VARCHAR(255),
+    name VARCHAR(255),
+    terrain VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_planet_name UNIQUE (name)
+);
@@ -0,0 +1,31 @@
+-- H2 counterpart of db/migration/mysql, for the tests and benchmarks
+ALTER TABLE planet ADD COLUMN climate_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(climate));
+
+ALTER TABLE planet ADD COLUMN terrain_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(terrain));
+
+ALTER TABLE planet ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX idx_planet_terrain_key_climate_key ON planet (terrain_key, climate_key, version);
+
+CREATE INDEX idx_planet_climate_key ON planet (climate_key, version);
+
+CREATE TABLE planet_change (
+    seq BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    type VARCHAR(16) NOT NULL,
+    planet_id BIGINT NOT NULL,
+    name VARCHAR(255),
+    climate VARCHAR(255),
+    terrain VARCHAR(255),
+    version BIGINT,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (seq)
+);
+
+CREATE INDEX idx_planet_change_created_at ON planet_change (created_at);
+
+CREATE TABLE planet_cache_invalidation (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    payload CLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id)
+);
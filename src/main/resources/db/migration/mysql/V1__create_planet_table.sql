@@ -0,0 +1,10 @@
+-- The table as ddl-auto=update created it before the migrations; databases created that way are baselined at this
+-- version, so only the later migrations run on them
+CREATE TABLE planet (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    climate VARCHAR(255),
+    name VARCHAR(255),
+    terrain VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_planet_name UNIQUE (name)
+) ENGINE = InnoDB;
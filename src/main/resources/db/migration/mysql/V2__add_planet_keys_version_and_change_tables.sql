@@ -0,0 +1,28 @@
+-- Lower-cased keys for the case-insensitive filters, the version for optimistic updates, and indexes ending with
+-- the version so the list fingerprint is computed from them alone
+ALTER TABLE planet
+    ADD COLUMN climate_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(climate)),
+    ADD COLUMN terrain_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(terrain)),
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD INDEX idx_planet_terrain_key_climate_key (terrain_key, climate_key, version),
+    ADD INDEX idx_planet_climate_key (climate_key, version);
+
+CREATE TABLE planet_change (
+    seq BIGINT NOT NULL AUTO_INCREMENT,
+    type VARCHAR(16) NOT NULL,
+    planet_id BIGINT NOT NULL,
+    name VARCHAR(255),
+    climate VARCHAR(255),
+    terrain VARCHAR(255),
+    version BIGINT,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (seq),
+    INDEX idx_planet_change_created_at (created_at)
+) ENGINE = InnoDB;
+
+CREATE TABLE planet_cache_invalidation (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    payload MEDIUMTEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -89,4 +89,11 @@ public class PlanetIT {
 
         assertThat(sut.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
+
+    @Test
+    void removePlanet_WithUnexistingId_ReturnsNotFound() {
+        ResponseEntity<Void> sut = restTemplate.exchange("/planets/99", HttpMethod.DELETE, null, Void.class);
+
+        assertThat(sut.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
 }
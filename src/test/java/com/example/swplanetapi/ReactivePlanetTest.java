@@ -0,0 +1,197 @@
+package com.example.swplanetapi;
+
+import com.example.swplanetapi.domain.model.Planet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Runs the {@code /planets} contract against the WebFlux + R2DBC stack, on H2.
+ */
+@ActiveProfiles({"reactive", "h2"})
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class ReactivePlanetTest {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // @Sql needs a JDBC DataSource, which the reactive profile does not have
+    @BeforeEach
+    void beforeEach() {
+        new ResourceDatabasePopulator(new ClassPathResource("import_planets.sql")).populate(connectionFactory).block();
+    }
+
+    @AfterEach
+    void afterEach() {
+        new ResourceDatabasePopulator(new ClassPathResource("remove_planets.sql")).populate(connectionFactory).block();
+    }
+
+    @Test
+    void createPlanet_ReturnsCreated() {
+        Planet sut = webTestClient.post().uri("/planets").bodyValue(PLANET).exchange()
+                .expectStatus().isCreated()
+                .expectBody(Planet.class).returnResult().getResponseBody();
+
+        assertThat(sut.getId()).isNotNull();
+        assertThat(sut.getName()).isEqualTo(PLANET.getName());
+        assertThat(sut.getClimate()).isEqualTo(PLANET.getClimate());
+        assertThat(sut.getTerrain()).isEqualTo(PLANET.getTerrain());
+    }
+
+    @Test
+    void createPlanet_WithInvalidData_ReturnsUnprocessableEntity() {
+        webTestClient.post().uri("/planets").bodyValue(INVALID_PLANET).exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody().jsonPath("$.status").isEqualTo(422);
+
+        assertThat(meterRegistry.find("planet.api.errors").tag("status", "422").counter()).isNotNull();
+    }
+
+    @Test
+    void createPlanet_WithExistingName_ReturnsConflict() {
+        Planet planet = Planet.builder().name(TATOOINE.getName()).climate("arid").terrain("desert").build();
+
+        webTestClient.post().uri("/planets").bodyValue(planet).exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void getPlanet_ReturnsPlanet() {
+        webTestClient.get().uri("/planets/{id}", TATOOINE.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(Planet.class).isEqualTo(TATOOINE)
+                .value(planet -> assertThat(planet.getName()).isEqualTo(TATOOINE.getName()));
+    }
+
+    @Test
+    void getPlanet_ByUnexistingId_ReturnsNotFound() {
+        webTestClient.get().uri("/planets/99").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void getPlanetByName_ReturnsPlanet() {
+        webTestClient.get().uri("/planets/name/{name}", TATOOINE.getName()).exchange()
+                .expectStatus().isOk()
+                .expectBody(Planet.class).isEqualTo(TATOOINE);
+    }
+
+    @Test
+    void getPlanetByName_ByUnexistingName_ReturnsNotFound() {
+        webTestClient.get().uri("/planets/name/Hoth").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void listPlanets_ReturnsAllPlanets() {
+        webTestClient.get().uri("/planets").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Planet.class).value(planets -> assertThat(planets).containsExactly(TATOOINE, ALDERAAN, YAVINIV));
+    }
+
+    @Test
+    void listPlanets_ByClimateInAnotherCase_ReturnsPlanets() {
+        webTestClient.get().uri("/planets?climate={climate}", TATOOINE.getClimate().toUpperCase()).exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Planet.class).value(planets -> assertThat(planets).containsExactly(TATOOINE));
+    }
+
+    @Test
+    void listPlanets_ByTerrain_ReturnsPlanets() {
+        webTestClient.get().uri("/planets?terrain={terrain}", TATOOINE.getTerrain()).exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Planet.class).value(planets -> assertThat(planets).containsExactly(TATOOINE));
+    }
+
+    @Test
+    void listPlanets_WithLimit_ReturnsPageAndNextLink() {
+        webTestClient.get().uri("/planets?limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, link -> assertThat(link).contains("after=2", "limit=2"))
+                .expectBodyList(Planet.class).value(planets -> assertThat(planets).containsExactly(TATOOINE, ALDERAAN));
+
+        webTestClient.get().uri("/planets?after=2&limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.LINK)
+                .expectBodyList(Planet.class).value(planets -> assertThat(planets).containsExactly(YAVINIV));
+    }
+
+    @Test
+    void listPlanets_WithInvalidLimit_ReturnsBadRequest() {
+        webTestClient.get().uri("/planets?limit=0").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void streamPlanets_ReturnsNdjson() {
+        webTestClient.get().uri("/planets").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Planet.class).value(planets -> assertThat(planets).containsExactly(TATOOINE, ALDERAAN, YAVINIV));
+    }
+
+    @Test
+    void removePlanet_ReturnsNoContent() {
+        webTestClient.delete().uri("/planets/{id}", TATOOINE.getId()).exchange().expectStatus().isNoContent();
+        webTestClient.get().uri("/planets/{id}", TATOOINE.getId()).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void removePlanet_WithUnexistingId_ReturnsNotFound() {
+        webTestClient.delete().uri("/planets/99").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void removePlanets_ByFilter_ReturnsRemovedCount() {
+        webTestClient.delete().uri("/planets?climate={climate}", ALDERAAN.getClimate()).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.removed").isEqualTo(1);
+    }
+
+    @Test
+    void createAndRemovePlanet_AppendToChangeFeed() {
+        DatabaseClient database = DatabaseClient.create(connectionFactory);
+        // The feed outlives the planets removed after each test, whose ids are reused
+        Long before = database.sql("SELECT COALESCE(MAX(seq), 0) AS seq FROM planet_change")
+                .map(row -> row.get("seq", Long.class)).one().block();
+
+        Planet created = webTestClient.post().uri("/planets").bodyValue(PLANET).exchange()
+                .expectStatus().isCreated()
+                .expectBody(Planet.class).returnResult().getResponseBody();
+        webTestClient.delete().uri("/planets/{id}", created.getId()).exchange().expectStatus().isNoContent();
+
+        List<String> sut = database.sql("SELECT type FROM planet_change WHERE planet_id = :id AND seq > :before ORDER BY seq")
+                .bind("id", created.getId())
+                .bind("before", before)
+                .map(row -> row.get("type", String.class))
+                .all().collectList().block();
+
+        assertThat(sut).containsExactly("CREATED", "REMOVED");
+    }
+
+    @Test
+    void removePlanets_WithoutCriteria_ReturnsBadRequest() {
+        webTestClient.delete().uri("/planets").exchange().expectStatus().isBadRequest();
+    }
+}
@@ -1,32 +1,65 @@
 package com.example.swplanetapi.controller;
 
+import com.example.swplanetapi.core.web.BinaryFormatConfiguration;
 import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetCreation;
+import com.example.swplanetapi.domain.model.PlanetFacetCount;
+import com.example.swplanetapi.domain.model.PlanetFacets;
+import com.example.swplanetapi.domain.model.PlanetField;
+import com.example.swplanetapi.domain.model.PlanetImportResult;
+import com.example.swplanetapi.domain.model.PlanetLookupRequest;
+import com.example.swplanetapi.domain.model.PlanetLookupResult;
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter.Match;
+import com.example.swplanetapi.domain.model.PlanetUpdateResult;
+import com.example.swplanetapi.domain.service.PlanetChangeLog;
+import com.example.swplanetapi.domain.service.PlanetChangeProperties;
+import com.example.swplanetapi.domain.service.PlanetImportService;
 import com.example.swplanetapi.domain.service.PlanetService;
+import com.example.swplanetapi.domain.service.PlanetWriteBehind;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
 
 import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(PlanetController.class)
+@EnableConfigurationProperties({PlanetHttpProperties.class, PlanetChangeProperties.class})
+@Import({SimpleMeterRegistry.class, BinaryFormatConfiguration.class})
 public class PlanetControllerTest {
 
     @Autowired
@@ -35,9 +68,21 @@ public class PlanetControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private PlanetService planetService;
 
+    @MockBean
+    private PlanetImportService planetImportService;
+
+    @MockBean
+    private PlanetChangeLog changeLog;
+
+    @MockBean
+    private PlanetWriteBehind planetWriteBehind;
+
     @Test
     @DisplayName("Deve criar um planeta")
     void createPlanet_WithValidData_ReturnsCreated() throws Exception {
@@ -62,7 +107,8 @@ public class PlanetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON);
 
         mockMvc.perform(request)
-                .andExpect(status().isUnprocessableEntity());
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.status").value(422));
 
         verify(planetService, never()).create(any(Planet.class));
     }
@@ -80,6 +126,89 @@ public class PlanetControllerTest {
                 .andExpect(status().isConflict());
 
         verify(planetService, times(1)).create(any(Planet.class));
+
+        assertThat(meterRegistry.get("planet.api.errors").tag("status", "409").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void createPlanet_WriteBehindRespondingAsync_ReturnsAcceptedWithStatusLocation() throws Exception {
+        when(planetWriteBehind.isEnabled()).thenReturn(true);
+        when(planetWriteBehind.create(any(Planet.class), eq(true))).thenReturn(PlanetCreation.pending("c1"));
+        when(planetWriteBehind.status("c1")).thenReturn(Optional.of(PlanetCreation.created("c1", PLANET)));
+
+        mockMvc.perform(post("/planets").contentType(MediaType.APPLICATION_JSON).header("Prefer", "respond-async")
+                        .content(objectMapper.writeValueAsString(PLANET)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/planets/creations/c1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        mockMvc.perform(get("/planets/creations/c1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CREATED"))
+                .andExpect(jsonPath("$.planet.name").value(PLANET.getName()));
+        mockMvc.perform(get("/planets/creations/c2"))
+                .andExpect(status().isNotFound());
+        verify(planetService, never()).create(any(Planet.class));
+    }
+
+    @Test
+    void createPlanets_WithNdjson_ReturnsResultPerRow() throws Exception {
+        when(planetImportService.createAll(any())).thenAnswer(invocation -> {
+            Iterator<Planet> planets = invocation.getArgument(0);
+            assertThat(planets.next().getName()).isEqualTo(TATOOINE.getName());
+            assertThat(planets.next().getName()).isEqualTo(ALDERAAN.getName());
+            assertThat(planets.hasNext()).isFalse();
+            return List.of(PlanetImportResult.created(0, 1L), PlanetImportResult.conflict(1, ALDERAAN.getName()));
+        });
+
+        var request = post("/planets/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(objectMapper.writeValueAsString(TATOOINE) + "\n" + objectMapper.writeValueAsString(ALDERAAN) + "\n");
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].status").value("CONFLICT"));
+    }
+
+    @Test
+    void createPlanets_WithJsonArray_ReturnsResultPerRow() throws Exception {
+        when(planetImportService.createAll(any())).thenAnswer(invocation -> {
+            Iterator<Planet> planets = invocation.getArgument(0);
+            List<PlanetImportResult> results = new ArrayList<>();
+            planets.forEachRemaining(planet -> results.add(PlanetImportResult.created(results.size(), planet.getId())));
+            return results;
+        });
+
+        var request = post("/planets/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(PLANETS));
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)));
+    }
+
+    @Test
+    void createPlanets_WithMalformedRow_ReturnsCommittedRowsAndInvalidRow() throws Exception {
+        when(planetImportService.createAll(any())).thenAnswer(invocation -> {
+            Iterator<Planet> planets = invocation.getArgument(0);
+            assertThat(planets.next().getName()).isEqualTo(TATOOINE.getName());
+            assertThat(planets.hasNext()).isFalse();
+            return List.of(PlanetImportResult.created(0, 1L));
+        });
+
+        var request = post("/planets/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(objectMapper.writeValueAsString(TATOOINE) + "\n{\"name\": \n" + objectMapper.writeValueAsString(ALDERAAN));
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("INVALID"));
     }
 
     @Test
@@ -93,6 +222,57 @@ public class PlanetControllerTest {
                 .andExpect(jsonPath("$").value(PLANET));
     }
 
+    @Test
+    void getPlanet_WithFields_ReturnsOnlyRequestedFields() throws Exception {
+        when(planetService.get(1L)).thenReturn(Optional.of(TATOOINE));
+
+        mockMvc.perform(get("/planets/1").param("fields", "climate"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\": 1, \"climate\": \"arid\"}", true));
+
+        when(planetService.getByName(TATOOINE.getName())).thenReturn(Optional.of(TATOOINE));
+
+        mockMvc.perform(get("/planets/name/Tatooine").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\": 1, \"name\": \"Tatooine\"}", true));
+    }
+
+    @Test
+    void getPlanet_WithMatchingETag_ReturnsNotModified() throws Exception {
+        when(planetService.get(1L)).thenReturn(Optional.of(TATOOINE));
+
+        String eTag = mockMvc.perform(get("/planets/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(eTag).isEqualTo(PlanetETags.of(TATOOINE));
+
+        mockMvc.perform(get("/planets/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/planets/1").header(HttpHeaders.IF_NONE_MATCH, PlanetETags.of(ALDERAAN)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getPlanet_WithCborAccept_ReturnsCbor() throws Exception {
+        when(planetService.get(1L)).thenReturn(Optional.of(TATOOINE));
+
+        byte[] body = mockMvc.perform(get("/planets/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, Matchers.containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(new ObjectMapper(new CBORFactory()).readValue(body, Planet.class)).isEqualTo(TATOOINE);
+
+        mockMvc.perform(get("/planets/1").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+    }
+
     @Test
     void getPlanet_ByUnexistingId_ReturnsNotFound() throws Exception {
         when(planetService.get(anyLong())).thenReturn(Optional.empty());
@@ -124,6 +304,78 @@ public class PlanetControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getFacets_ReturnsCountsFromService() throws Exception {
+        PlanetFacetCount desert = new PlanetFacetCount("desert", "arid", 2);
+        when(planetService.facets()).thenReturn(new PlanetFacets(2, new TreeMap<>(Map.of("desert", 2L)),
+                new TreeMap<>(Map.of("arid", 2L)), List.of(desert)));
+
+        mockMvc.perform(get("/planets/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.terrain.desert").value(2))
+                .andExpect(jsonPath("$.climate.arid").value(2))
+                .andExpect(jsonPath("$.terrainClimate[0].terrain").value("desert"))
+                .andExpect(jsonPath("$.terrainClimate[0].climate").value("arid"))
+                .andExpect(jsonPath("$.terrainClimate[0].count").value(2));
+
+        verify(planetService, never()).list(any(), any());
+    }
+
+    @Test
+    void searchPlanets_ReturnsRankedHits() throws Exception {
+        when(planetService.search("tat", 5)).thenReturn(List.of(
+                new PlanetSearchHit(TATOOINE.getId(), TATOOINE.getName(), PlanetSearchHit.Match.PREFIX, 0.375)));
+
+        mockMvc.perform(get("/planets/search").param("q", "tat").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(TATOOINE.getId()))
+                .andExpect(jsonPath("$[0].name").value(TATOOINE.getName()))
+                .andExpect(jsonPath("$[0].match").value("PREFIX"));
+    }
+
+    @Test
+    void searchPlanets_WithBlankQueryOrInvalidLimit_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/planets/search")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/planets/search").param("q", " ")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/planets/search").param("q", "tat").param("limit", "0")).andExpect(status().isBadRequest());
+
+        verifyNoInteractions(planetService);
+    }
+
+    @Test
+    void lookupPlanets_ReturnsPlanetsAndMissingKeys() throws Exception {
+        when(planetService.lookup(List.of(TATOOINE.getId(), 99L), List.of("Hoth")))
+                .thenReturn(new PlanetLookupResult(List.of(TATOOINE), List.of(99L), List.of("Hoth")));
+
+        var request = post("/planets/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new PlanetLookupRequest(List.of(TATOOINE.getId(), 99L), List.of("Hoth"))));
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.planets", hasSize(1)))
+                .andExpect(jsonPath("$.planets[0].name").value(TATOOINE.getName()))
+                .andExpect(jsonPath("$.missingIds[0]").value(99))
+                .andExpect(jsonPath("$.missingNames[0]").value("Hoth"));
+    }
+
+    @Test
+    void lookupPlanets_WithoutKeysOrTooManyKeys_ReturnsBadRequest() throws Exception {
+        List<Long> tooMany = LongStream.rangeClosed(1, PlanetController.MAX_LOOKUP_KEYS + 1).boxed().toList();
+
+        mockMvc.perform(post("/planets/lookup").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/planets/lookup").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", tooMany))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/planets/lookup").contentType(MediaType.APPLICATION_JSON).content("{\"ids\": [1, null]}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verifyNoInteractions(planetService);
+    }
+
     @Test
     void listPlanets_ReturnsFilteredPlanets() throws Exception {
         when(planetService.list(null, null)).thenReturn(PLANETS);
@@ -144,6 +396,25 @@ public class PlanetControllerTest {
                 .andExpect(jsonPath("$[0]").value(TATOOINE));
     }
 
+    @Test
+    void listPlanets_WithMatchingETag_ReturnsNotModifiedWithoutLoadingPlanets() throws Exception {
+        when(planetService.listFingerprint(null, TATOOINE.getClimate())).thenReturn("1:1:1");
+        String eTag = PlanetETags.ofList(null, TATOOINE.getClimate(), null, "1:1:1");
+
+        mockMvc.perform(get("/planets?climate=" + TATOOINE.getClimate()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL));
+
+        verify(planetService, never()).list(any(), any());
+
+        when(planetService.listFingerprint(null, TATOOINE.getClimate())).thenReturn("2:4:5");
+
+        mockMvc.perform(get("/planets?climate=" + TATOOINE.getClimate()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, PlanetETags.ofList(null, TATOOINE.getClimate(), null, "2:4:5")));
+    }
+
     @Test
     void listPlanets_ReturnsNoPlanets() throws Exception {
         when(planetService.list(anyString(), anyString())).thenReturn(Collections.emptyList());
@@ -155,8 +426,114 @@ public class PlanetControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    void listPlanets_WithLimit_ReturnsPageAndNextLink() throws Exception {
+        when(planetService.list(null, null, null, 2)).thenReturn(List.of(TATOOINE, ALDERAAN));
+        when(planetService.list(null, null, ALDERAAN.getId(), 2)).thenReturn(List.of(YAVINIV));
+
+        mockMvc.perform(get("/planets?limit=2").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(HttpHeaders.LINK, "<http://localhost/planets?after=2&limit=2>; rel=\"next\""));
+
+        mockMvc.perform(get("/planets?after=2&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]").value(YAVINIV))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void listPlanets_WithFields_ReturnsOnlyRequestedFields() throws Exception {
+        Planet tatooine = Planet.builder().id(TATOOINE.getId()).name(TATOOINE.getName()).build();
+        when(planetService.list(null, null, EnumSet.of(PlanetField.NAME))).thenReturn(List.of(tatooine));
+        when(planetService.listFingerprint(null, null)).thenReturn("1:1:1");
+
+        mockMvc.perform(get("/planets").param("fields", "Name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(TATOOINE.getId()))
+                .andExpect(jsonPath("$[0].name").value(TATOOINE.getName()))
+                .andExpect(jsonPath("$[0].climate").doesNotExist())
+                .andExpect(jsonPath("$[0].terrain").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG,
+                        PlanetETags.ofList(null, null, EnumSet.of(PlanetField.NAME), "1:1:1")));
+
+        verify(planetService, never()).list(any(), any());
+    }
+
+    @Test
+    void listPlanets_PageWithFields_KeepsFieldsInNextLink() throws Exception {
+        when(planetService.list(null, null, null, 1, EnumSet.of(PlanetField.ID, PlanetField.TERRAIN)))
+                .thenReturn(List.of(Planet.builder().id(1L).terrain(TATOOINE.getTerrain()).build()));
+
+        mockMvc.perform(get("/planets?limit=1&fields=id,terrain"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].terrain").value(TATOOINE.getTerrain()))
+                .andExpect(jsonPath("$[0].name").doesNotExist())
+                .andExpect(header().string(HttpHeaders.LINK,
+                        "<http://localhost/planets?fields=id,terrain&after=1&limit=1>; rel=\"next\""));
+    }
+
+    @Test
+    void listPlanets_WithUnknownField_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/planets").param("fields", "id,population"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(planetService);
+    }
+
+    @Test
+    void listPlanets_WithInvalidLimit_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/planets?limit=0"))
+                .andExpect(status().isBadRequest());
+
+        verify(planetService, never()).list(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void listPlanets_ByTokens_ReturnsPageAndNextLink() throws Exception {
+        PlanetTokenFilter filter = new PlanetTokenFilter(List.of("desert", "!mountains"), List.of(), Match.ANY);
+        when(planetService.list(filter, null, 1)).thenReturn(List.of(TATOOINE));
+
+        mockMvc.perform(get("/planets?terrain=desert&terrain=!mountains&match=Any&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value(TATOOINE))
+                .andExpect(header().string(HttpHeaders.LINK,
+                        "<http://localhost/planets?terrain=desert&terrain=!mountains&match=Any&after=1&limit=1>; rel=\"next\""));
+    }
+
+    @Test
+    void listPlanets_ByTokensWithoutTokensOrWithUnknownMatch_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/planets?match=all"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/planets?terrain=desert&match=some"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(planetService);
+    }
+
+    @Test
+    void streamPlanets_ReturnsNdjson() throws Exception {
+        when(planetService.stream(null, null)).thenReturn(PLANETS.stream());
+
+        MvcResult result = mockMvc.perform(get("/planets").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines())
+                .map(line -> objectMapper.readValue(line, Planet.class))
+                .containsExactlyElementsOf(PLANETS);
+    }
+
     @Test
     void removePlanet_WithExistingId_ReturnsNoContent() throws Exception {
+        when(planetService.remove(1L)).thenReturn(true);
+
         var request = delete("/planets/1");
 
         mockMvc.perform(request).andExpect(status().isNoContent());
@@ -166,11 +543,122 @@ public class PlanetControllerTest {
 
     @Test
     void removePlanet_WithUnexistingId_ReturnsNotFound() throws Exception {
-        doThrow(new EmptyResultDataAccessException(1)).when(planetService).remove(1L);
+        when(planetService.remove(1L)).thenReturn(false);
 
         var request = delete("/planets/1");
 
         mockMvc.perform(request)
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void removePlanets_ByIds_ReturnsRemovedCount() throws Exception {
+        when(planetService.removeAll(List.of(1L, 2L, 3L))).thenReturn(2);
+
+        mockMvc.perform(delete("/planets?ids=1,2,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.removed").value(2));
+    }
+
+    @Test
+    void removePlanets_ByFilter_ReturnsRemovedCount() throws Exception {
+        when(planetService.removeAll(TATOOINE.getTerrain(), null)).thenReturn(1);
+
+        mockMvc.perform(delete("/planets?terrain=" + TATOOINE.getTerrain()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.removed").value(1));
+    }
+
+    @Test
+    void removePlanets_WithoutCriteria_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(delete("/planets"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/planets?ids=1&terrain=desert"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(planetService);
+    }
+
+    @Test
+    void streamChanges_SinceSequence_SendsChangesUntilReset() throws Exception {
+        PlanetChange created = PlanetChange.created(TATOOINE);
+        ReflectionTestUtils.setField(created, "seq", 6L);
+        when(changeLog.after(5L, 0)).thenReturn(Optional.of(List.of()));
+        when(changeLog.after(eq(5L), anyInt())).thenReturn(Optional.of(List.of(created)));
+        when(changeLog.after(eq(6L), anyInt())).thenReturn(Optional.empty());
+        when(changeLog.lastSeq()).thenReturn(20_000L);
+
+        MvcResult result = mockMvc.perform(get("/planets/changes?since=5").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(content().string(Matchers.containsString("id:6\nevent:created\ndata:{\"seq\":6,")))
+                .andExpect(content().string(Matchers.containsString("event:reset\ndata:{\"seq\":20000}")));
+    }
+
+    @Test
+    void streamChanges_AfterEvictedSequence_ReturnsGone() throws Exception {
+        when(changeLog.after(5L, 0)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/planets/changes").header("Last-Event-ID", 5).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    void replacePlanet_WithMatchingIfMatch_ReturnsUpdatedPlanet() throws Exception {
+        Planet current = Planet.builder().id(1L).name("Tatooine").climate("arid").terrain("desert").version(0L).build();
+        Planet updated = Planet.builder().id(1L).name("Tatooine").climate("hot").terrain("desert").version(1L).build();
+        when(planetService.replace(eq(1L), any(Planet.class), any())).thenAnswer(invocation ->
+                invocation.<Predicate<Planet>>getArgument(2).test(current) ? PlanetUpdateResult.updated(updated)
+                        : PlanetUpdateResult.preconditionFailed());
+
+        String body = objectMapper.writeValueAsString(updated);
+
+        mockMvc.perform(put("/planets/1").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.IF_MATCH, PlanetETags.of(current)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, PlanetETags.of(updated)))
+                .andExpect(jsonPath("$.climate").value("hot"))
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put("/planets/1").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.IF_MATCH, PlanetETags.of(updated)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void replacePlanet_WithUnexistingId_ReturnsNotFound() throws Exception {
+        when(planetService.replace(eq(99L), any(Planet.class), isNull())).thenReturn(PlanetUpdateResult.notFound());
+
+        mockMvc.perform(put("/planets/99").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(PLANET)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patchPlanet_WithBlankField_ReturnsUnprocessableEntity() throws Exception {
+        mockMvc.perform(patch("/planets/1").contentType("application/merge-patch+json").content("{\"name\": \" \"}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verifyNoInteractions(planetService);
+    }
+
+    @Test
+    void upsertPlanet_WithNewName_ReturnsCreated() throws Exception {
+        when(planetService.upsert(eq(PLANET.getName()), any(Planet.class), isNull()))
+                .thenReturn(PlanetUpdateResult.created(PLANET));
+
+        mockMvc.perform(put("/planets/name/" + PLANET.getName()).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(PLANET)))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+
+        mockMvc.perform(put("/planets/name/Hoth").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(PLANET)))
+                .andExpect(status().isBadRequest());
+    }
 }
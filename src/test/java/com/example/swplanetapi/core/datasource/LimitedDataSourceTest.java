@@ -0,0 +1,52 @@
+package com.example.swplanetapi.core.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class LimitedDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+
+    private final LimitedDataSource sut = new LimitedDataSource(target, 1, Duration.ofMillis(50));
+
+    @Test
+    void getConnection_WhenPermitsExhausted_ThrowsTransientException() throws SQLException {
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+
+        sut.getConnection();
+
+        assertThatThrownBy(sut::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+    }
+
+    @Test
+    void getConnection_AfterClose_ReleasesPermitOnce() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+
+        Connection first = sut.getConnection();
+        first.close();
+        first.close();
+
+        assertThat(sut.getAvailablePermits()).isEqualTo(1);
+        verify(connection, atLeastOnce()).close();
+        sut.getConnection();
+        assertThat(sut.getAvailablePermits()).isZero();
+    }
+
+    @Test
+    void getConnection_WhenTargetFails_ReleasesPermit() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThatThrownBy(sut::getConnection).hasMessage("down");
+        assertThat(sut.getAvailablePermits()).isEqualTo(1);
+    }
+}
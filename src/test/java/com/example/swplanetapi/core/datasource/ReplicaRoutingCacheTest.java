@@ -0,0 +1,74 @@
+package com.example.swplanetapi.core.datasource;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * The primary and replica pair of {@link ReplicaRoutingTest}, with the Hibernate caches on: what the replica answers
+ * must never be cached for later requests.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-cache-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "planet.datasource.routing.enabled=true",
+        "planet.datasource.routing.replicas[0].url=" + ReplicaRoutingTest.REPLICA_URL
+})
+@AutoConfigureMockMvc
+public class ReplicaRoutingCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate replica = new JdbcTemplate(ReplicaRoutingTest.replicaDataSource());
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void beforeEach() {
+        Flyway.configure().dataSource(replica.getDataSource()).locations("classpath:db/migration/h2").load().migrate();
+        replica.update("DELETE FROM planet");
+        replica.update("INSERT INTO planet (name, climate, terrain) VALUES ('Hoth', 'frozen', 'tundra')");
+        primary.update("DELETE FROM planet");
+        primary.update("INSERT INTO planet (name, climate, terrain) VALUES ('Tatooine', 'arid', 'desert')");
+        entityManagerFactory.getCache().evictAll();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictQueryRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void replicaReads_AreNotCached() throws Exception {
+        mockMvc.perform(get("/planets?limit=10")).andExpect(jsonPath("$[0].name").value("Hoth"));
+
+        assertThat(statistics.getQueryCachePutCount()).isZero();
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+
+        // A client reading from the primary is not answered with what the replica returned
+        mockMvc.perform(get("/planets?limit=10").cookie(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "1")))
+                .andExpect(jsonPath("$[0].name").value("Tatooine"));
+
+        assertThat(statistics.getQueryCachePutCount()).isPositive();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.swplanetapi.core.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+
+    private final DataSource firstReplica = mock(DataSource.class);
+
+    private final DataSource secondReplica = mock(DataSource.class);
+
+    private final Connection primaryConnection = mock(Connection.class);
+
+    private final Connection firstConnection = mock(Connection.class);
+
+    private final Connection secondConnection = mock(Connection.class);
+
+    private ReplicaDataSources replicas;
+
+    private ReplicaRoutingDataSource sut;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(firstReplica.getConnection()).thenReturn(firstConnection);
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        pools.put("replica-0", firstReplica);
+        pools.put("replica-1", secondReplica);
+        replicas = new ReplicaDataSources(pools);
+        sut = new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @AfterEach
+    void afterEach() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.setPrimaryOnly(false);
+    }
+
+    @Test
+    void getConnection_InReadWriteTransaction_UsesPrimary() throws SQLException {
+        assertThat(sut.getConnection()).isSameAs(primaryConnection);
+
+        verifyNoInteractions(firstReplica, secondReplica);
+    }
+
+    @Test
+    void getConnection_InReadOnlyTransaction_AlternatesReplicas() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(sut.getConnection()).isSameAs(firstConnection);
+        assertThat(sut.getConnection()).isSameAs(secondConnection);
+        assertThat(sut.getConnection()).isSameAs(firstConnection);
+    }
+
+    @Test
+    void getConnection_AfterClientWrite_UsesPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRoutingDataSource.setPrimaryOnly(true);
+
+        assertThat(sut.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void readFromPrimary_UsesPrimaryOnlyWhileItRuns() {
+        assertThat(ReplicaRoutingDataSource.readFromPrimary(ReplicaRoutingDataSource::isPrimaryOnly)).isTrue();
+        assertThat(ReplicaRoutingDataSource.isPrimaryOnly()).isFalse();
+
+        // Within a request that already reads from the primary, it stays that way afterwards
+        ReplicaRoutingDataSource.setPrimaryOnly(true);
+        ReplicaRoutingDataSource.readFromPrimary(ReplicaRoutingDataSource::isPrimaryOnly);
+        assertThat(ReplicaRoutingDataSource.isPrimaryOnly()).isTrue();
+    }
+
+    @Test
+    void getConnection_WhenReplicaFails_FallsBackUntilHealthy() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("down"));
+        when(secondReplica.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThat(sut.getConnection()).isSameAs(primaryConnection);
+        assertThat(sut.getConnection()).isSameAs(primaryConnection);
+        assertThat(replicas.getHealthyCount()).isZero();
+        assertThat(sut.getConnection()).isSameAs(primaryConnection);
+        verify(firstReplica, times(1)).getConnection();
+
+        doReturn(firstConnection).when(firstReplica).getConnection();
+        when(firstConnection.isValid(anyInt())).thenReturn(true);
+        replicas.checkHealth();
+
+        assertThat(replicas.getHealthyCount()).isEqualTo(1);
+        assertThat(sut.getConnection()).isSameAs(firstConnection);
+    }
+}
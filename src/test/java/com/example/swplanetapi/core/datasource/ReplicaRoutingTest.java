@@ -0,0 +1,115 @@
+package com.example.swplanetapi.core.datasource;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static com.example.swplanetapi.PlanetConstants.TATOOINE;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Two local H2 databases standing in for a primary and a replica that never catches up, so it is visible which one
+ * answered.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "planet.datasource.routing.enabled=true",
+        "planet.datasource.routing.replicas[0].url=" + ReplicaRoutingTest.REPLICA_URL,
+        "planet.datasource.routing.read-your-writes=30s",
+        // The replica never catches up here, so a cached result would hide which database answered
+        "planet.cache.hibernate.enabled=false"
+})
+@AutoConfigureMockMvc
+public class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    private final JdbcTemplate replica = new JdbcTemplate(replicaDataSource());
+
+    @BeforeEach
+    void beforeEach() {
+        Flyway.configure().dataSource(replica.getDataSource()).locations("classpath:db/migration/h2").load().migrate();
+        replica.update("DELETE FROM planet");
+        replica.update("INSERT INTO planet (name, climate, terrain) VALUES ('Hoth', 'frozen', 'tundra')");
+        primary.update("DELETE FROM planet");
+    }
+
+    @Test
+    void readOnlyRequests_AreServedByReplica() throws Exception {
+        primary.update("INSERT INTO planet (name, climate, terrain) VALUES ('Tatooine', 'arid', 'desert')");
+
+        mockMvc.perform(get("/planets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Hoth"));
+
+        mockMvc.perform(get("/planets?limit=10&fields=name"))
+                .andExpect(jsonPath("$[0].name").value("Hoth"));
+    }
+
+    @Test
+    void readsAfterWrite_AreServedByPrimaryForSameClient() throws Exception {
+        Planet planet = Planet.builder().name(TATOOINE.getName()).climate(TATOOINE.getClimate())
+                .terrain(TATOOINE.getTerrain()).build();
+
+        Cookie cookie = mockMvc.perform(post("/planets").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(planet)))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().maxAge(ReadYourWritesFilter.COOKIE_NAME, 30))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+        mockMvc.perform(get("/planets").cookie(cookie))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value(TATOOINE.getName()));
+
+        mockMvc.perform(get("/planets"))
+                .andExpect(jsonPath("$[0].name").value("Hoth"));
+    }
+
+    @Test
+    void lookups_AreServedByPrimary() throws Exception {
+        primary.update("INSERT INTO planet (name, climate, terrain) VALUES ('Alderaan', 'temperate', 'grasslands')");
+
+        // What they read goes into the planet cache, so it must not come from a replica
+        mockMvc.perform(get("/planets/name/Alderaan")).andExpect(status().isOk());
+        mockMvc.perform(get("/planets/name/Hoth")).andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/planets/lookup").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"names\":[\"Alderaan\",\"Hoth\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.planets[0].name").value("Alderaan"))
+                .andExpect(jsonPath("$.missingNames[0]").value("Hoth"))
+                // A lookup is a read, so it does not send the client's reads to the primary
+                .andExpect(cookie().doesNotExist(ReadYourWritesFilter.COOKIE_NAME));
+    }
+
+    static DataSource replicaDataSource() {
+        return new DriverManagerDataSource(REPLICA_URL, "sa", "");
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.swplanetapi.core.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void tryAcquire_UpToShareOfLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(4, 1, 4, 1.5);
+
+        assertThat(limit.tryAcquire(0.5)).isTrue();
+        assertThat(limit.tryAcquire(0.5)).isTrue();
+        assertThat(limit.tryAcquire(0.5)).isFalse();
+        assertThat(limit.tryAcquire(1)).isTrue();
+        assertThat(limit.tryAcquire(1)).isTrue();
+        assertThat(limit.tryAcquire(1)).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(4);
+
+        limit.releaseIgnored();
+
+        assertThat(limit.tryAcquire(1)).isTrue();
+    }
+
+    @Test
+    void release_SteadyLatencyUnderLoad_GrowsLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100, 1.5);
+
+        saturate(limit, FAST, 2000);
+
+        assertThat(limit.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void release_RisingLatency_ShrinksLimitUntilItIsTheNewBaseline() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100, 1.5);
+        saturate(limit, FAST, 2000);
+        int before = limit.getLimit();
+
+        saturate(limit, SLOW, 200);
+
+        assertThat(limit.getLimit()).isLessThan(before / 2);
+
+        // Overloaded at the higher latency: stays down
+        saturate(limit, SLOW, 2000);
+
+        assertThat(limit.getLimit()).isLessThan(before / 2);
+
+        // The database got slower rather than busier: once calls no longer queue it is the new baseline
+        for (int i = 0; i < 2000; i++) {
+            limit.tryAcquire(1);
+            limit.release(SLOW);
+        }
+        saturate(limit, SLOW, 2000);
+
+        assertThat(limit.getLimit()).isGreaterThan(before / 2);
+    }
+
+    @Test
+    void release_LimitNotInUse_KeepsLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100, 1.5);
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire(1);
+            limit.release(FAST);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void releaseDropped_BacksOffToMin() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 2, 100, 1.5);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire(1);
+            limit.releaseDropped();
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    /**
+     * Keeps every slot of the limit taken while {@code calls} calls complete with the given latency.
+     */
+    private static void saturate(AdaptiveLimit limit, long latency, int calls) {
+        while (limit.tryAcquire(1)) {
+        }
+        for (int i = 0; i < calls; i++) {
+            limit.release(latency);
+            while (limit.tryAcquire(1)) {
+            }
+        }
+        while (limit.getInFlight() > 0) {
+            limit.releaseIgnored();
+        }
+    }
+}
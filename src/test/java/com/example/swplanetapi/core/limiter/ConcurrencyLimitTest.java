@@ -0,0 +1,145 @@
+package com.example.swplanetapi.core.limiter;
+
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lookups by id are held in the repository until the test releases them, so the read limit fills up while the
+ * rest of the application runs on H2.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrency-limit;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "planet.cache.enabled=false",
+        "planet.limiter.read.initial=4",
+        "planet.limiter.read.min=4",
+        "planet.limiter.read.max=4",
+        "planet.limiter.list-share=0.5",
+        "planet.limiter.retry-after=2s"
+})
+@AutoConfigureMockMvc
+public class ConcurrencyLimitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private PlanetRepository planetRepository;
+
+    private final CountDownLatch slow = new CountDownLatch(1);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void afterEach() {
+        slow.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void readLimitReached_ShedsListsFirstThenLookups() throws Exception {
+        doAnswer(invocation -> {
+            slow.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        }).when(planetRepository).findById(anyLong());
+        double rejectedLists = rejected("list");
+        double rejectedLookups = rejected("lookup");
+        // Different ids: lookups of the same id would share one query
+        List<Future<Integer>> lookups = new ArrayList<>();
+        lookups.add(lookup(101));
+        lookups.add(lookup(102));
+        awaitInFlight(2);
+
+        mockMvc.perform(get("/planets"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+
+        lookups.add(lookup(103));
+        lookups.add(lookup(104));
+        awaitInFlight(4);
+
+        mockMvc.perform(get("/planets/105"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+        mockMvc.perform(post("/planets").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Hoth\",\"climate\":\"frozen\",\"terrain\":\"tundra\"}"))
+                .andExpect(status().isCreated());
+
+        slow.countDown();
+        for (Future<Integer> lookup : lookups) {
+            assertThat(lookup.get(10, TimeUnit.SECONDS)).isEqualTo(404);
+        }
+        assertThat(rejected("list")).isEqualTo(rejectedLists + 1);
+        assertThat(rejected("lookup")).isEqualTo(rejectedLookups + 1);
+        assertThat(meterRegistry.get("planet.limiter.in.flight").tag("limit", "read").gauge().value()).isZero();
+        mockMvc.perform(get("/planets")).andExpect(status().isOk());
+    }
+
+    @Test
+    void readLimitReached_ShedsStreamsAsLists() throws Exception {
+        doAnswer(invocation -> {
+            slow.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        }).when(planetRepository).findById(anyLong());
+        double rejectedLists = rejected("list");
+        Future<Integer> first = lookup(101);
+        Future<Integer> second = lookup(102);
+        awaitInFlight(2);
+
+        mockMvc.perform(get("/planets").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isServiceUnavailable());
+        assertThat(rejected("list")).isEqualTo(rejectedLists + 1);
+
+        slow.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(404);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(404);
+        MvcResult stream = mockMvc.perform(get("/planets").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(stream)).andExpect(status().isOk());
+        // Released once the stream is written
+        awaitInFlight(0);
+    }
+
+    private Future<Integer> lookup(long planetId) {
+        return executor.submit(() -> mockMvc.perform(get("/planets/" + planetId)).andReturn().getResponse().getStatus());
+    }
+
+    private double rejected(String workload) {
+        return meterRegistry.get("planet.limiter.rejected").tag("workload", workload).functionCounter().count();
+    }
+
+    private void awaitInFlight(int inFlight) {
+        await().atMost(10, TimeUnit.SECONDS).until(() ->
+                meterRegistry.get("planet.limiter.in.flight").tag("limit", "read").gauge().value() == inFlight);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.swplanetapi.core.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("lazy")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lazy-initialization;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureMockMvc
+public class LazyInitializationTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void lazyProfile_LoadsIndexesAtStartupAndCreatesControllerOnFirstRequest() throws Exception {
+        assertThat(beanFactory.containsSingleton("planetSearchIndex")).isTrue();
+        assertThat(beanFactory.containsSingleton("planetFacetCounter")).isTrue();
+        assertThat(beanFactory.containsSingleton("planetController")).isFalse();
+
+        mockMvc.perform(get("/planets/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+
+        assertThat(beanFactory.containsSingleton("planetController")).isTrue();
+    }
+}
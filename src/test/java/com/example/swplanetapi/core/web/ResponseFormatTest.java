@@ -0,0 +1,110 @@
+package com.example.swplanetapi.core.web;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.service.PlanetService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Content negotiation and compression as a client sees them, through the embedded server.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:response-format;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+public class ResponseFormatTest {
+
+    private static final int PLANETS = 100;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlanetService planetService;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate.update("DELETE FROM planet");
+        IntStream.rangeClosed(1, PLANETS).forEach(i -> planetService.create(
+                Planet.builder().name("Planet " + i).climate("arid").terrain("desert").build()));
+    }
+
+    @Test
+    void listPlanets_AsGzippedCbor_ReturnsAllPlanets() throws Exception {
+        HttpResponse<InputStream> sut = get("/planets", MediaType.APPLICATION_CBOR_VALUE);
+
+        assertThat(sut.statusCode()).isEqualTo(200);
+        assertThat(sut.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(MediaType.APPLICATION_CBOR_VALUE);
+        assertThat(sut.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+
+        List<Planet> planets;
+        try (InputStream body = new GZIPInputStream(sut.body())) {
+            planets = new ObjectMapper(new CBORFactory()).readValue(body, new TypeReference<>() {
+            });
+        }
+        assertThat(planets).hasSize(PLANETS).first().extracting(Planet::getName).isEqualTo("Planet 1");
+    }
+
+    @Test
+    void getPlanet_BelowThreshold_IsNotCompressed() throws Exception {
+        Long planetId = planetService.getByName("Planet 1").orElseThrow().getId();
+
+        HttpResponse<InputStream> sut = get("/planets/" + planetId, BinaryFormatConfiguration.APPLICATION_SMILE_VALUE);
+
+        assertThat(sut.statusCode()).isEqualTo(200);
+        assertThat(sut.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(BinaryFormatConfiguration.APPLICATION_SMILE_VALUE);
+        assertThat(sut.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+        try (InputStream body = sut.body()) {
+            // Smile documents start with the ":)\n" header
+            assertThat(body.readNBytes(3)).isEqualTo(new byte[]{':', ')', '\n'});
+        }
+    }
+
+    @Test
+    void streamPlanets_IsCompressedAndComplete() throws Exception {
+        HttpResponse<InputStream> sut = get("/planets", MediaType.APPLICATION_NDJSON_VALUE);
+
+        assertThat(sut.statusCode()).isEqualTo(200);
+        assertThat(sut.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        try (InputStream body = new GZIPInputStream(sut.body())) {
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8).lines()).hasSize(PLANETS);
+        }
+    }
+
+    private HttpResponse<InputStream> get(String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT, accept)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.swplanetapi.domain.repository;
 
 import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetField;
 import org.h2.table.Plan;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
@@ -8,18 +9,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.data.domain.Example;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static com.example.swplanetapi.PlanetConstants.*;
 import static org.assertj.core.api.Assertions.*;
 import static org.assertj.core.api.InstanceOfAssertFactories.LIST;
 
-@DataJpaTest
+// Every test rolls back, including the rows loaded from its @Sql scripts, which a second-level cache would keep
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
 public class PlanetRepositoryTest {
 
     @Autowired
@@ -102,10 +108,10 @@ public class PlanetRepositoryTest {
     @Sql(scripts = "/import_planets.sql")
     @Test
     void listPlanets_ReturnsFilteredPlanets() {
-        Example<Planet> queryWithoutFilters = QueryBuilder.makeQuery(Planet.builder()
+        Specification<Planet> queryWithoutFilters = QueryBuilder.makeQuery(Planet.builder()
                 .build());
 
-        Example<Planet> queryWithFilters = QueryBuilder.makeQuery(Planet.builder()
+        Specification<Planet> queryWithFilters = QueryBuilder.makeQuery(Planet.builder()
                 .terrain(TATOOINE.getTerrain())
                 .climate(TATOOINE.getClimate())
                 .build());
@@ -118,15 +124,162 @@ public class PlanetRepositoryTest {
         assertThat(responseWithFilters.get(0)).isEqualTo(TATOOINE);
     }
 
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void listPlanets_WithFiltersInAnotherCase_ReturnsFilteredPlanets() {
+        Specification<Planet> query = QueryBuilder.makeQuery(Planet.builder()
+                .terrain(TATOOINE.getTerrain().toUpperCase())
+                .climate(TATOOINE.getClimate().toUpperCase())
+                .build());
+
+        List<Planet> response = planetRepository.findAll(query);
+
+        assertThat(response).hasSize(1);
+        assertThat(response.get(0)).isEqualTo(TATOOINE);
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void listPlanets_AfterCursor_ReturnsNextPage() {
+        Specification<Planet> query = QueryBuilder.makeQuery(Planet.builder().build());
+
+        List<Planet> firstPage = planetRepository.findAllAfter(query, null, 2);
+        List<Planet> secondPage = planetRepository.findAllAfter(query, firstPage.get(1).getId(), 2);
+
+        assertThat(firstPage).containsExactly(TATOOINE, ALDERAAN);
+        assertThat(secondPage).containsExactly(YAVINIV);
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void listPlanets_AfterCursorWithFilters_ReturnsFilteredPage() {
+        Specification<Planet> query = QueryBuilder.makeQuery(Planet.builder().climate(YAVINIV.getClimate()).build());
+
+        assertThat(planetRepository.findAllAfter(query, null, 10)).containsExactly(YAVINIV);
+        assertThat(planetRepository.findAllAfter(query, YAVINIV.getId(), 10)).isEmpty();
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void listPlanets_WithFields_SelectsOnlyRequestedColumns() {
+        Specification<Planet> query = QueryBuilder.makeQuery(Planet.builder().climate(ALDERAAN.getClimate()).build());
+
+        List<Planet> sut = planetRepository.findAllAfter(query, EnumSet.of(PlanetField.NAME), null, 10);
+
+        assertThat(sut).hasSize(1);
+        assertThat(sut.get(0).getId()).isEqualTo(ALDERAAN.getId());
+        assertThat(sut.get(0).getName()).isEqualTo(ALDERAAN.getName());
+        assertThat(sut.get(0).getClimate()).isNull();
+        assertThat(sut.get(0).getTerrain()).isNull();
+        assertThat(testEntityManager.getEntityManager().contains(sut.get(0))).isFalse();
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void listPlanets_WithFieldsAfterCursor_ReturnsNextPage() {
+        Specification<Planet> query = QueryBuilder.makeQuery(Planet.builder().build());
+
+        List<Planet> sut = planetRepository.findAllAfter(query, EnumSet.of(PlanetField.TERRAIN), TATOOINE.getId(), 1);
+
+        assertThat(sut).extracting(Planet::getId, Planet::getTerrain)
+                .containsExactly(tuple(ALDERAAN.getId(), ALDERAAN.getTerrain()));
+    }
+
     @Test
     void listPlanets_ReturnsNoPlanets() {
-        Example<Planet> query = QueryBuilder.makeQuery(Planet.builder().build());
+        Specification<Planet> query = QueryBuilder.makeQuery(Planet.builder().build());
 
         List<Planet> response = planetRepository.findAll(query);
 
         assertThat(response).isEmpty();
     }
 
+    @Test
+    void createPlanets_InBatch_ReturnsGeneratedIds() {
+        List<Long> ids = planetRepository.insertAll(List.of(TATOOINE, ALDERAAN));
+
+        assertThat(ids).hasSize(2).doesNotContainNull();
+        assertThat(testEntityManager.find(Planet.class, ids.get(0)).getName()).isEqualTo(TATOOINE.getName());
+        assertThat(testEntityManager.find(Planet.class, ids.get(1)).getName()).isEqualTo(ALDERAAN.getName());
+    }
+
+    @Test
+    void createPlanets_InBatchWithExistingName_ThrowsException() {
+        testEntityManager.persistFlushFind(PLANET);
+
+        assertThatThrownBy(() -> planetRepository.insertAll(List.of(TATOOINE, PLANET)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void findExistingNames_ReturnsOnlyExistingNames() {
+        Set<String> sut = planetRepository.findExistingNames(List.of(TATOOINE.getName(), "Hoth"));
+
+        assertThat(sut).containsExactly(TATOOINE.getName());
+    }
+
+    @Test
+    void findAllByIds_AcrossSeveralChunks_SkipsUnknownIds() {
+        List<Long> ids = new ArrayList<>(planetRepository.insertAll(IntStream.rangeClosed(1, 1500)
+                .mapToObj(i -> Planet.builder().name("Planet " + i).climate("arid").terrain("desert").build())
+                .toList()));
+        ids.add(Long.MAX_VALUE);
+
+        List<Planet> sut = planetRepository.findAllByIds(ids);
+
+        assertThat(sut).hasSize(1500).extracting(Planet::getId).doesNotHaveDuplicates().doesNotContain(Long.MAX_VALUE);
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void findAllByNames_ReturnsOnlyExistingPlanets() {
+        List<Planet> sut = planetRepository.findAllByNames(List.of(YAVINIV.getName(), "Hoth", TATOOINE.getName()));
+
+        assertThat(sut).extracting(Planet::getName).containsExactlyInAnyOrder(TATOOINE.getName(), YAVINIV.getName());
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void forEachName_VisitsEveryPlanetInIdOrder() {
+        List<Planet> sut = new ArrayList<>();
+
+        planetRepository.forEachName(sut::add);
+
+        assertThat(sut).extracting(Planet::getId, Planet::getName, Planet::getVersion, Planet::getTerrain).containsExactly(
+                tuple(TATOOINE.getId(), TATOOINE.getName(), 0L, null),
+                tuple(ALDERAAN.getId(), ALDERAAN.getName(), 0L, null),
+                tuple(YAVINIV.getId(), YAVINIV.getName(), 0L, null));
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void forEachPlanet_VisitsEveryPlanetInIdOrder() {
+        List<Planet> sut = new ArrayList<>();
+
+        planetRepository.forEachPlanet(sut::add);
+
+        assertThat(sut).extracting(Planet::getId, Planet::getName, Planet::getTerrain, Planet::getClimate, Planet::getVersion)
+                .containsExactly(
+                        tuple(TATOOINE.getId(), TATOOINE.getName(), TATOOINE.getTerrain(), TATOOINE.getClimate(), 0L),
+                        tuple(ALDERAAN.getId(), ALDERAAN.getName(), ALDERAAN.getTerrain(), ALDERAAN.getClimate(), 0L),
+                        tuple(YAVINIV.getId(), YAVINIV.getName(), YAVINIV.getTerrain(), YAVINIV.getClimate(), 0L));
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void forEachTerrainAndClimate_VisitsEveryPlanetInIdOrder() {
+        List<Planet> sut = new ArrayList<>();
+
+        planetRepository.forEachTerrainAndClimate(sut::add);
+
+        assertThat(sut).extracting(Planet::getId, Planet::getTerrain, Planet::getClimate, Planet::getVersion, Planet::getName)
+                .containsExactly(
+                        tuple(TATOOINE.getId(), TATOOINE.getTerrain(), TATOOINE.getClimate(), 0L, null),
+                        tuple(ALDERAAN.getId(), ALDERAAN.getTerrain(), ALDERAAN.getClimate(), 0L, null),
+                        tuple(YAVINIV.getId(), YAVINIV.getTerrain(), YAVINIV.getClimate(), 0L, null));
+    }
+
     @Test
     void removePlanet_WithExistinId_RemovesPlanetFromDatabase() {
         Planet planet = testEntityManager.persistFlushFind(PLANET);
@@ -138,8 +291,95 @@ public class PlanetRepositoryTest {
         assertThat(sut).isNull();
     }
 
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void removePlanets_ByIds_ReturnsRemovedCount() {
+        List<Long> sut = planetRepository.removeAll(List.of(TATOOINE.getId(), ALDERAAN.getId(), 99L));
+
+        assertThat(sut).containsExactlyInAnyOrder(TATOOINE.getId(), ALDERAAN.getId());
+        assertThat(planetRepository.findAll()).containsExactly(YAVINIV);
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void removePlanets_WithRepeatedIds_ReportsEachOnce() {
+        List<Long> sut = planetRepository.removeAll(List.of(TATOOINE.getId(), TATOOINE.getId()));
+
+        assertThat(sut).containsExactly(TATOOINE.getId());
+        assertThat(planetRepository.findAll()).containsExactlyInAnyOrder(ALDERAAN, YAVINIV);
+    }
+
+    @Test
+    void removePlanets_WithUnexistingIds_ReturnsZero() {
+        List<Long> sut = planetRepository.removeAll(List.of(1L));
+
+        assertThat(sut).isEmpty();
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void removePlanets_WithFilters_RemovesOnlyMatchingPlanets() {
+        List<Long> sut = planetRepository.removeAll(null, ALDERAAN.getClimate().toUpperCase());
+
+        assertThat(sut).containsExactly(ALDERAAN.getId());
+        assertThat(planetRepository.findAll()).containsExactlyInAnyOrder(TATOOINE, YAVINIV);
+        assertThat(planetRepository.removeAll(null, ALDERAAN.getClimate())).isEmpty();
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void fingerprint_ChangesWhenMatchingPlanetsChange() {
+        Specification<Planet> temperate = QueryBuilder.makeQuery(Planet.builder().climate(ALDERAAN.getClimate()).build());
+        Specification<Planet> arid = QueryBuilder.makeQuery(Planet.builder().climate(TATOOINE.getClimate()).build());
+
+        String temperateBefore = planetRepository.fingerprint(temperate);
+        String aridBefore = planetRepository.fingerprint(arid);
+
+        planetRepository.removeAll(List.of(TATOOINE.getId()));
+
+        assertThat(planetRepository.fingerprint(temperate)).isEqualTo(temperateBefore);
+        assertThat(planetRepository.fingerprint(arid)).isNotEqualTo(aridBefore);
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void updatePlanet_WithCurrentVersion_UpdatesAndIncrementsVersion() {
+        Planet changed = Planet.builder().id(TATOOINE.getId()).name("Jakku").climate("arid").terrain("desert").build();
+
+        assertThat(planetRepository.update(changed, 0)).isTrue();
+
+        assertThat(planetRepository.findCurrent(TATOOINE.getId())).hasValueSatisfying(planet -> {
+            assertThat(planet.getName()).isEqualTo("Jakku");
+            assertThat(planet.getVersion()).isEqualTo(1);
+        });
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void updatePlanet_WithStaleVersion_ReturnsFalse() {
+        Planet changed = Planet.builder().id(TATOOINE.getId()).name("Jakku").climate("arid").terrain("desert").build();
+        planetRepository.update(changed, 0);
+
+        assertThat(planetRepository.update(changed, 0)).isFalse();
+        assertThat(planetRepository.update(Planet.builder().id(99L).name("Hoth").climate("frozen").terrain("tundra")
+                .build(), 0)).isFalse();
+    }
+
+    @Sql(scripts = "/import_planets.sql")
+    @Test
+    void fingerprint_ChangesWhenMatchingPlanetIsUpdated() {
+        Specification<Planet> arid = QueryBuilder.makeQuery(Planet.builder().climate(TATOOINE.getClimate()).build());
+        String before = planetRepository.fingerprint(arid);
+
+        planetRepository.update(Planet.builder().id(TATOOINE.getId()).name("Jakku").climate(TATOOINE.getClimate())
+                .terrain(TATOOINE.getTerrain()).build(), 0);
+
+        assertThat(planetRepository.fingerprint(arid)).isNotEqualTo(before);
+    }
+
     @Test
-    void removePlanet_WithUnexistingId_ThrowsExcetpion() {
-        assertThatThrownBy(() -> planetRepository.deleteById(1L)).isInstanceOf(EmptyResultDataAccessException.class);
+    void removePlanet_WithUnexistingId_DoesNotThrowException() {
+        // Spring Data 3 ignores missing ids; PlanetService relies on removeAll's row count instead
+        assertThatCode(() -> planetRepository.deleteById(1L)).doesNotThrowAnyException();
     }
 }
@@ -0,0 +1,50 @@
+package com.example.swplanetapi.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongLongMapTest {
+
+    private final LongLongMap sut = new LongLongMap();
+
+    @Test
+    void putAndRemove_ManyKeys_BehavesLikeHashMap() {
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Few distinct keys, so removals often hit entries in the middle of a probe run
+            long key = random.nextInt(2_000) - 10;
+            if (random.nextInt(3) == 0) {
+                assertThat(sut.remove(key)).isEqualTo(expected.remove(key) != null);
+            } else {
+                sut.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+
+        assertThat(sut.size()).isEqualTo(expected.size());
+        for (long key = -10; key < 1_990; key++) {
+            assertThat(sut.containsKey(key)).isEqualTo(expected.containsKey(key));
+            assertThat(sut.get(key, Long.MIN_VALUE)).isEqualTo(expected.getOrDefault(key, Long.MIN_VALUE));
+        }
+    }
+
+    @Test
+    void remove_EveryKey_LeavesItEmpty() {
+        for (long key = 1; key <= 1_000; key++) {
+            sut.put(key, key);
+        }
+
+        for (long key = 1; key <= 1_000; key++) {
+            assertThat(sut.remove(key)).isTrue();
+        }
+
+        assertThat(sut.size()).isZero();
+        assertThat(sut.get(500, -1)).isEqualTo(-1);
+    }
+}
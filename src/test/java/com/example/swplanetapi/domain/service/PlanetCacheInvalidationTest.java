@@ -0,0 +1,159 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Second-level and query cache of one instance, kept fresh by invalidations that another instance, played here by a
+ * second {@link JdbcPlanetInvalidationChannel} on the same database, sends after changing a planet.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cache-invalidation;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "planet.cache.invalidation.channel=jdbc",
+        "planet.cache.invalidation.poll-interval=50ms"
+})
+public class PlanetCacheInvalidationTest {
+
+    @Autowired
+    private PlanetService planetService;
+
+    @Autowired
+    private PlanetRepository planetRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlanetCacheProperties properties;
+
+    @Autowired
+    private PlanetCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    private Statistics statistics;
+
+    private JdbcPlanetInvalidationChannel otherInstance;
+
+    private Planet planet;
+
+    @BeforeEach
+    void beforeEach(@Autowired EntityManagerFactory entityManagerFactory) {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        otherInstance = new JdbcPlanetInvalidationChannel(jdbcTemplate, objectMapper, properties);
+        planet = planetService.create(Planet.builder().name("Hoth").climate("frozen").terrain("tundra").build());
+    }
+
+    @AfterEach
+    void afterEach() {
+        planetService.remove(planet.getId());
+    }
+
+    @Test
+    void findById_ServedFromSecondLevelCache() {
+        planetRepository.findById(planet.getId());
+        statistics.clear();
+
+        assertThat(planetRepository.findById(planet.getId())).map(Planet::getName).contains("Hoth");
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void findByName_ServedFromQueryCache() {
+        planetRepository.findByName("Hoth");
+        statistics.clear();
+
+        assertThat(planetRepository.findByName("Hoth")).isPresent();
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void writeOnOtherInstance_EvictsCachedPlanet() {
+        assertThat(planetService.get(planet.getId())).isPresent();
+        assertThat(planetRepository.findByName("Hoth")).isPresent();
+
+        jdbcTemplate.update("UPDATE planet SET name = 'Echo Base' WHERE id = ?", planet.getId());
+        otherInstance.publish(new PlanetInvalidation("other", List.of(planet.getId()), List.of("Echo Base")));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(planetService.get(planet.getId())).map(Planet::getName).contains("Echo Base");
+            assertThat(planetRepository.findById(planet.getId())).map(Planet::getName).contains("Echo Base");
+            assertThat(planetRepository.findByName("Hoth")).isEmpty();
+        });
+    }
+
+    @Test
+    void invalidationCommittedOutOfOrder_IsStillDelivered() {
+        PlanetCacheProperties pollManually = new PlanetCacheProperties();
+        pollManually.getInvalidation().setPollInterval(Duration.ofHours(1));
+        pollManually.getInvalidation().setGapTimeout(Duration.ZERO);
+        List<String> received = new CopyOnWriteArrayList<>();
+        try (JdbcPlanetInvalidationChannel channel = new JdbcPlanetInvalidationChannel(jdbcTemplate, objectMapper,
+                pollManually)) {
+            channel.subscribe(invalidation -> received.add(invalidation.getOrigin()));
+            otherInstance.publish(new PlanetInvalidation("late", List.of(planet.getId()), List.of()));
+            Long late = jdbcTemplate.queryForObject("SELECT MAX(id) FROM planet_cache_invalidation", Long.class);
+            otherInstance.publish(new PlanetInvalidation("next", List.of(planet.getId()), List.of()));
+            // Its insert has taken the id but not committed yet
+            Map<String, Object> lateRow = jdbcTemplate.queryForMap(
+                    "SELECT payload, created_at FROM planet_cache_invalidation WHERE id = ?", late);
+            jdbcTemplate.update("DELETE FROM planet_cache_invalidation WHERE id = ?", late);
+
+            channel.poll();
+            assertThat(received).containsExactly("next");
+
+            jdbcTemplate.update("INSERT INTO planet_cache_invalidation (id, payload, created_at) VALUES (?, ?, ?)",
+                    late, lateRow.get("payload"), lateRow.get("created_at"));
+            channel.poll();
+            assertThat(received).containsExactly("next", "late");
+        }
+    }
+
+    @Test
+    void queryRunningDuringWrite_IsNotServedAfterwards() {
+        // The transaction starts before the write, like a query that is still running when it commits
+        transactionOperations.executeWithoutResult(status -> {
+            CompletableFuture.runAsync(() -> {
+                jdbcTemplate.update("UPDATE planet SET name = 'Echo Base' WHERE id = ?", planet.getId());
+                cacheInvalidator.receive(new PlanetInvalidation("other", List.of(planet.getId()), List.of("Echo Base")));
+            }).join();
+            planetRepository.findByName("Echo Base");
+        });
+        statistics.clear();
+
+        assertThat(planetRepository.findByName("Echo Base")).isPresent();
+
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.spi.MappingMetamodelImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.swplanetapi.PlanetConstants.TATOOINE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class PlanetCacheInvalidatorTest {
+
+    private static final String[] PLANET_SPACES = {"planet"};
+
+    private final PlanetInvalidationChannel channel = new LocalPlanetInvalidationChannel();
+
+    private final Node writer = new Node();
+
+    private final Node reader = new Node();
+
+    @BeforeEach
+    void beforeEach() {
+        writer.cacheInvalidator.afterSingletonsInstantiated();
+        reader.cacheInvalidator.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void invalidate_EvictsPlanetOnOtherInstances() {
+        reader.planetCache.get(TATOOINE.getId(), id -> Optional.of(TATOOINE));
+        reader.planetCache.getByName("Hoth", name -> Optional.empty());
+
+        writer.cacheInvalidator.invalidate(List.of(TATOOINE.getId()), List.of("Hoth"));
+
+        assertThat(reader.planetCache.get(TATOOINE.getId(), id -> Optional.empty())).isEmpty();
+        assertThat(reader.planetCache.getByName("Hoth", name -> Optional.of(TATOOINE))).contains(TATOOINE);
+        verify(reader.hibernateCache).evictEntityData(Planet.class, TATOOINE.getId());
+        // Cached planet queries are marked stale, not evicted
+        verify(reader.timestampsCache).invalidate(eq(PLANET_SPACES), same(reader.session));
+        verify(reader.session).close();
+        assertThat(reader.meterRegistry.get("planet.cache.invalidations").tag("direction", "received").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void invalidate_KeepsWriterEntries() {
+        writer.planetCache.put(TATOOINE);
+
+        writer.cacheInvalidator.invalidate(List.of(TATOOINE.getId()), List.of(TATOOINE.getName()));
+
+        assertThat(writer.planetCache.get(TATOOINE.getId(), id -> Optional.empty())).contains(TATOOINE);
+        // Only Hibernate's caches, which writes outside Hibernate leave stale
+        verify(writer.hibernateCache).evictEntityData(Planet.class, TATOOINE.getId());
+        verify(writer.timestampsCache).invalidate(eq(PLANET_SPACES), same(writer.session));
+        assertThat(writer.meterRegistry.get("planet.cache.invalidations").tag("direction", "received").counter().count())
+                .isZero();
+    }
+
+    @Test
+    void invalidate_WhenPublishFails_EvictsLocallyWithoutThrowing() {
+        PlanetInvalidationChannel down = mock(PlanetInvalidationChannel.class);
+        doThrow(new DataAccessResourceFailureException("Database down")).when(down).publish(any());
+        Node node = new Node(down);
+
+        node.cacheInvalidator.invalidate(List.of(TATOOINE.getId()), List.of(TATOOINE.getName()));
+
+        verify(node.hibernateCache).evictEntityData(Planet.class, TATOOINE.getId());
+        verify(node.timestampsCache).invalidate(eq(PLANET_SPACES), same(node.session));
+        assertThat(node.meterRegistry.get("planet.cache.invalidations").tag("direction", "failed").counter().count())
+                .isEqualTo(1);
+        assertThat(node.meterRegistry.get("planet.cache.invalidations").tag("direction", "sent").counter().count())
+                .isZero();
+    }
+
+    private class Node {
+
+        final PlanetCache planetCache = new PlanetCache(new PlanetCacheProperties());
+
+        final CacheImplementor hibernateCache = mock(CacheImplementor.class);
+
+        final TimestampsCache timestampsCache = mock(TimestampsCache.class);
+
+        final SharedSessionContractImplementor session = mock(SharedSessionContractImplementor.class,
+                withSettings().extraInterfaces(StatelessSession.class));
+
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        final PlanetCacheInvalidator cacheInvalidator;
+
+        Node() {
+            this(channel);
+        }
+
+        Node(PlanetInvalidationChannel channel) {
+            SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+            MappingMetamodelImplementor metamodel = mock(MappingMetamodelImplementor.class);
+            EntityPersister planetPersister = mock(EntityPersister.class);
+            when(sessionFactory.getCache()).thenReturn(hibernateCache);
+            when(hibernateCache.getTimestampsCache()).thenReturn(timestampsCache);
+            when(sessionFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+            when(sessionFactory.getMappingMetamodel()).thenReturn(metamodel);
+            when(metamodel.getEntityDescriptor(Planet.class)).thenReturn(planetPersister);
+            when(planetPersister.getPropertySpaces()).thenReturn(PLANET_SPACES);
+            when(sessionFactory.openStatelessSession()).thenReturn((StatelessSession) session);
+            cacheInvalidator = new PlanetCacheInvalidator(planetCache, sessionFactory, channel, meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetChangeLogTest {
+
+    @Mock
+    private PlanetChangeRepository changeRepository;
+
+    private PlanetChangeProperties properties;
+
+    @BeforeEach
+    void beforeEach() {
+        properties = new PlanetChangeProperties();
+        properties.setCapacity(3);
+    }
+
+    @Test
+    void poll_AppendsChangesInOrder() {
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findAfter(0L, Limit.of(1000))).thenReturn(changes(1, 2));
+
+        changeLog.poll();
+
+        assertThat(changeLog.lastSeq()).isEqualTo(2);
+        assertThat(changeLog.after(0, 10)).hasValueSatisfying(after ->
+                assertThat(after).extracting(PlanetChange::getSeq).containsExactly(1L, 2L));
+        assertThat(changeLog.after(1, 10)).hasValueSatisfying(after ->
+                assertThat(after).extracting(PlanetChange::getSeq).containsExactly(2L));
+        assertThat(changeLog.after(2, 10)).hasValue(List.of());
+    }
+
+    @Test
+    void after_EvictedSequence_ReturnsEmpty() {
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findAfter(0L, Limit.of(1000))).thenReturn(changes(1, 5));
+
+        changeLog.poll();
+
+        assertThat(changeLog.size()).isEqualTo(3);
+        assertThat(changeLog.after(1, 10)).isEmpty();
+        assertThat(changeLog.after(2, 10)).hasValueSatisfying(after ->
+                assertThat(after).extracting(PlanetChange::getSeq).containsExactly(3L, 4L, 5L));
+    }
+
+    @Test
+    void poll_WithHole_WaitsForGapTimeout() {
+        properties.setGapTimeout(Duration.ofHours(1));
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findAfter(0L, Limit.of(1000))).thenReturn(changes(1, 1));
+        when(changeRepository.findAfter(1L, Limit.of(1000))).thenReturn(changes(3, 3));
+
+        changeLog.poll();
+        changeLog.poll();
+
+        assertThat(changeLog.lastSeq()).isEqualTo(1);
+
+        properties.setGapTimeout(Duration.ZERO);
+        changeLog.poll();
+
+        assertThat(changeLog.lastSeq()).isEqualTo(3);
+    }
+
+    @Test
+    void poll_WithSeveralHoles_WaitsForThemTogether() {
+        properties.setGapTimeout(Duration.ofHours(1));
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findAfter(0L, Limit.of(1000))).thenReturn(changes(1, 1));
+        when(changeRepository.findAfter(1L, Limit.of(1000))).thenReturn(List.of(change(3), change(5)));
+        changeLog.poll();
+        changeLog.poll();
+
+        ReflectionTestUtils.setField(changeLog, "gapSince", Instant.now().minus(Duration.ofHours(2)));
+        changeLog.poll();
+
+        assertThat(changeLog.lastSeq()).isEqualTo(5);
+    }
+
+    @Test
+    void poll_SkippedChangeCommittedLate_ResetsFeed() {
+        properties.setGapTimeout(Duration.ZERO);
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findAfter(0L, Limit.of(1000))).thenReturn(changes(1, 1));
+        when(changeRepository.findAfter(1L, Limit.of(1000))).thenReturn(changes(3, 3));
+        when(changeRepository.findSeqIn(List.of(2L))).thenReturn(List.of(), List.of(2L));
+        changeLog.poll();
+        changeLog.poll();
+
+        assertThat(changeLog.lastSeq()).isEqualTo(3);
+        assertThat(changeLog.resets()).isZero();
+
+        changeLog.poll();
+        changeLog.poll();
+
+        assertThat(changeLog.resets()).isEqualTo(1);
+        assertThat(changeLog.after(1, 10)).isEmpty();
+        assertThat(changeLog.after(3, 10)).hasValue(List.of());
+        verify(changeRepository, times(2)).findSeqIn(any());
+    }
+
+    @Test
+    void poll_SkippedChangeOlderThanGapRecovery_IsNotLookedUp() {
+        properties.setGapTimeout(Duration.ZERO);
+        properties.setGapRecovery(Duration.ZERO);
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findAfter(0L, Limit.of(1000))).thenReturn(changes(1, 1));
+        when(changeRepository.findAfter(1L, Limit.of(1000))).thenReturn(changes(3, 3));
+        changeLog.poll();
+
+        changeLog.poll();
+
+        assertThat(changeLog.lastSeq()).isEqualTo(3);
+        verify(changeRepository, never()).findSeqIn(any());
+    }
+
+    @Test
+    void await_ReturnsOnceNewerChangeIsAppended() throws Exception {
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findAfter(anyLong(), any(Limit.class))).thenReturn(changes(1, 1));
+
+        assertThat(changeLog.await(0, Duration.ofMillis(10))).isFalse();
+
+        CompletableFuture<Void> polled = CompletableFuture.runAsync(changeLog::poll);
+
+        assertThat(changeLog.await(0, Duration.ofSeconds(5))).isTrue();
+        polled.join();
+    }
+
+    @Test
+    void refresh_DuringPoll_QueuesOnePoll() throws Exception {
+        properties.setPollInterval(Duration.ofHours(1));
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, properties);
+        when(changeRepository.findLatest(any(Limit.class))).thenReturn(List.of());
+        CountDownLatch polling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(changeRepository.findAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            polling.countDown();
+            release.await();
+            return List.of();
+        });
+        changeLog.afterSingletonsInstantiated();
+        try {
+            changeLog.refresh();
+            assertThat(polling.await(5, TimeUnit.SECONDS)).isTrue();
+
+            for (int i = 0; i < 100; i++) {
+                changeLog.refresh();
+            }
+            release.countDown();
+
+            verify(changeRepository, after(500).times(2)).findAfter(anyLong(), any(Limit.class));
+        } finally {
+            changeLog.close();
+        }
+    }
+
+    private static List<PlanetChange> changes(long from, long to) {
+        return LongStream.rangeClosed(from, to).mapToObj(PlanetChangeLogTest::change).toList();
+    }
+
+    private static PlanetChange change(long seq) {
+        PlanetChange change = PlanetChange.removed(seq);
+        ReflectionTestUtils.setField(change, "seq", seq);
+        return change;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetColumnStoreTest {
+
+    @Mock
+    private PlanetRepository planetRepository;
+
+    @Mock
+    private PlanetChangeRepository changeRepository;
+
+    @TempDir
+    private Path directory;
+
+    private PlanetStoreProperties properties;
+
+    private PlanetChangeProperties changeProperties;
+
+    private PlanetColumnStore columnStore;
+
+    @BeforeEach
+    void beforeEach() {
+        properties = new PlanetStoreProperties();
+        properties.setEnabled(true);
+        properties.setSnapshot(directory.resolve("planets.snapshot"));
+        changeProperties = new PlanetChangeProperties();
+        columnStore = store();
+        columnStore.putAll(PLANETS);
+    }
+
+    @Test
+    void get_ByIdAndName_ReturnsPlanet() {
+        assertThat(columnStore.get(TATOOINE.getId())).hasValueSatisfying(planet ->
+                assertThat(planet).extracting(Planet::getName, Planet::getClimate, Planet::getTerrain, Planet::getVersion)
+                        .containsExactly(TATOOINE.getName(), TATOOINE.getClimate(), TATOOINE.getTerrain(), 0L));
+        assertThat(columnStore.getByName("YAVIN iv")).contains(YAVINIV);
+        assertThat(columnStore.get(99L)).isEmpty();
+        assertThat(columnStore.getByName("Hoth")).isEmpty();
+    }
+
+    @Test
+    void list_FiltersIgnoringCaseInIdOrder() {
+        assertThat(columnStore.list(null, null)).containsExactly(TATOOINE, ALDERAAN, YAVINIV);
+        assertThat(columnStore.list(null, "Temperate")).containsExactly(ALDERAAN);
+        assertThat(columnStore.list("DESERT", "arid")).containsExactly(TATOOINE);
+        assertThat(columnStore.fingerprint(null, null)).isEqualTo("3:3:6:0");
+        assertThat(columnStore.fingerprint("hoth", null)).isEqualTo("0:null:null:null");
+    }
+
+    @Test
+    void put_WithNewTerrain_MovesPlanetBetweenFilters() {
+        columnStore.put(Planet.builder().id(4L).name("Jakku").climate("ARID").terrain("desert").version(0L).build());
+
+        assertThat(columnStore.list("Desert", "arid")).extracting(Planet::getId).containsExactly(TATOOINE.getId(), 4L);
+
+        columnStore.put(Planet.builder().id(TATOOINE.getId()).name(TATOOINE.getName()).climate(TATOOINE.getClimate())
+                .terrain("ice").version(1L).build());
+
+        assertThat(columnStore.list("desert", null)).extracting(Planet::getId).containsExactly(4L);
+        assertThat(columnStore.list("ICE", "arid")).extracting(Planet::getId).containsExactly(TATOOINE.getId());
+        assertThat(columnStore.list("desert", "temperate")).isEmpty();
+    }
+
+    @Test
+    void apply_IgnoresChangesAlreadySeen() {
+        Planet jakku = Planet.builder().id(TATOOINE.getId()).name("Jakku").climate("hot").terrain("sand").version(1L).build();
+
+        columnStore.apply(List.of(
+                change(PlanetChange.updated(jakku), 7),
+                change(PlanetChange.created(TATOOINE), 8),
+                change(PlanetChange.removed(ALDERAAN.getId()), 9),
+                change(PlanetChange.created(ALDERAAN), 10)));
+
+        assertThat(columnStore.get(TATOOINE.getId())).hasValueSatisfying(planet ->
+                assertThat(planet).extracting(Planet::getName, Planet::getVersion).containsExactly("Jakku", 1L));
+        assertThat(columnStore.getByName(TATOOINE.getName())).isEmpty();
+        assertThat(columnStore.getByName("jakku")).contains(jakku);
+        assertThat(columnStore.get(ALDERAAN.getId())).isEmpty();
+        assertThat(columnStore.appliedSeq()).isEqualTo(10);
+    }
+
+    @Test
+    void removeAll_ManyPlanets_CompactsAndKeepsTheRest() {
+        // Descending ids: every row is inserted in front of the others
+        columnStore.putAll(LongStream.rangeClosed(10, 5009).map(id -> 5019 - id).mapToObj(PlanetColumnStoreTest::planet).toList());
+
+        columnStore.removeAll(LongStream.rangeClosed(10, 4009).boxed().toList());
+
+        assertThat(columnStore.size()).isEqualTo(1003);
+        assertThat(columnStore.get(4500L)).hasValueSatisfying(planet -> assertThat(planet.getName()).isEqualTo("Planet 4500"));
+        assertThat(columnStore.getByName("planet 5009")).hasValueSatisfying(planet -> assertThat(planet.getId()).isEqualTo(5009));
+        assertThat(columnStore.getByName("Planet 10")).isEmpty();
+        assertThat(columnStore.list("Terrain", null)).hasSize(1000).first().extracting(Planet::getId).isEqualTo(4010L);
+
+        columnStore.put(planet(10));
+
+        assertThat(columnStore.get(10L)).isEmpty();
+    }
+
+    @Test
+    void snapshot_ThenLoad_RestoresPlanetsAndAppliesLaterChanges() throws Exception {
+        columnStore.apply(List.of(change(PlanetChange.created(planet(4)), 5)));
+        columnStore.snapshot();
+        when(changeRepository.findAfter(5L, Limit.of(1000))).thenReturn(List.of(change(PlanetChange.removed(TATOOINE.getId()), 6)));
+
+        PlanetColumnStore loaded = store();
+
+        assertThat(loaded.load()).isTrue();
+        assertThat(loaded.isServing()).isTrue();
+        assertThat(loaded.list(null, null)).extracting(Planet::getId, Planet::getName, Planet::getTerrain)
+                .containsExactly(
+                        tuple(ALDERAAN.getId(), ALDERAAN.getName(), ALDERAAN.getTerrain()),
+                        tuple(YAVINIV.getId(), YAVINIV.getName(), YAVINIV.getTerrain()),
+                        tuple(4L, "Planet 4", "Terrain"));
+        assertThat(loaded.getByName("yavin IV")).contains(YAVINIV);
+        assertThat(loaded.appliedSeq()).isEqualTo(6);
+    }
+
+    @Test
+    void load_WithoutSnapshotOrWithOneOlderThanRetention_ReturnsFalse() throws Exception {
+        assertThat(store().load()).isFalse();
+
+        columnStore.snapshot();
+        changeProperties.setRetention(Duration.ZERO);
+
+        PlanetColumnStore loaded = store();
+
+        assertThat(loaded.load()).isFalse();
+        assertThat(loaded.isServing()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_ReadsTableAndServes() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(planet(7));
+            return null;
+        }).when(planetRepository).forEachPlanet(any());
+        PlanetColumnStore rebuilt = store();
+
+        rebuilt.rebuild();
+
+        assertThat(rebuilt.isServing()).isTrue();
+        assertThat(rebuilt.list(null, null)).extracting(Planet::getId).containsExactly(7L);
+    }
+
+    private PlanetColumnStore store() {
+        return new PlanetColumnStore(planetRepository, changeRepository,
+                new PlanetChangeLog(changeRepository, changeProperties), properties, changeProperties);
+    }
+
+    private static PlanetChange change(PlanetChange change, long seq) {
+        ReflectionTestUtils.setField(change, "seq", seq);
+        return change;
+    }
+
+    private static Planet planet(long id) {
+        return Planet.builder().id(id).name("Planet " + id).climate("Climate").terrain("Terrain").version(0L).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetImportResult;
+import com.example.swplanetapi.domain.model.PlanetImportResult.Status;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import jakarta.validation.Validation;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetImportServiceTest {
+
+    private PlanetImportService planetImportService;
+
+    @Mock
+    private PlanetRepository planetRepository;
+
+    @Mock
+    private PlanetChangeRepository changeRepository;
+
+    private PlanetSearchIndex searchIndex;
+
+    private PlanetTokenIndex tokenIndex;
+
+    private PlanetColumnStore columnStore;
+
+    @BeforeEach
+    void beforeEach() {
+        PlanetImportProperties properties = new PlanetImportProperties();
+        properties.setBatchSize(2);
+
+        searchIndex = new PlanetSearchIndex(planetRepository, new PlanetSearchProperties());
+        tokenIndex = new PlanetTokenIndex(planetRepository);
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, new PlanetChangeProperties());
+        PlanetStoreProperties storeProperties = new PlanetStoreProperties();
+        storeProperties.setEnabled(true);
+        columnStore = new PlanetColumnStore(planetRepository, changeRepository, changeLog, storeProperties,
+                new PlanetChangeProperties());
+        PlanetCache planetCache = new PlanetCache(new PlanetCacheProperties());
+        PlanetCacheInvalidator cacheInvalidator = new PlanetCacheInvalidator(planetCache,
+                mock(SessionFactory.class, RETURNS_DEEP_STUBS), new LocalPlanetInvalidationChannel(),
+                new SimpleMeterRegistry());
+        planetImportService = new PlanetImportService(planetRepository, planetCache, mock(PlanetService.class),
+                cacheInvalidator, searchIndex, new PlanetFacetCounter(planetRepository), tokenIndex, columnStore, changeLog,
+                TransactionOperations.withoutTransaction(), Validation.buildDefaultValidatorFactory().getValidator(), properties);
+    }
+
+    @Test
+    @DisplayName("Importa planetas em lotes")
+    void createPlanets_InBatches_ReturnsCreated() {
+        when(planetRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+        when(planetRepository.insertAll(List.of(TATOOINE, ALDERAAN))).thenReturn(List.of(1L, 2L));
+        when(planetRepository.insertAll(List.of(YAVINIV))).thenReturn(List.of(3L));
+
+        List<PlanetImportResult> sut = planetImportService.createAll(PLANETS.iterator());
+
+        assertThat(sut).containsExactly(
+                PlanetImportResult.created(0, 1L),
+                PlanetImportResult.created(1, 2L),
+                PlanetImportResult.created(2, 3L));
+        assertThat(searchIndex.size()).isEqualTo(3);
+        assertThat(tokenIndex.size()).isEqualTo(3);
+        assertThat(columnStore.getByName(ALDERAAN.getName())).hasValueSatisfying(planet ->
+                assertThat(planet).extracting(Planet::getId, Planet::getVersion).containsExactly(2L, 0L));
+
+        verify(planetRepository, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    void createBatch_LargerThanImportBatchSize_InsertsOnce() {
+        when(planetRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+        when(planetRepository.insertAll(List.of(TATOOINE, ALDERAAN, YAVINIV))).thenReturn(List.of(1L, 2L, 3L));
+
+        List<PlanetImportResult> sut = planetImportService.createBatch(List.of(TATOOINE, INVALID_PLANET, ALDERAAN, YAVINIV));
+
+        assertThat(sut).extracting(PlanetImportResult::getStatus)
+                .containsExactly(Status.CREATED, Status.INVALID, Status.CREATED, Status.CREATED);
+        assertThat(sut.get(3)).isEqualTo(PlanetImportResult.created(3, 3L));
+
+        verify(planetRepository, times(1)).insertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Reporta planetas inválidos e nomes duplicados")
+    void createPlanets_WithInvalidAndExistingNames_ReturnsResultPerRow() {
+        when(planetRepository.findExistingNames(anyCollection())).thenReturn(Set.of(), Set.of(TATOOINE.getName()));
+        when(planetRepository.insertAll(List.of(ALDERAAN))).thenReturn(List.of(2L));
+
+        List<PlanetImportResult> sut = planetImportService.createAll(List.of(ALDERAAN, ALDERAAN, INVALID_PLANET, TATOOINE).iterator());
+
+        assertThat(sut).extracting(PlanetImportResult::getStatus)
+                .containsExactly(Status.CREATED, Status.CONFLICT, Status.INVALID, Status.CONFLICT);
+        assertThat(sut.get(2).getMessage()).contains("name", "climate", "terrain");
+
+        verify(planetRepository, times(1)).insertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Insere linha a linha quando o lote é rejeitado")
+    void createPlanets_WhenBatchIsRejected_RetriesRowByRow() {
+        when(planetRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+        when(planetRepository.insertAll(List.of(TATOOINE, ALDERAAN))).thenThrow(DuplicateKeyException.class);
+        when(planetRepository.insertAll(List.of(TATOOINE))).thenReturn(List.of(1L));
+        when(planetRepository.insertAll(List.of(ALDERAAN))).thenThrow(DuplicateKeyException.class);
+
+        List<PlanetImportResult> sut = planetImportService.createAll(List.of(TATOOINE, ALDERAAN).iterator());
+
+        assertThat(sut).containsExactly(
+                PlanetImportResult.created(0, 1L),
+                PlanetImportResult.conflict(1, ALDERAAN.getName()));
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetFacetCount;
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetIndexFollowerTest {
+
+    @Mock
+    private PlanetRepository planetRepository;
+
+    @Mock
+    private PlanetChangeRepository changeRepository;
+
+    @Mock
+    private PlanetChangeLog changeLog;
+
+    private PlanetSearchIndex searchIndex;
+
+    private PlanetFacetCounter facetCounter;
+
+    private PlanetTokenIndex tokenIndex;
+
+    private PlanetIndexFollower follower;
+
+    @BeforeEach
+    void beforeEach() {
+        searchIndex = new PlanetSearchIndex(planetRepository, new PlanetSearchProperties());
+        facetCounter = new PlanetFacetCounter(planetRepository);
+        tokenIndex = new PlanetTokenIndex(planetRepository);
+        follower = new PlanetIndexFollower(changeLog, changeRepository, searchIndex, facetCounter, tokenIndex);
+        PLANETS.forEach(planet -> {
+            searchIndex.add(planet);
+            facetCounter.put(planet);
+            tokenIndex.add(planet);
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        follower.close();
+    }
+
+    @Test
+    void apply_ChangesFromAnotherInstance_UpdatesEveryIndex() {
+        Planet renamed = Planet.builder().id(ALDERAAN.getId()).name("Jakku").terrain("Sand").climate("Hot").version(1L).build();
+
+        follower.apply(List.of(change(PlanetChange.updated(renamed), 7), change(PlanetChange.removed(YAVINIV.getId()), 8)));
+
+        assertThat(searchIndex.search("jakku", 10)).extracting(PlanetSearchHit::getId).containsExactly(ALDERAAN.getId());
+        assertThat(searchIndex.search("yavin", 10)).isEmpty();
+        assertThat(facetCounter.snapshot().getTerrainClimate()).containsExactly(
+                new PlanetFacetCount("desert", "arid", 1), new PlanetFacetCount("sand", "hot", 1));
+        assertThat(tokenIndex.find(new PlanetTokenFilter(List.of("sand"), List.of(), PlanetTokenFilter.Match.ALL), null, 10))
+                .containsExactly(ALDERAAN.getId());
+        assertThat(tokenIndex.size()).isEqualTo(2);
+        assertThat(follower.appliedSeq()).isEqualTo(8);
+    }
+
+    @Test
+    void apply_ChangesAlreadyAppliedLocally_CountsThemOnce() {
+        Planet created = Planet.builder().id(4L).name("Hoth").terrain("Tundra").climate("Frozen").version(0L).build();
+        facetCounter.put(created);
+
+        follower.apply(List.of(change(PlanetChange.created(created), 1)));
+        follower.apply(List.of(change(PlanetChange.created(created), 1)));
+
+        assertThat(facetCounter.snapshot().getTotal()).isEqualTo(4);
+        assertThat(facetCounter.snapshot().getTerrain()).containsEntry("tundra", 1L);
+    }
+
+    @Test
+    void apply_LocalWritesArrivingAfterTheFeed_KeepTheNewerState() {
+        Planet renamed = Planet.builder().id(ALDERAAN.getId()).name("Jakku").terrain("Sand").climate("Hot").version(2L).build();
+        Planet stale = Planet.builder().id(ALDERAAN.getId()).name("Hoth").terrain("Tundra").climate("Frozen").version(1L).build();
+
+        follower.apply(List.of(change(PlanetChange.updated(renamed), 7), change(PlanetChange.removed(YAVINIV.getId()), 8)));
+        // Post-commit writes of this instance, applied after the feed delivered the newer changes
+        searchIndex.add(stale);
+        facetCounter.put(stale);
+        tokenIndex.add(stale);
+        searchIndex.add(YAVINIV);
+        facetCounter.put(YAVINIV);
+        tokenIndex.add(YAVINIV);
+
+        assertThat(searchIndex.search("jakku", 10)).extracting(PlanetSearchHit::getId).containsExactly(ALDERAAN.getId());
+        assertThat(searchIndex.search("hoth", 10)).isEmpty();
+        assertThat(searchIndex.search("yavin", 10)).isEmpty();
+        assertThat(facetCounter.snapshot().getTerrainClimate()).containsExactly(
+                new PlanetFacetCount("desert", "arid", 1), new PlanetFacetCount("sand", "hot", 1));
+        assertThat(tokenIndex.find(new PlanetTokenFilter(List.of("sand"), List.of(), PlanetTokenFilter.Match.ALL), null, 10))
+                .containsExactly(ALDERAAN.getId());
+        assertThat(tokenIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    void apply_RemovalDroppedFromTheFeed_ForgetsTheRemovedId() {
+        follower.apply(List.of(change(PlanetChange.removed(YAVINIV.getId()), 8)));
+        searchIndex.add(YAVINIV);
+        assertThat(searchIndex.search("yavin", 10)).isEmpty();
+
+        when(changeLog.evictedSeq()).thenReturn(8L);
+        follower.apply(List.of(change(PlanetChange.removed(ALDERAAN.getId()), 9)));
+
+        // Nothing is left to tell the id was removed, so an index would take it again
+        searchIndex.add(YAVINIV);
+        facetCounter.put(YAVINIV);
+        tokenIndex.add(YAVINIV);
+        assertThat(searchIndex.search("yavin", 10)).extracting(PlanetSearchHit::getId).containsExactly(YAVINIV.getId());
+        assertThat(facetCounter.snapshot().getTotal()).isEqualTo(2);
+        assertThat(tokenIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void follow_AppliesChangesFromTheFeed() {
+        doAnswer(invocation -> {
+            PLANETS.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).when(planetRepository).forEachName(any());
+        doAnswer(invocation -> {
+            PLANETS.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).when(planetRepository).forEachTerrainAndClimate(any());
+        lenient().when(changeLog.after(anyLong(), anyInt())).thenReturn(Optional.of(List.of()));
+        when(changeLog.after(eq(0L), anyInt())).thenReturn(Optional.of(List.of(change(PlanetChange.removed(TATOOINE.getId()), 1))));
+
+        follower.afterSingletonsInstantiated();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> follower.appliedSeq() == 1);
+        assertThat(searchIndex.search("tatooine", 10)).isEmpty();
+        assertThat(searchIndex.size()).isEqualTo(2);
+        assertThat(facetCounter.snapshot().getTerrain()).doesNotContainKey("desert");
+        assertThat(tokenIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    void follow_TooFarBehindTheFeed_RebuildsFromTheTable() {
+        when(changeLog.after(anyLong(), anyInt())).thenReturn(Optional.empty(), Optional.of(List.of()));
+        when(changeLog.lastSeq()).thenReturn(0L, 40L);
+
+        follower.afterSingletonsInstantiated();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> follower.appliedSeq() == 40);
+        // The table is empty
+        assertThat(searchIndex.size()).isZero();
+        assertThat(facetCounter.snapshot().getTotal()).isZero();
+        assertThat(tokenIndex.size()).isZero();
+    }
+
+    @Test
+    void follow_FeedReset_RebuildsFromTheTable() {
+        when(changeLog.after(anyLong(), anyInt())).thenReturn(Optional.of(List.of()));
+        when(changeLog.resets()).thenReturn(0L, 1L);
+        when(changeLog.lastSeq()).thenReturn(0L, 40L);
+
+        follower.afterSingletonsInstantiated();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> follower.appliedSeq() == 40);
+        assertThat(searchIndex.size()).isZero();
+    }
+
+    private static PlanetChange change(PlanetChange change, long seq) {
+        ReflectionTestUtils.setField(change, "seq", seq);
+        return change;
+    }
+}
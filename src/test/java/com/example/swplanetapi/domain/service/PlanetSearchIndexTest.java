@@ -0,0 +1,156 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.model.PlanetSearchHit.Match;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetSearchIndexTest {
+
+    private PlanetSearchIndex searchIndex;
+
+    @Mock
+    private PlanetRepository planetRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        searchIndex = new PlanetSearchIndex(planetRepository, new PlanetSearchProperties());
+        PLANETS.forEach(searchIndex::add);
+    }
+
+    @Test
+    void search_ByExactName_IgnoresCaseAndAccents() {
+        assertThat(searchIndex.search("TATOÓINE", 10))
+                .extracting(PlanetSearchHit::getId, PlanetSearchHit::getMatch)
+                .containsExactly(tuple(TATOOINE.getId(), Match.EXACT));
+    }
+
+    @Test
+    void search_ByPrefix_RanksNamePrefixBeforeWordPrefix() {
+        searchIndex.add(planet(4L, "Ivory"));
+        searchIndex.add(planet(5L, "Iv"));
+
+        assertThat(searchIndex.search("iv", 10))
+                .extracting(PlanetSearchHit::getName, PlanetSearchHit::getMatch)
+                .containsExactly(
+                        tuple("Iv", Match.EXACT),
+                        tuple("Ivory", Match.PREFIX),
+                        tuple(YAVINIV.getName(), Match.WORD_PREFIX));
+    }
+
+    @Test
+    void search_WithTypo_ReturnsSimilarNames() {
+        List<PlanetSearchHit> sut = searchIndex.search("alderan", 10);
+
+        assertThat(sut).extracting(PlanetSearchHit::getId).containsExactly(ALDERAAN.getId());
+        assertThat(sut.get(0).getMatch()).isEqualTo(Match.FUZZY);
+        assertThat(sut.get(0).getScore()).isBetween(0.3, 1.0);
+    }
+
+    @Test
+    void search_WithUnrelatedQuery_ReturnsEmpty() {
+        assertThat(searchIndex.search("hoth", 10)).isEmpty();
+        assertThat(searchIndex.search(" - ", 10)).isEmpty();
+    }
+
+    @Test
+    void search_ReturnsAtMostLimit() {
+        LongStream.rangeClosed(10, 30).forEach(id -> searchIndex.add(planet(id, "Tatooine " + id)));
+
+        assertThat(searchIndex.search("tatooine", 5)).hasSize(5)
+                .first().extracting(PlanetSearchHit::getMatch).isEqualTo(Match.EXACT);
+    }
+
+    @Test
+    void add_WithNewName_ReplacesOldName() {
+        searchIndex.add(Planet.builder().id(TATOOINE.getId()).name("Hoth").version(1L).build());
+
+        assertThat(searchIndex.search("tatooine", 10)).isEmpty();
+        assertThat(searchIndex.search("hoth", 10)).extracting(PlanetSearchHit::getId).containsExactly(TATOOINE.getId());
+        assertThat(searchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removeAll_CompactsAndKeepsLivePlanets() {
+        LongStream.rangeClosed(10, 30).forEach(id -> searchIndex.add(planet(id, "Planet " + id)));
+
+        searchIndex.removeAll(LongStream.rangeClosed(10, 30).boxed().toList());
+        searchIndex.remove(TATOOINE.getId());
+
+        assertThat(searchIndex.size()).isEqualTo(2);
+        assertThat(searchIndex.search("planet", 10)).isEmpty();
+        assertThat(searchIndex.search("yavin", 10)).extracting(PlanetSearchHit::getId).containsExactly(YAVINIV.getId());
+    }
+
+    @Test
+    void add_OlderVersion_KeepsNewerName() {
+        searchIndex.add(Planet.builder().id(TATOOINE.getId()).name("Hoth").version(2L).build());
+        searchIndex.add(Planet.builder().id(TATOOINE.getId()).name("Jakku").version(1L).build());
+
+        assertThat(searchIndex.search("hoth", 10)).extracting(PlanetSearchHit::getId).containsExactly(TATOOINE.getId());
+        assertThat(searchIndex.search("jakku", 10)).isEmpty();
+    }
+
+    @Test
+    void add_AfterRemoval_IsIgnored() {
+        searchIndex.remove(TATOOINE.getId());
+        searchIndex.add(TATOOINE);
+
+        assertThat(searchIndex.search("tatooine", 10)).isEmpty();
+        assertThat(searchIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_LoadsNamesFromRepository() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(planet(7L, "Hoth"));
+            return null;
+        }).when(planetRepository).forEachName(any());
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.size()).isEqualTo(1);
+        assertThat(searchIndex.search("hoth", 10)).extracting(PlanetSearchHit::getId).containsExactly(7L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_KeepsServingSearchesWhileReadingTheTable() {
+        List<List<PlanetSearchHit>> duringRebuild = new ArrayList<>();
+        doAnswer(invocation -> {
+            // From another thread, since this one could take the read lock while holding the write lock
+            duringRebuild.add(CompletableFuture.supplyAsync(() -> searchIndex.search("tatooine", 10)).get(5, TimeUnit.SECONDS));
+            invocation.getArgument(0, Consumer.class).accept(planet(7L, "Hoth"));
+            return null;
+        }).when(planetRepository).forEachName(any());
+
+        searchIndex.rebuild();
+
+        assertThat(duringRebuild.get(0)).extracting(PlanetSearchHit::getId).containsExactly(TATOOINE.getId());
+        assertThat(searchIndex.search("tatooine", 10)).isEmpty();
+    }
+
+    private static Planet planet(long id, String name) {
+        return Planet.builder().id(id).name(name).build();
+    }
+}
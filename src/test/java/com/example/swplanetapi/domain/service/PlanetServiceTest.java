@@ -1,35 +1,106 @@
 package com.example.swplanetapi.domain.service;
 
+import com.example.swplanetapi.core.limiter.ConcurrencyLimitAspect;
+import com.example.swplanetapi.core.limiter.ConcurrencyLimitProperties;
+import com.example.swplanetapi.core.limiter.ConcurrencyLimited.Workload;
+import com.example.swplanetapi.core.limiter.OverloadedException;
 import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetChange;
+import com.example.swplanetapi.domain.model.PlanetFacetCount;
+import com.example.swplanetapi.domain.model.PlanetFacets;
+import com.example.swplanetapi.domain.model.PlanetField;
+import com.example.swplanetapi.domain.model.PlanetLookupResult;
+import com.example.swplanetapi.domain.model.PlanetSearchHit;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.model.PlanetUpdateResult;
+import com.example.swplanetapi.domain.repository.PlanetChangeRepository;
 import com.example.swplanetapi.domain.repository.PlanetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Example;
-
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
-
-import static com.example.swplanetapi.PlanetConstants.INVALID_PLANET;
-import static com.example.swplanetapi.PlanetConstants.PLANET;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static com.example.swplanetapi.PlanetConstants.*;
 import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class PlanetServiceTest {
 
-    @InjectMocks
+    private static final int HERD = 50;
+
     private PlanetService planetService;
 
     @Mock
     private PlanetRepository planetRepository;
 
+    private PlanetSearchIndex searchIndex;
+
+    private PlanetFacetCounter facetCounter;
+
+    private PlanetTokenIndex tokenIndex;
+
+    private PlanetStoreProperties storeProperties;
+
+    private PlanetColumnStore columnStore;
+
+    @Mock
+    private PlanetChangeRepository changeRepository;
+
+    @Mock
+    private ObjectProvider<ConcurrencyLimitAspect> limiter;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PlanetInvalidationChannel invalidationChannel = new LocalPlanetInvalidationChannel();
+
+    @BeforeEach
+    void beforeEach() {
+        PlanetSearchProperties searchProperties = new PlanetSearchProperties();
+        searchIndex = new PlanetSearchIndex(planetRepository, searchProperties);
+        facetCounter = new PlanetFacetCounter(planetRepository);
+        tokenIndex = new PlanetTokenIndex(planetRepository);
+        PlanetCache planetCache = new PlanetCache(new PlanetCacheProperties());
+        PlanetCacheInvalidator cacheInvalidator = new PlanetCacheInvalidator(planetCache,
+                mock(SessionFactory.class, RETURNS_DEEP_STUBS), invalidationChannel, meterRegistry);
+        PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, new PlanetChangeProperties());
+        storeProperties = new PlanetStoreProperties();
+        columnStore = new PlanetColumnStore(planetRepository, changeRepository, changeLog, storeProperties,
+                new PlanetChangeProperties());
+        planetService = new PlanetService(planetRepository, planetCache, cacheInvalidator, searchIndex, facetCounter,
+                tokenIndex, columnStore, changeLog, TransactionOperations.withoutTransaction(), limiter, searchProperties,
+                meterRegistry);
+    }
+
     @Test
     @DisplayName("Create a planet with valid data")
     void createPlanet_WithValidData_ReturnsPlanet() {
@@ -58,7 +129,7 @@ public class PlanetServiceTest {
     void getPlanet_ByExistingId_ReturnsPlanet() {
         when(planetRepository.findById(anyLong())).thenReturn(Optional.of(PLANET));
 
-        Optional<Planet> sut = planetService.get(anyLong());
+        Optional<Planet> sut = planetService.get(1L);
 
         assertThat(sut).isNotEmpty();
         assertThat(sut.get()).isNotNull();
@@ -72,7 +143,7 @@ public class PlanetServiceTest {
     void getPlanet_ByInexistingId_ReturnsEmpty() {
         when(planetRepository.findById(anyLong())).thenReturn(Optional.empty());
 
-        Optional<Planet> sut = planetService.get(anyLong());
+        Optional<Planet> sut = planetService.get(1L);
 
         assertThat(sut).isEmpty();
 
@@ -105,46 +176,674 @@ public class PlanetServiceTest {
         verify(planetRepository, times(1)).findByName(anyString());
     }
 
+    @Test
+    @DisplayName("Get planet by id twice hits the database once")
+    void getPlanet_Twice_LoadsFromRepositoryOnce() {
+        when(planetRepository.findById(1L)).thenReturn(Optional.of(TATOOINE));
+
+        planetService.get(1L);
+        Optional<Planet> sut = planetService.get(1L);
+
+        assertThat(sut).contains(TATOOINE);
+
+        verify(planetRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getPlanet_WithReadLimitFull_AnswersFromCacheAndRejectsMisses() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.getRead().setInitial(1);
+        properties.getRead().setMin(1);
+        properties.getRead().setMax(1);
+        ConcurrencyLimitAspect aspect = new ConcurrencyLimitAspect(properties);
+        when(limiter.getIfAvailable()).thenReturn(aspect);
+        when(planetRepository.findById(TATOOINE.getId())).thenReturn(Optional.of(TATOOINE));
+        planetService.get(TATOOINE.getId());
+
+        try (ConcurrencyLimitAspect.Permit permit = aspect.acquire(Workload.LOOKUP)) {
+            assertThat(planetService.get(TATOOINE.getId())).contains(TATOOINE);
+            assertThatThrownBy(() -> planetService.get(YAVINIV.getId())).isInstanceOf(OverloadedException.class);
+        }
+
+        verify(planetRepository, times(1)).findById(TATOOINE.getId());
+        verify(planetRepository, never()).findById(YAVINIV.getId());
+    }
+
+    @Test
+    @DisplayName("Get planet by name reuses the entry cached by id")
+    void getPlanetByName_AfterCreate_DoesNotHitDatabaseTwice() {
+        when(planetRepository.findByName(TATOOINE.getName())).thenReturn(Optional.of(TATOOINE));
+
+        planetService.getByName(TATOOINE.getName());
+        Optional<Planet> byName = planetService.getByName(TATOOINE.getName());
+        Optional<Planet> byId = planetService.get(TATOOINE.getId());
+
+        assertThat(byName).containsSame(byId.get());
+
+        verify(planetRepository, times(1)).findByName(TATOOINE.getName());
+        verify(planetRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Creating a planet replaces a cached not found")
+    void createPlanet_AfterNotFound_ReturnsCreatedPlanet() {
+        when(planetRepository.findByName(TATOOINE.getName())).thenReturn(Optional.empty());
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+
+        assertThat(planetService.getByName(TATOOINE.getName())).isEmpty();
+        assertThat(planetService.getByName(TATOOINE.getName())).isEmpty();
+
+        planetService.create(TATOOINE);
+
+        when(planetRepository.findByName(TATOOINE.getName())).thenReturn(Optional.of(TATOOINE));
+        assertThat(planetService.getByName(TATOOINE.getName())).contains(TATOOINE);
+        assertThat(planetService.get(TATOOINE.getId())).contains(TATOOINE);
+
+        verify(planetRepository, times(2)).findByName(TATOOINE.getName());
+        verify(planetRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Removing a planet evicts it from the cache")
+    void removePlanet_EvictsCachedPlanet() {
+        when(planetRepository.findById(1L)).thenReturn(Optional.of(TATOOINE), Optional.empty());
+        when(planetRepository.removeAll(List.of(1L))).thenReturn(List.of(1L));
+
+        assertThat(planetService.get(1L)).isPresent();
+
+        planetService.remove(1L);
+
+        assertThat(planetService.get(1L)).isEmpty();
+        assertThat(planetService.getByName(TATOOINE.getName())).isEmpty();
+
+        verify(planetRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("A removed planet still on a lagging replica is read again from the primary")
+    void getPlanet_AfterRemoveFromLaggingReplica_ReadsPrimary() {
+        when(planetRepository.removeAll(List.of(1L))).thenReturn(List.of(1L));
+        // The replica still has the planet, the primary does not
+        when(planetRepository.findById(1L)).thenReturn(Optional.of(TATOOINE), Optional.empty());
+
+        planetService.remove(1L);
+
+        assertThat(planetService.get(1L)).isEmpty();
+        assertThat(planetService.get(1L)).isEmpty();
+
+        verify(planetRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("A created planet missing from a lagging replica is read again from the primary")
+    void getPlanetByName_AfterCreateMissingFromLaggingReplica_ReadsPrimary() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+        when(planetRepository.findByName(TATOOINE.getName())).thenReturn(Optional.empty(), Optional.of(TATOOINE));
+
+        planetService.create(TATOOINE);
+
+        assertThat(planetService.getByName(TATOOINE.getName())).contains(TATOOINE);
+    }
+
+    @Test
+    @DisplayName("A batch lookup reads again from the primary only the names a lagging replica missed")
+    void lookupPlanets_AfterCreateMissingFromLaggingReplica_ReadsPrimaryForStaleNames() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+        when(planetRepository.findAllByNames(any())).thenReturn(List.of(ALDERAAN), List.of(TATOOINE));
+
+        planetService.create(TATOOINE);
+        PlanetLookupResult sut = planetService.lookup(List.of(), List.of(ALDERAAN.getName(), TATOOINE.getName()));
+
+        assertThat(sut.getPlanets()).containsExactlyInAnyOrder(ALDERAAN, TATOOINE);
+        verify(planetRepository).findAllByNames(List.of(TATOOINE.getName()));
+    }
+
+    @Test
+    @DisplayName("A lookup racing a removal does not cache the removed planet")
+    void getPlanetByName_RacingRemove_DoesNotCacheRemovedPlanet() {
+        when(planetRepository.removeAll(List.of(TATOOINE.getId()))).thenReturn(List.of(TATOOINE.getId()));
+        when(planetRepository.findByName(TATOOINE.getName())).thenAnswer(invocation -> {
+            // The delete commits while the lookup is reading
+            planetService.remove(TATOOINE.getId());
+            return Optional.of(TATOOINE);
+        });
+        when(planetRepository.findById(TATOOINE.getId())).thenReturn(Optional.empty());
+
+        planetService.getByName(TATOOINE.getName());
+
+        assertThat(planetService.get(TATOOINE.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Creating a planet keeps the not found entries of other names")
+    void createPlanet_KeepsOtherNotFoundNames() {
+        when(planetRepository.findByName("Hoth")).thenReturn(Optional.empty());
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+
+        planetService.getByName("Hoth");
+        planetService.create(TATOOINE);
+
+        assertThat(planetService.getByName("Hoth")).isEmpty();
+
+        verify(planetRepository, times(1)).findByName("Hoth");
+    }
+
+    @Test
+    @DisplayName("Writes are announced to the other instances")
+    void createAndRemovePlanet_PublishInvalidations() {
+        List<PlanetInvalidation> published = new ArrayList<>();
+        invalidationChannel.subscribe(published::add);
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+        when(planetRepository.removeAll(List.of(TATOOINE.getId()))).thenReturn(List.of());
+
+        planetService.create(TATOOINE);
+        planetService.remove(TATOOINE.getId());
+
+        assertThat(published)
+                .extracting(PlanetInvalidation::getPlanetIds, PlanetInvalidation::getPlanetNames)
+                .containsExactly(
+                        tuple(List.of(TATOOINE.getId()), List.of(TATOOINE.getName())),
+                        tuple(List.of(TATOOINE.getId()), List.of()));
+        assertThat(meterRegistry.get("planet.cache.invalidations").tag("direction", "sent").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Batch lookup keeps request order and reports missing keys")
+    void lookupPlanets_ReturnsPlanetsInRequestOrderAndMissingKeys() {
+        when(planetRepository.findAllByIds(any())).thenReturn(List.of(TATOOINE, YAVINIV));
+        when(planetRepository.findAllByNames(any())).thenReturn(List.of(TATOOINE, ALDERAAN));
+
+        PlanetLookupResult sut = planetService.lookup(List.of(YAVINIV.getId(), 99L, TATOOINE.getId(), YAVINIV.getId()),
+                List.of("alderaan", "Hoth", TATOOINE.getName()));
+
+        assertThat(sut.getPlanets()).containsExactly(YAVINIV, TATOOINE, ALDERAAN);
+        assertThat(sut.getMissingIds()).containsExactly(99L);
+        assertThat(sut.getMissingNames()).containsExactly("Hoth");
+    }
+
+    @Test
+    @DisplayName("Batch lookup only loads the keys that are not cached")
+    void lookupPlanets_AfterSingleLookups_LoadsOnlyMisses() {
+        when(planetRepository.findById(TATOOINE.getId())).thenReturn(Optional.of(TATOOINE));
+        when(planetRepository.findByName("Hoth")).thenReturn(Optional.empty());
+        when(planetRepository.findAllByIds(List.of(ALDERAAN.getId()))).thenReturn(List.of(ALDERAAN));
+
+        planetService.get(TATOOINE.getId());
+        planetService.getByName("Hoth");
+        PlanetLookupResult sut = planetService.lookup(List.of(TATOOINE.getId(), ALDERAAN.getId()), List.of("Hoth"));
+        PlanetLookupResult again = planetService.lookup(List.of(TATOOINE.getId(), ALDERAAN.getId()), List.of("Hoth"));
+
+        assertThat(sut.getPlanets()).containsExactly(TATOOINE, ALDERAAN);
+        assertThat(again).isEqualTo(sut);
+        assertThat(planetService.get(ALDERAAN.getId())).contains(ALDERAAN);
+
+        verify(planetRepository, times(1)).findAllByIds(any());
+        verify(planetRepository, never()).findAllByNames(any());
+        verify(planetRepository, never()).findById(ALDERAAN.getId());
+    }
+
+    @Test
+    @DisplayName("Creates and removals are appended to the change feed")
+    @SuppressWarnings("unchecked")
+    void createAndRemovePlanet_RecordChanges() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+        when(planetRepository.removeAll(List.of(TATOOINE.getId(), 99L)))
+                .thenReturn(List.of(TATOOINE.getId()));
+
+        planetService.create(TATOOINE);
+        planetService.removeAll(List.of(TATOOINE.getId(), 99L));
+
+        ArgumentCaptor<Collection<PlanetChange>> recorded = ArgumentCaptor.forClass(Collection.class);
+        verify(changeRepository, times(2)).appendAll(recorded.capture());
+        assertThat(recorded.getAllValues()).flatExtracting(changes -> List.copyOf(changes))
+                .extracting(PlanetChange::getType, PlanetChange::getPlanetId, PlanetChange::getName)
+                .containsExactly(
+                        tuple(PlanetChange.Type.CREATED, TATOOINE.getId(), TATOOINE.getName()),
+                        tuple(PlanetChange.Type.REMOVED, TATOOINE.getId(), null));
+    }
+
     @Test
     @DisplayName("Lista os planets")
     void listPlanets_ReturnsAllPlanets() {
-        when(planetRepository.findAll(any(Example.class))).thenReturn(Arrays.asList(PLANET));
+        when(planetRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(Arrays.asList(PLANET));
 
         List<Planet> sut = planetService.list(PLANET.getTerrain(), PLANET.getClimate());
 
         assertThat(sut).hasSize(1);
         assertThat(sut.get(0)).isEqualTo(PLANET);
+        assertThat(meterRegistry.get("planet.list.size").tag("mode", "all").summary().totalAmount()).isEqualTo(1);
 
-        verify(planetRepository, times(1)).findAll(any(Example.class));
+        verify(planetRepository, times(1)).findAll(any(Specification.class), any(Sort.class));
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of the same id share one query")
+    void getPlanet_ThunderingHerd_QueriesOnce() throws Exception {
+        when(planetRepository.findById(TATOOINE.getId())).thenAnswer(invocation -> {
+            await().atMost(Duration.ofSeconds(10)).until(() -> shared("get") == HERD - 1);
+            return Optional.of(TATOOINE);
+        });
+
+        List<Optional<Planet>> sut = herd(() -> planetService.get(TATOOINE.getId()));
+
+        assertThat(sut).hasSize(HERD).allSatisfy(planet -> assertThat(planet).contains(TATOOINE));
+
+        verify(planetRepository, times(1)).findById(TATOOINE.getId());
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of the same planet share one query")
+    void getPlanetByName_ThunderingHerd_QueriesOnce() throws Exception {
+        when(planetRepository.findByName(TATOOINE.getName())).thenAnswer(invocation -> {
+            // Hold the query until every other caller is waiting for it
+            await().atMost(Duration.ofSeconds(10)).until(() -> shared("getByName") == HERD - 1);
+            return Optional.of(TATOOINE);
+        });
+
+        List<Optional<Planet>> sut = herd(() -> planetService.getByName(TATOOINE.getName()));
+
+        assertThat(sut).hasSize(HERD).allSatisfy(planet -> assertThat(planet).contains(TATOOINE));
+
+        verify(planetRepository, times(1)).findByName(TATOOINE.getName());
+    }
+
+    @Test
+    @DisplayName("Concurrent identical lists share one query")
+    void listPlanets_ThunderingHerd_QueriesOnce() throws Exception {
+        when(planetRepository.findAll(any(Specification.class), any(Sort.class))).thenAnswer(invocation -> {
+            await().atMost(Duration.ofSeconds(10)).until(() -> shared("list") == HERD - 1);
+            return List.of(TATOOINE);
+        });
+
+        List<List<Planet>> sut = herd(() -> planetService.list(TATOOINE.getTerrain(), null));
+
+        assertThat(sut).hasSize(HERD).allSatisfy(planets -> assertThat(planets).containsExactly(TATOOINE));
+        assertThat(meterRegistry.get("planet.list.size").tag("mode", "all").summary().count()).isEqualTo(HERD);
+
+        verify(planetRepository, times(1)).findAll(any(Specification.class), any(Sort.class));
     }
 
     @Test
     @DisplayName("Lista os planetas e retorna vazio")
     void listPlanets_ReturnsNoPlanets() {
-        when(planetRepository.findAll(any(Example.class))).thenReturn(Collections.emptyList());
+        when(planetRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(Collections.emptyList());
 
         List<Planet> sut = planetService.list(PLANET.getTerrain(), PLANET.getClimate());
 
         assertThat(sut).isEmpty();
 
-        verify(planetRepository, times(1)).findAll(any(Example.class));
+        verify(planetRepository, times(1)).findAll(any(Specification.class), any(Sort.class));
+    }
+
+    @Test
+    @DisplayName("Lista uma página de planetas a partir de um cursor")
+    void listPlanets_AfterCursor_ReturnsPage() {
+        when(planetRepository.findAllAfter(any(Specification.class), eq(1L), eq(2))).thenReturn(List.of(ALDERAAN, YAVINIV));
+
+        List<Planet> sut = planetService.list(null, null, 1L, 2);
+
+        assertThat(sut).containsExactly(ALDERAAN, YAVINIV);
+    }
+
+    @Test
+    @DisplayName("Lista somente os campos pedidos")
+    void listPlanets_WithFields_UsesProjection() {
+        Set<PlanetField> fields = EnumSet.of(PlanetField.NAME);
+        Planet tatooine = Planet.builder().id(TATOOINE.getId()).name(TATOOINE.getName()).build();
+        when(planetRepository.findAllAfter(any(Specification.class), eq(fields), isNull(), eq(Integer.MAX_VALUE)))
+                .thenReturn(List.of(tatooine));
+
+        assertThat(planetService.list(null, null, fields)).containsExactly(tatooine);
+
+        verify(planetRepository, never()).findAll(any(Specification.class), any(Sort.class));
+    }
+
+    @Test
+    @DisplayName("Percorre todos os planetas página a página")
+    void streamPlanets_PagesThroughAllPlanets() {
+        List<Planet> firstPage = LongStream.rangeClosed(1, PlanetService.STREAM_PAGE_SIZE)
+                .mapToObj(id -> Planet.builder().id(id).build())
+                .toList();
+        when(planetRepository.findAllAfter(any(Specification.class), isNull(), anyInt())).thenReturn(firstPage);
+        when(planetRepository.findAllAfter(any(Specification.class), eq((long) PlanetService.STREAM_PAGE_SIZE), anyInt()))
+                .thenReturn(List.of(TATOOINE));
+
+        List<Planet> sut = planetService.stream(null, null).toList();
+
+        assertThat(sut).hasSize(PlanetService.STREAM_PAGE_SIZE + 1).endsWith(TATOOINE);
+
+        verify(planetRepository, times(2)).findAllAfter(any(Specification.class), any(), anyInt());
     }
 
     @Test
     @DisplayName("Remover um planeta pelo ID")
-    void removePlanet_WithExistingId_doesNotThrowAnyException() {
-        assertThatCode(() -> planetService.remove(1L)).doesNotThrowAnyException();
+    void removePlanet_WithExistingId_ReturnsTrue() {
+        when(planetRepository.removeAll(List.of(1L))).thenReturn(List.of(1L));
+
+        assertThat(planetService.remove(1L)).isTrue();
 
-        verify(planetRepository, times(1)).deleteById(anyLong());
+        verify(planetRepository, times(1)).removeAll(anyCollection());
+        verify(planetRepository, never()).deleteById(anyLong());
     }
 
     @Test
     @DisplayName("Remover um planeta com ID inexistente")
-    void removePlanet_WithInexistingId_ThrowsException() {
-        doThrow(new RuntimeException()).when(planetRepository).deleteById(1L);
+    void removePlanet_WithInexistingId_ReturnsFalse() {
+        when(planetRepository.removeAll(List.of(1L))).thenReturn(List.of());
+
+        assertThat(planetService.remove(1L)).isFalse();
+
+        verify(planetRepository, times(1)).removeAll(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Remover planetas por filtro")
+    void removePlanets_ByFilter_RemovesMatchingIds() {
+        when(planetRepository.removeAll(TATOOINE.getTerrain(), null)).thenReturn(List.of(1L, 3L));
+
+        assertThat(planetService.removeAll(TATOOINE.getTerrain(), null)).isEqualTo(2);
+        verify(planetRepository, never()).removeAll(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Created planets are searchable and removed planets are not")
+    void searchPlanets_AfterCreateAndRemove_ReflectsWrites() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE, ALDERAAN);
+        when(planetRepository.removeAll(List.of(TATOOINE.getId()))).thenReturn(List.of(TATOOINE.getId()));
+
+        planetService.create(TATOOINE);
+        planetService.create(ALDERAAN);
+
+        assertThat(planetService.search("tat", null)).extracting(PlanetSearchHit::getId).containsExactly(TATOOINE.getId());
+
+        planetService.remove(TATOOINE.getId());
+
+        assertThat(planetService.search("tat", null)).isEmpty();
+        assertThat(planetService.search("alder", null)).extracting(PlanetSearchHit::getId).containsExactly(ALDERAAN.getId());
+        verifyNoMoreInteractions(ignoreStubs(planetRepository));
+    }
+
+    @Test
+    @DisplayName("A removal that fails leaves the planet in the indexes")
+    void removePlanet_WhenDeleteFails_KeepsPlanetIndexed() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+        when(planetRepository.removeAll(List.of(TATOOINE.getId())))
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+
+        planetService.create(TATOOINE);
+
+        assertThatThrownBy(() -> planetService.remove(TATOOINE.getId()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(planetService.search("tat", null)).extracting(PlanetSearchHit::getId).containsExactly(TATOOINE.getId());
+        assertThat(planetService.facets().getTotal()).isEqualTo(1);
+        assertThat(tokenIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Removing ids that do not exist leaves the indexes as they are")
+    void removePlanets_WithUnexistingIds_OnlyUnindexesRemovedOnes() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE, ALDERAAN);
+        when(planetRepository.removeAll(List.of(TATOOINE.getId(), ALDERAAN.getId())))
+                .thenReturn(List.of(TATOOINE.getId()));
+
+        planetService.create(TATOOINE);
+        planetService.create(ALDERAAN);
+        // ALDERAAN stands for a planet the delete did not find, e.g. one created by another instance meanwhile
+        planetService.removeAll(List.of(TATOOINE.getId(), ALDERAAN.getId()));
+
+        assertThat(planetService.search("alder", null)).extracting(PlanetSearchHit::getId).containsExactly(ALDERAAN.getId());
+        assertThat(planetService.facets().getTotal()).isEqualTo(1);
+        assertThat(tokenIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Search results are capped at the configured maximum")
+    void searchPlanets_WithLimitAboveMaximum_ReturnsMaximum() {
+        LongStream.rangeClosed(1, 60).forEach(id -> searchIndex.add(Planet.builder().id(id).name("Planet " + id).build()));
+
+        assertThat(planetService.search("planet", 5)).hasSize(5);
+        assertThat(planetService.search("planet", 1000)).hasSize(new PlanetSearchProperties().getMaxResults());
+    }
+
+    @Test
+    @DisplayName("Facets are loaded once and then follow creates and removes")
+    void facets_AfterCreateAndRemove_ReflectsWrites() {
+        doAnswer(invocation -> {
+            Consumer<Planet> consumer = invocation.getArgument(0);
+            consumer.accept(TATOOINE);
+            consumer.accept(Planet.builder().id(4L).terrain("Desert").climate("Arid").build());
+            return null;
+        }).when(planetRepository).forEachTerrainAndClimate(any());
+        when(planetRepository.save(any(Planet.class))).thenReturn(ALDERAAN);
+        when(planetRepository.removeAll(List.of(1L))).thenReturn(List.of(1L));
+        facetCounter.rebuild();
+
+        planetService.create(ALDERAAN);
+        planetService.remove(1L);
+        PlanetFacets sut = planetService.facets();
+
+        assertThat(sut.getTotal()).isEqualTo(2);
+        assertThat(sut.getTerrain()).containsExactly(entry("desert", 1L), entry("grasslands, mountains", 1L));
+        assertThat(sut.getClimate()).containsExactly(entry("arid", 1L), entry("temperate", 1L));
+        assertThat(sut.getTerrainClimate()).containsExactly(
+                new PlanetFacetCount("desert", "arid", 1),
+                new PlanetFacetCount("grasslands, mountains", "temperate", 1));
+
+        verify(planetRepository, times(1)).forEachTerrainAndClimate(any());
+        verify(planetRepository, never()).findAll(any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("A pair whose last planet is removed disappears from the facets")
+    void facets_AfterRemovingLastPlanetOfPair_OmitsPair() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE);
+        when(planetRepository.removeAll(List.of(TATOOINE.getId()))).thenReturn(List.of(TATOOINE.getId()));
+
+        planetService.create(TATOOINE);
+        planetService.remove(TATOOINE.getId());
+
+        assertThat(planetService.facets().getTerrainClimate()).isEmpty();
+        assertThat(planetService.facets().getTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("Token filters follow creates and removes and are answered from the cache")
+    void listPlanets_ByTokens_AfterCreateAndRemove_ReflectsWrites() {
+        when(planetRepository.save(any(Planet.class))).thenReturn(TATOOINE, ALDERAAN, YAVINIV);
+        when(planetRepository.removeAll(List.of(ALDERAAN.getId()))).thenReturn(List.of(ALDERAAN.getId()));
+        PlanetTokenFilter temperate = new PlanetTokenFilter(List.of(), List.of("temperate"), PlanetTokenFilter.Match.ALL);
+
+        PLANETS.forEach(planetService::create);
+
+        assertThat(planetService.list(temperate, null, 10)).containsExactly(ALDERAAN, YAVINIV);
+
+        planetService.remove(ALDERAAN.getId());
+
+        assertThat(planetService.list(temperate, null, 10)).containsExactly(YAVINIV);
+        verify(planetRepository, never()).findAllByIds(any());
+    }
+
+    @Test
+    @DisplayName("Token filters load only the page of uncached planets, skipping ones removed meanwhile")
+    void listPlanets_ByTokens_LoadsOnlyPage() {
+        tokenIndex.addAll(PLANETS);
+        when(planetRepository.findAllByIds(any())).thenReturn(List.of(YAVINIV));
+        PlanetTokenFilter notDesert = new PlanetTokenFilter(List.of("!desert"), List.of(), PlanetTokenFilter.Match.ALL);
+
+        List<Planet> sut = planetService.list(notDesert, TATOOINE.getId(), 2);
+
+        assertThat(sut).containsExactly(YAVINIV);
+        verify(planetRepository, times(1)).findAllByIds(argThat(ids ->
+                ids.size() == 2 && ids.containsAll(List.of(ALDERAAN.getId(), YAVINIV.getId()))));
+    }
+
+    @Test
+    @DisplayName("Replacing a planet updates it in place and keeps the in-memory views in step")
+    void replacePlanet_WithCurrentVersion_UpdatesCachesIndexAndFacets() {
+        Planet tatooine = versioned(TATOOINE, 0);
+        when(planetRepository.save(any(Planet.class))).thenReturn(tatooine);
+        when(planetRepository.update(any(Planet.class), eq(0L))).thenReturn(true);
+        planetService.create(tatooine);
+
+        PlanetUpdateResult sut = planetService.replace(TATOOINE.getId(),
+                Planet.builder().name("Jakku").climate("hot").terrain("sand").build(), null);
+
+        assertThat(sut.getStatus()).isEqualTo(PlanetUpdateResult.Status.UPDATED);
+        assertThat(sut.getPlanet()).extracting(Planet::getId, Planet::getName, Planet::getVersion)
+                .containsExactly(TATOOINE.getId(), "Jakku", 1L);
+        assertThat(planetService.get(TATOOINE.getId())).contains(sut.getPlanet());
+        assertThat(planetService.getByName(TATOOINE.getName())).isEmpty();
+        assertThat(planetService.search("jakku", 10)).extracting(PlanetSearchHit::getId).containsExactly(TATOOINE.getId());
+        assertThat(planetService.facets().getTerrainClimate()).containsExactly(new PlanetFacetCount("sand", "hot", 1));
+        verify(changeRepository, times(2)).appendAll(anyCollection());
+        // Served from the cache: the update is the only statement
+        verify(planetRepository, never()).findById(anyLong());
+        verify(planetRepository, never()).findCurrent(anyLong());
+    }
+
+    @Test
+    @DisplayName("An update based on a stale cached version is retried with the current one")
+    void replacePlanet_WithStaleCachedVersion_RetriesWithCurrentVersion() {
+        when(planetRepository.findById(TATOOINE.getId())).thenReturn(Optional.of(versioned(TATOOINE, 0)));
+        when(planetRepository.update(any(Planet.class), eq(0L))).thenReturn(false);
+        when(planetRepository.findCurrent(TATOOINE.getId())).thenReturn(Optional.of(versioned(TATOOINE, 1)));
+        when(planetRepository.update(any(Planet.class), eq(1L))).thenReturn(true);
+
+        PlanetUpdateResult sut = planetService.replace(TATOOINE.getId(), versioned(TATOOINE, 0), null);
+
+        assertThat(sut.getStatus()).isEqualTo(PlanetUpdateResult.Status.UPDATED);
+        assertThat(sut.getPlanet().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A precondition the current planet does not meet fails without writing")
+    void replacePlanet_WithUnmetPrecondition_ReturnsPreconditionFailed() {
+        when(planetRepository.findById(TATOOINE.getId())).thenReturn(Optional.of(versioned(TATOOINE, 1)));
+        when(planetRepository.findCurrent(TATOOINE.getId())).thenReturn(Optional.of(versioned(TATOOINE, 1)));
+
+        PlanetUpdateResult sut = planetService.replace(TATOOINE.getId(), versioned(TATOOINE, 0),
+                planet -> planet.getVersion() == 0);
+
+        assertThat(sut.getStatus()).isEqualTo(PlanetUpdateResult.Status.PRECONDITION_FAILED);
+        verify(planetRepository, never()).update(any(Planet.class), anyLong());
+    }
+
+    @Test
+    void replacePlanet_WithUnexistingId_ReturnsNotFound() {
+        when(planetRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThat(planetService.replace(99L, PLANET, null).getStatus()).isEqualTo(PlanetUpdateResult.Status.NOT_FOUND);
+    }
+
+    @Test
+    void patchPlanet_OnlyChangesGivenFields() {
+        when(planetRepository.findById(TATOOINE.getId())).thenReturn(Optional.of(versioned(TATOOINE, 3)));
+        when(planetRepository.update(any(Planet.class), eq(3L))).thenReturn(true);
+
+        PlanetUpdateResult sut = planetService.patch(TATOOINE.getId(), Planet.builder().climate("hot").build(), null);
 
-        assertThatThrownBy(() -> planetService.remove(1L)).isInstanceOf(RuntimeException.class);
+        assertThat(sut.getPlanet()).extracting(Planet::getName, Planet::getClimate, Planet::getTerrain, Planet::getVersion)
+                .containsExactly(TATOOINE.getName(), "hot", TATOOINE.getTerrain(), 4L);
+    }
+
+    @Test
+    void upsertPlanet_WithNewName_CreatesPlanet() {
+        when(planetRepository.findByName(TATOOINE.getName())).thenReturn(Optional.empty());
+        when(planetRepository.save(any(Planet.class))).thenReturn(versioned(TATOOINE, 0));
+
+        PlanetUpdateResult sut = planetService.upsert(TATOOINE.getName(), TATOOINE, null);
+
+        assertThat(sut.getStatus()).isEqualTo(PlanetUpdateResult.Status.CREATED);
+        assertThat(sut.getPlanet().getVersion()).isZero();
+    }
+
+    @Test
+    void upsertPlanet_WithExistingName_UpdatesPlanet() {
+        when(planetRepository.findByName(TATOOINE.getName())).thenReturn(Optional.of(versioned(TATOOINE, 0)));
+        when(planetRepository.update(any(Planet.class), eq(0L))).thenReturn(true);
+
+        PlanetUpdateResult sut = planetService.upsert(TATOOINE.getName(),
+                Planet.builder().name(TATOOINE.getName()).climate("hot").terrain("sand").build(), null);
+
+        assertThat(sut.getStatus()).isEqualTo(PlanetUpdateResult.Status.UPDATED);
+        verify(planetRepository, never()).save(any(Planet.class));
+    }
+
+    @Test
+    void upsertPlanet_WithPreconditionAndNewName_ReturnsPreconditionFailed() {
+        when(planetRepository.findByName("Hoth")).thenReturn(Optional.empty());
+
+        assertThat(planetService.upsert("Hoth", PLANET, planet -> true).getStatus())
+                .isEqualTo(PlanetUpdateResult.Status.PRECONDITION_FAILED);
+        verify(planetRepository, never()).save(any(Planet.class));
+    }
+
+    @Test
+    @DisplayName("With the column store serving, reads are answered from memory and follow writes")
+    @SuppressWarnings("unchecked")
+    void readPlanets_WithColumnStoreServing_DoNotQueryRepository() {
+        storeProperties.setEnabled(true);
+        doAnswer(invocation -> {
+            PLANETS.forEach(planet -> invocation.getArgument(0, Consumer.class).accept(versioned(planet, 0)));
+            return null;
+        }).when(planetRepository).forEachPlanet(any());
+        when(planetRepository.update(any(Planet.class), eq(0L))).thenReturn(true);
+        when(planetRepository.removeAll(List.of(YAVINIV.getId()))).thenReturn(List.of(YAVINIV.getId()));
+        columnStore.rebuild();
+
+        assertThat(planetService.get(TATOOINE.getId())).hasValueSatisfying(planet ->
+                assertThat(planet).extracting(Planet::getName, Planet::getVersion).containsExactly(TATOOINE.getName(), 0L));
+        assertThat(planetService.getByName("ALDERAAN")).contains(ALDERAAN);
+        assertThat(planetService.list(null, "Temperate")).containsExactly(ALDERAAN);
+
+        planetService.replace(ALDERAAN.getId(), Planet.builder().name("Alderaan").climate("arid").terrain("rubble").build(), null);
+        planetService.remove(YAVINIV.getId());
+
+        assertThat(planetService.list(null, "ARID")).extracting(Planet::getId, Planet::getVersion)
+                .containsExactly(tuple(TATOOINE.getId(), 0L), tuple(ALDERAAN.getId(), 1L));
+        assertThat(planetService.listFingerprint(null, "arid")).isEqualTo("2:2:3:1");
+        assertThat(planetService.list(null, null, EnumSet.of(PlanetField.NAME))).extracting(Planet::getName, Planet::getTerrain)
+                .containsExactly(tuple(TATOOINE.getName(), null), tuple(ALDERAAN.getName(), null));
+        verify(planetRepository, never()).findById(anyLong());
+        verify(planetRepository, never()).findByName(any());
+        verify(planetRepository, never()).findAll(any(Specification.class), any(Sort.class));
+        verify(planetRepository, never()).fingerprint(any());
+    }
+
+    @Test
+    @DisplayName("Removing an id that does not exist yet does not hide the planet later created with it")
+    void removePlanet_WithUnassignedId_KeepsLaterPlanetInColumnStore() {
+        storeProperties.setEnabled(true);
+        Planet hoth = Planet.builder().id(99L).name("Hoth").climate("frozen").terrain("tundra").version(0L).build();
+        when(planetRepository.removeAll(List.of(hoth.getId()))).thenReturn(List.of());
+        when(planetRepository.save(any(Planet.class))).thenReturn(hoth);
+        columnStore.rebuild();
+
+        assertThat(planetService.remove(hoth.getId())).isFalse();
+        planetService.create(hoth);
+
+        assertThat(planetService.get(hoth.getId())).contains(hoth);
+        assertThat(planetService.list(null, "frozen")).containsExactly(hoth);
+        verify(planetRepository, never()).findById(anyLong());
+    }
+
+    private static Planet versioned(Planet planet, long version) {
+        return Planet.builder().id(planet.getId()).name(planet.getName()).climate(planet.getClimate())
+                .terrain(planet.getTerrain()).version(version).build();
+    }
+
+    private double shared(String operation) {
+        return meterRegistry.get("planet.single-flight.shared").tag("operation", operation).counter().count();
+    }
 
-        verify(planetRepository, times(1)).deleteById(anyLong());
+    private static <T> List<T> herd(Callable<T> call) throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(HERD)) {
+            List<T> results = new ArrayList<>();
+            for (Future<T> result : executor.invokeAll(Collections.nCopies(HERD, call))) {
+                results.add(result.get());
+            }
+            return results;
+        }
     }
 }
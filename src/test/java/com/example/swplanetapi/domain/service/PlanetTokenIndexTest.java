@@ -0,0 +1,139 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter;
+import com.example.swplanetapi.domain.model.PlanetTokenFilter.Match;
+import com.example.swplanetapi.domain.repository.PlanetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetTokenIndexTest {
+
+    private PlanetTokenIndex tokenIndex;
+
+    @Mock
+    private PlanetRepository planetRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        tokenIndex = new PlanetTokenIndex(planetRepository);
+        tokenIndex.addAll(PLANETS);
+    }
+
+    @Test
+    void find_WithMatchAll_ReturnsPlanetsHavingEveryToken() {
+        assertThat(tokenIndex.find(filter(List.of("Mountains", "grasslands"), List.of(), Match.ALL), null, 10))
+                .containsExactly(ALDERAAN.getId());
+        assertThat(tokenIndex.find(filter(List.of("mountains", "jungle"), List.of(), Match.ALL), null, 10))
+                .isEmpty();
+    }
+
+    @Test
+    void find_WithMatchAny_ReturnsPlanetsHavingSomeToken() {
+        assertThat(tokenIndex.find(filter(List.of("desert", "jungle", "hoth"), List.of(), Match.ANY), null, 10))
+                .containsExactly(TATOOINE.getId(), YAVINIV.getId());
+    }
+
+    @Test
+    void find_WithTerrainAndClimate_RequiresBoth() {
+        assertThat(tokenIndex.find(filter(List.of("mountains", "jungle"), List.of("tropical"), Match.ANY), null, 10))
+                .containsExactly(YAVINIV.getId());
+    }
+
+    @Test
+    void find_WithNegatedToken_ExcludesPlanetsHavingIt() {
+        assertThat(tokenIndex.find(filter(List.of(), List.of("!tropical"), Match.ALL), null, 10))
+                .containsExactly(TATOOINE.getId(), ALDERAAN.getId());
+        assertThat(tokenIndex.find(filter(List.of("!desert"), List.of("temperate"), Match.ALL), null, 10))
+                .containsExactly(ALDERAAN.getId(), YAVINIV.getId());
+    }
+
+    @Test
+    void find_AfterCursor_ReturnsNextPageInIdOrder() {
+        LongStream.rangeClosed(10, 30).forEach(id -> tokenIndex.add(planet(id, "desert")));
+        PlanetTokenFilter desert = filter(List.of("desert"), List.of(), Match.ALL);
+
+        assertThat(tokenIndex.find(desert, null, 3)).containsExactly(1L, 10L, 11L);
+        assertThat(tokenIndex.find(desert, 11L, 3)).containsExactly(12L, 13L, 14L);
+        assertThat(tokenIndex.find(desert, 5L, 1)).containsExactly(10L);
+        assertThat(tokenIndex.find(desert, 29L, 3)).containsExactly(30L);
+        assertThat(tokenIndex.find(desert, 30L, 3)).isEmpty();
+    }
+
+    @Test
+    void add_WithNewTerrain_ReplacesOldTokens() {
+        tokenIndex.add(Planet.builder().id(TATOOINE.getId()).terrain("sand").climate("arid").version(1L).build());
+
+        assertThat(tokenIndex.find(filter(List.of("desert"), List.of(), Match.ALL), null, 10)).isEmpty();
+        assertThat(tokenIndex.find(filter(List.of("sand"), List.of(), Match.ALL), null, 10))
+                .containsExactly(TATOOINE.getId());
+        assertThat(tokenIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void add_OlderVersionOrAfterRemoval_IsIgnored() {
+        tokenIndex.add(Planet.builder().id(TATOOINE.getId()).terrain("sand").climate("arid").version(2L).build());
+        tokenIndex.add(Planet.builder().id(TATOOINE.getId()).terrain("rock").climate("arid").version(1L).build());
+        tokenIndex.removeAll(List.of(YAVINIV.getId()));
+        tokenIndex.add(YAVINIV);
+
+        assertThat(tokenIndex.find(filter(List.of("sand", "rock", "jungle"), List.of(), Match.ANY), null, 10))
+                .containsExactly(TATOOINE.getId());
+        assertThat(tokenIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    void removeAll_DropsPlanetsFromEveryToken() {
+        tokenIndex.removeAll(List.of(ALDERAAN.getId(), YAVINIV.getId(), 99L));
+
+        assertThat(tokenIndex.size()).isEqualTo(1);
+        assertThat(tokenIndex.find(filter(List.of(), List.of("temperate"), Match.ANY), null, 10)).isEmpty();
+        assertThat(tokenIndex.find(filter(List.of(), List.of("!temperate"), Match.ANY), null, 10))
+                .containsExactly(TATOOINE.getId());
+    }
+
+    @Test
+    void removeAll_PlanetSharingTokens_KeepsTheOthers() {
+        tokenIndex.removeAll(List.of(ALDERAAN.getId()));
+
+        assertThat(tokenIndex.find(filter(List.of(), List.of("temperate"), Match.ANY), null, 10))
+                .containsExactly(YAVINIV.getId());
+        assertThat(tokenIndex.find(filter(List.of("mountains"), List.of(), Match.ANY), null, 10)).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_LoadsTokensFromRepository() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(planet(7L, "Ice, Caves"));
+            return null;
+        }).when(planetRepository).forEachTerrainAndClimate(any());
+
+        tokenIndex.rebuild();
+
+        assertThat(tokenIndex.size()).isEqualTo(1);
+        assertThat(tokenIndex.find(filter(List.of("caves", "ice"), List.of(), Match.ALL), null, 10))
+                .containsExactly(7L);
+    }
+
+    private static PlanetTokenFilter filter(List<String> terrain, List<String> climate, Match match) {
+        return new PlanetTokenFilter(terrain, climate, match);
+    }
+
+    private static Planet planet(long id, String terrain) {
+        return Planet.builder().id(id).terrain(terrain).climate("arid").build();
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.swplanetapi.domain.service;
+
+import com.example.swplanetapi.core.limiter.ConcurrencyLimitProperties;
+import com.example.swplanetapi.core.limiter.OverloadedException;
+import com.example.swplanetapi.domain.model.Planet;
+import com.example.swplanetapi.domain.model.PlanetCreation;
+import com.example.swplanetapi.domain.model.PlanetImportResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.swplanetapi.PlanetConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetWriteBehindTest {
+
+    @Mock
+    private PlanetService planetService;
+
+    @Mock
+    private PlanetImportService importService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PlanetWriteBehindProperties properties = new PlanetWriteBehindProperties();
+
+    private final CountDownLatch commitStarted = new CountDownLatch(1);
+
+    private final CountDownLatch releaseCommit = new CountDownLatch(1);
+
+    private final List<List<String>> commits = new ArrayList<>();
+
+    private PlanetWriteBehind writeBehind;
+
+    @BeforeEach
+    void beforeEach() {
+        properties.setEnabled(true);
+        properties.setCapacity(3);
+        when(planetService.getByName(anyString())).thenReturn(Optional.empty());
+        // The first commit is held until releaseCommit, so the next creations queue up behind it
+        when(importService.createBatch(anyList())).thenAnswer(invocation -> {
+            commitStarted.countDown();
+            releaseCommit.await(10, TimeUnit.SECONDS);
+            List<Planet> planets = invocation.getArgument(0);
+            List<String> names = new ArrayList<>();
+            List<PlanetImportResult> results = new ArrayList<>();
+            for (Planet planet : planets) {
+                String name = planet.getName();
+                results.add(name.equals(YAVINIV.getName())
+                        ? PlanetImportResult.conflict(names.size(), name)
+                        : PlanetImportResult.created(names.size(), 100L + names.size()));
+                names.add(name);
+            }
+            synchronized (commits) {
+                commits.add(names);
+            }
+            return results;
+        });
+        writeBehind = new PlanetWriteBehind(planetService, importService, properties, new ConcurrencyLimitProperties(),
+                meterRegistry);
+        writeBehind.afterSingletonsInstantiated();
+    }
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        releaseCommit.countDown();
+        writeBehind.close();
+    }
+
+    @Test
+    void create_QueuedDuringCommit_CommitsTogether() throws Exception {
+        PlanetCreation first = writeBehind.create(TATOOINE, Duration.ZERO);
+        commitStarted.await(10, TimeUnit.SECONDS);
+        PlanetCreation second = writeBehind.create(ALDERAAN, Duration.ZERO);
+        PlanetCreation third = writeBehind.create(YAVINIV, Duration.ZERO);
+
+        assertThat(writeBehind.status(second.getId())).contains(PlanetCreation.pending(second.getId()));
+
+        releaseCommit.countDown();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> writeBehind.status(third.getId())
+                .filter(creation -> creation.getStatus() != PlanetCreation.Status.PENDING).isPresent());
+        assertThat(commits).containsExactly(List.of(TATOOINE.getName()), List.of(ALDERAAN.getName(), YAVINIV.getName()));
+        assertThat(writeBehind.status(first.getId())).hasValueSatisfying(creation ->
+                assertThat(creation.getPlanet()).extracting(Planet::getId, Planet::getName).containsExactly(100L, TATOOINE.getName()));
+        assertThat(writeBehind.status(third.getId())).hasValueSatisfying(creation ->
+                assertThat(creation.getStatus()).isEqualTo(PlanetCreation.Status.CONFLICT));
+        assertThat(meterRegistry.get("planet.write-behind.batch").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    void create_CommittedWithinWait_ReturnsPlanet() throws Exception {
+        releaseCommit.countDown();
+
+        PlanetCreation created = writeBehind.create(TATOOINE, Duration.ofSeconds(10));
+
+        assertThat(created.getStatus()).isEqualTo(PlanetCreation.Status.CREATED);
+        assertThat(created.getPlanet()).extracting(Planet::getId, Planet::getName, Planet::getVersion)
+                .containsExactly(100L, TATOOINE.getName(), 0L);
+    }
+
+    @Test
+    void create_NameQueuedOrExisting_ThrowsConflict() throws Exception {
+        writeBehind.create(TATOOINE, Duration.ZERO);
+        when(planetService.getByName(ALDERAAN.getName())).thenReturn(Optional.of(ALDERAAN));
+
+        assertThatThrownBy(() -> writeBehind.create(TATOOINE, Duration.ZERO))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        Planet otherCase = Planet.builder().name(TATOOINE.getName().toUpperCase()).climate("Climate").terrain("Terrain")
+                .build();
+        assertThatThrownBy(() -> writeBehind.create(otherCase, Duration.ZERO))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> writeBehind.create(ALDERAAN, Duration.ZERO))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void create_QueueFull_ThrowsOverloaded() throws Exception {
+        writeBehind.create(planet(1), Duration.ZERO);
+        commitStarted.await(10, TimeUnit.SECONDS);
+        for (int i = 2; i <= 4; i++) {
+            writeBehind.create(planet(i), Duration.ZERO);
+        }
+
+        assertThatThrownBy(() -> writeBehind.create(planet(5), Duration.ZERO))
+                .isInstanceOf(OverloadedException.class);
+        // Refused, so its name is free again
+        releaseCommit.countDown();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> meterRegistry.get("planet.write-behind.queued").gauge().value() == 0);
+        assertThat(writeBehind.create(planet(5), Duration.ofSeconds(10)).getStatus()).isEqualTo(PlanetCreation.Status.CREATED);
+    }
+
+    @Test
+    void close_CommitsQueuedCreations() throws Exception {
+        writeBehind.create(TATOOINE, Duration.ZERO);
+        commitStarted.await(10, TimeUnit.SECONDS);
+        PlanetCreation queued = writeBehind.create(ALDERAAN, Duration.ZERO);
+        releaseCommit.countDown();
+
+        writeBehind.close();
+
+        assertThat(writeBehind.status(queued.getId())).hasValueSatisfying(creation ->
+                assertThat(creation.getStatus()).isEqualTo(PlanetCreation.Status.CREATED));
+        assertThatThrownBy(() -> writeBehind.create(YAVINIV, Duration.ZERO)).isInstanceOf(OverloadedException.class);
+    }
+
+    @Test
+    void close_WhileCreating_QueuesNothingAfterwards() throws Exception {
+        writeBehind.create(TATOOINE, Duration.ZERO);
+        commitStarted.await(10, TimeUnit.SECONDS);
+        Thread closing = Thread.ofPlatform().start(() -> {
+            try {
+                writeBehind.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        await().atMost(10, TimeUnit.SECONDS).until(() -> !writeBehind.isEnabled());
+
+        assertThatThrownBy(() -> writeBehind.create(ALDERAAN, Duration.ZERO)).isInstanceOf(OverloadedException.class);
+        releaseCommit.countDown();
+        closing.join(10_000);
+        assertThat(commits).containsExactly(List.of(TATOOINE.getName()));
+    }
+
+    @Test
+    void writerInterrupted_FailsQueuedCreations() throws Exception {
+        writeBehind.create(TATOOINE, Duration.ZERO);
+        commitStarted.await(10, TimeUnit.SECONDS);
+        PlanetCreation queued = writeBehind.create(ALDERAAN, Duration.ZERO);
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("planet-write-behind")).findFirst().orElseThrow();
+
+        writer.interrupt();
+        writer.join(10_000);
+
+        assertThat(writeBehind.status(queued.getId())).hasValueSatisfying(creation ->
+                assertThat(creation.getStatus()).isEqualTo(PlanetCreation.Status.FAILED));
+        assertThat(writeBehind.isEnabled()).isFalse();
+    }
+
+    private static Planet planet(int number) {
+        return Planet.builder().name("Planet " + number).climate("Climate").terrain("Terrain").build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.swplanetapi.domain.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SingleFlight<String, Integer> sut = new SingleFlight<>("test", meterRegistry);
+
+    @Test
+    void load_WhenLoaderFails_FailsEveryWaitingCaller() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(() -> sut.load("key", key -> {
+            started.countDown();
+            await().atMost(Duration.ofSeconds(5)).until(() -> release.getCount() == 0);
+            throw new IllegalStateException("boom");
+        }));
+        started.await();
+
+        CompletableFuture<Integer> follower = CompletableFuture.supplyAsync(() -> sut.load("key", key -> 1));
+        await().atMost(Duration.ofSeconds(5)).until(() -> shared() == 1);
+        release.countDown();
+
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(follower::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void load_AfterFlightLands_LoadsAgain() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(sut.load("key", key -> loads.incrementAndGet())).isEqualTo(1);
+        assertThat(sut.load("key", key -> loads.incrementAndGet())).isEqualTo(2);
+        assertThat(shared()).isZero();
+    }
+
+    @Test
+    void load_AfterForget_DoesNotJoinFlightStartedBefore() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> before = CompletableFuture.supplyAsync(() -> sut.load("key", key -> {
+            started.countDown();
+            await().atMost(Duration.ofSeconds(5)).until(() -> release.getCount() == 0);
+            return 1;
+        }));
+        started.await();
+
+        sut.forget("key");
+
+        assertThat(sut.load("key", key -> 2)).isEqualTo(2);
+        release.countDown();
+        assertThat(before.join()).isEqualTo(1);
+        assertThat(shared()).isZero();
+    }
+
+    private double shared() {
+        return meterRegistry.get("planet.single-flight.shared").counter().count();
+    }
+}